@@ -0,0 +1,97 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a full transaction log page and of a user's accounts in each format served by content negotiation. The
+ * payload sizes are printed once per trial, as JMH only measures time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    private static final TypeReference<List<TransactionLog>> TRANSACTION_LOGS = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private List<TransactionLog> transactionLogPage;
+    private List<MoneyAccountController.MoneyAccountVo> moneyAccountVos;
+    private byte[] serializedTransactionLogPage;
+
+    @Setup
+    public void setup() throws IOException {
+        final JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        // as configured by Spring Boot, see BinaryFormatConfiguration
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .factory(factory)
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+        final UUID userId = UUID.randomUUID();
+        final Instant now = Instant.now();
+        transactionLogPage = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            transactionLogPage.add(TransactionLog.builder()
+                .id(UUID.randomUUID())
+                .operatingAccountId("12345678")
+                .operation(i % 2 == 0 ? "DEDUCT" : "ADD")
+                .operatingAccountUserId(userId)
+                .referenceCode("TRANSFER_0123456789ABCDEFGHIJ" + i)
+                .counterpartAccountId("88888888")
+                .currencyCode("HKD")
+                .moneyAmount(BigDecimal.valueOf(5_005 + i, 2))
+                .createDateTimeUtc(now.minusSeconds(i))
+                .build());
+        }
+        moneyAccountVos = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            moneyAccountVos.add(new MoneyAccountController.MoneyAccountVo("1234567" + i, i + 1, userId, "HKD",
+                new BigDecimal("1000000.01")));
+        }
+        serializedTransactionLogPage = objectMapper.writeValueAsBytes(transactionLogPage);
+        System.out.printf("%n%s payload bytes: transaction log page %d, accounts %d%n", format,
+            serializedTransactionLogPage.length, objectMapper.writeValueAsBytes(moneyAccountVos).length);
+    }
+
+    @Benchmark
+    public byte[] serializeTransactionLogPage() throws IOException {
+        return objectMapper.writeValueAsBytes(transactionLogPage);
+    }
+
+    @Benchmark
+    public List<TransactionLog> deserializeTransactionLogPage() throws IOException {
+        return objectMapper.readValue(serializedTransactionLogPage, TRANSACTION_LOGS);
+    }
+
+    @Benchmark
+    public byte[] serializeMoneyAccounts() throws IOException {
+        return objectMapper.writeValueAsBytes(moneyAccountVos);
+    }
+}
@@ -0,0 +1,70 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.acmebank.acmeaccountmanager.rest.mapper.AccountManagementMapper;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.javamoney.moneta.Money;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestPayloadBenchmark {
+
+    private final AccountManagementMapper mapper = Mappers.getMapper(AccountManagementMapper.class);
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private MoneyAccount moneyAccount;
+    private MoneyAccountController.MoneyAccountVo moneyAccountVo;
+    private TransactionLog transactionLog;
+
+    @Setup
+    public void setup() {
+        moneyAccount = MoneyAccount.builder()
+            .id("12345678")
+            .version(1)
+            .primaryOwnerId(UUID.randomUUID())
+            .currencyCode("HKD")
+            .balance(Money.of(new BigDecimal("1000000.01"), "HKD"))
+            .build();
+        moneyAccountVo = mapper.serviceToRest(moneyAccount);
+        transactionLog = TransactionLog.builder()
+            .id(UUID.randomUUID())
+            .operatingAccountId("12345678")
+            .operation("DEDUCT")
+            .operatingAccountUserId(UUID.randomUUID())
+            .referenceCode("TRANSFER_0123456789ABCDEFGHIJ")
+            .counterpartAccountId("88888888")
+            .currencyCode("HKD")
+            .moneyAmount(new BigDecimal("50.05"))
+            .createDateTimeUtc(Instant.now())
+            .build();
+    }
+
+    @Benchmark
+    public MoneyAccountController.MoneyAccountVo serviceToRest() {
+        return mapper.serviceToRest(moneyAccount);
+    }
+
+    @Benchmark
+    public byte[] serializeMoneyAccountVo() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(moneyAccountVo);
+    }
+
+    @Benchmark
+    public byte[] serializeTransactionLog() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactionLog);
+    }
+}
@@ -1,16 +1,17 @@
-package com.acmebank.acmeaccountmanager.service.impl.mapper;
+package com.acmebank.acmeaccountmanager.service.impl;
 
 import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
 import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
-import com.acmebank.acmeaccountmanager.service.impl.MoneyAccountEntity;
-import com.acmebank.acmeaccountmanager.service.impl.TransactionLogEntity;
 import org.javamoney.moneta.Money;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.mapstruct.MappingConstants;
 import org.mapstruct.Named;
 
-@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+/**
+ * The entity mapping used before the reads were answered with {@link MoneyAccountRow} and other projections, kept as
+ * the baseline of {@link MoneyAccountBenchmark}.
+ */
+@Mapper
 public abstract class AccountManagementImplMapper {
 
     @Mapping(target = "balance", source = ".", qualifiedByName = "toMoney")
@@ -0,0 +1,113 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import org.javamoney.moneta.Money;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyAccountBenchmark {
+
+    private final AccountManagementImplMapper mapper = Mappers.getMapper(AccountManagementImplMapper.class);
+
+    private static final BigDecimal TRANSFER_AMOUNT = new BigDecimal("0.01");
+
+    private MoneyAccountEntity moneyAccountEntity;
+    private MoneyAccountEntity recipientAccountEntity;
+    private MoneyAccountRow moneyAccountRow;
+    private TransactionLogEntity transactionLogEntity;
+
+    @Setup
+    public void setup() {
+        moneyAccountEntity = MoneyAccountEntity.builder()
+            .id("12345678")
+            .version(1)
+            .primaryOwnerId(UUID.randomUUID())
+            .currencyCode("HKD")
+            .build();
+        recipientAccountEntity = MoneyAccountEntity.builder()
+            .id("88888888")
+            .version(1)
+            .primaryOwnerId(UUID.randomUUID())
+            .currencyCode("HKD")
+            .build();
+        moneyAccountRow = new MoneyAccountRow("12345678", 1, moneyAccountEntity.getPrimaryOwnerId(), "HKD",
+            new BigDecimal("1000000.01"));
+        transactionLogEntity = TransactionLogEntity.builder()
+            .id(UUID.randomUUID())
+            .operatingAccountId("12345678")
+            .operation("DEDUCT")
+            .operatingAccountUserId(UUID.randomUUID())
+            .referenceCode("TRANSFER_0123456789ABCDEFGHIJ")
+            .counterpartAccountId("88888888")
+            .currencyCode("HKD")
+            .moneyAmount(new BigDecimal("50.05"))
+            .createDateTimeUtc(Instant.now())
+            .build();
+    }
+
+    /**
+     * A trial transfers far more than any balance could cover, each iteration at most a few hundred thousand HKD.
+     */
+    @Setup(Level.Iteration)
+    public void resetBalances() {
+        moneyAccountEntity.setBalanceAmount(new BigDecimal("1000000.01"));
+        recipientAccountEntity.setBalanceAmount(new BigDecimal("0.00"));
+    }
+
+    @Benchmark
+    public Money getBalance() {
+        return moneyAccountEntity.getBalance();
+    }
+
+    /**
+     * Balance arithmetic of a transfer as done before {@link MinorUnitMoney}: both balances go through Moneta.
+     */
+    @Benchmark
+    public void transferBalancesWithMoneta() {
+        Money amount = Money.of(TRANSFER_AMOUNT, "HKD");
+        Money newOperatingBalance = moneyAccountEntity.getBalance().subtract(amount);
+        if (newOperatingBalance.isNegative()) {
+            throw new IllegalStateException();
+        }
+        moneyAccountEntity.setBalanceAmount(newOperatingBalance.getNumberStripped());
+        recipientAccountEntity.setBalanceAmount(recipientAccountEntity.getBalance().add(amount).getNumberStripped());
+    }
+
+    @Benchmark
+    public void transferBalancesWithMinorUnits() {
+        MinorUnitMoney amount = MinorUnitMoney.of("HKD", TRANSFER_AMOUNT);
+        MinorUnitMoney newOperatingBalance = moneyAccountEntity.getMinorUnitBalance().subtract(amount);
+        if (newOperatingBalance.isNegative()) {
+            throw new IllegalStateException();
+        }
+        moneyAccountEntity.setMinorUnitBalance(newOperatingBalance);
+        recipientAccountEntity.setMinorUnitBalance(recipientAccountEntity.getMinorUnitBalance().add(amount));
+    }
+
+    @Benchmark
+    public MoneyAccount moneyAccountEntityToDomainObject() {
+        return mapper.entityToDomainObject(moneyAccountEntity);
+    }
+
+    @Benchmark
+    public MoneyAccount moneyAccountRowToDomainObject() {
+        return moneyAccountRow.toMoneyAccount();
+    }
+
+    @Benchmark
+    public TransactionLog transactionLogEntityToDomainObject() {
+        return mapper.entityToDomainObject(transactionLogEntity);
+    }
+}
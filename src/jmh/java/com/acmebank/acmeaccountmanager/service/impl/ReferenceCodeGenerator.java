@@ -2,6 +2,10 @@ package com.acmebank.acmeaccountmanager.service.impl;
 
 import java.util.UUID;
 
+/**
+ * The random reference codes used before {@link TimeOrderedReferenceCodeGenerator}, kept as the baseline of
+ * {@link ReferenceCodeGeneratorBenchmark}.
+ */
 class ReferenceCodeGenerator {
     public static final int UUID_RANDOM_LENGTH = 32;
 
@@ -0,0 +1,40 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReferenceCodeGeneratorBenchmark {
+
+    private final ReferenceCodeGenerator generator = new ReferenceCodeGenerator();
+    private final TimeOrderedReferenceCodeGenerator timeOrderedGenerator =
+        new TimeOrderedReferenceCodeGenerator(new ReferenceCodeProperties(1));
+
+    @Benchmark
+    public String generate() {
+        return generator.generate(20);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateContended() {
+        return generator.generate(20);
+    }
+
+    @Benchmark
+    public String generateTimeOrdered() {
+        return timeOrderedGenerator.generate("TRANSFER");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateTimeOrderedContended() {
+        return timeOrderedGenerator.generate("TRANSFER");
+    }
+}
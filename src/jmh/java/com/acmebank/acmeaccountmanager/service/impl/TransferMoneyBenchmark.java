@@ -0,0 +1,81 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.AcmeAccountManagerApplication;
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full service round trip of a transfer: validation proxy, transaction, two account reads, two updates and two
+ * transaction log inserts against an in-memory H2 migrated by Flyway.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferMoneyBenchmark {
+
+    private static final BigDecimal TRANSFER_AMOUNT = new BigDecimal("0.01");
+
+    @Param({"entity", "conditional-update"})
+    public String transferMode;
+
+    private ConfigurableApplicationContext context;
+    private AccountManagement accountManagement;
+
+    private final UUID userId = UUID.randomUUID();
+    private final String operatingAccountId = "BENCH-" + UUID.randomUUID();
+    private final String recipientAccountId = "BENCH-" + UUID.randomUUID();
+    private int operatingAccountVersion = 1;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(AcmeAccountManagerApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                "--spring.jpa.show-sql=false",
+                "--acme.transfer.mode=" + transferMode,
+                "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN");
+        accountManagement = context.getBean(AccountManagement.class);
+
+        MoneyAccountRepository moneyAccountRepository = context.getBean(MoneyAccountRepository.class);
+        moneyAccountRepository.save(account(operatingAccountId));
+        moneyAccountRepository.save(account(recipientAccountId));
+    }
+
+    private MoneyAccountEntity account(String accountId) {
+        return MoneyAccountEntity.builder()
+            .id(accountId)
+            .version(1)
+            .primaryOwnerId(userId)
+            .currencyCode("HKD")
+            .balanceAmount(new BigDecimal("1000000000000.00"))
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public void transferMoneyToAccount() {
+        accountManagement.transferMoneyToAccount(AccountManagement.TransferMoneyToAccountRequest.builder()
+            .userId(userId)
+            .operatingAccountId(operatingAccountId)
+            .operatingAccountVersion(operatingAccountVersion++)
+            .recipientAccountId(recipientAccountId)
+            .currencyCode("HKD")
+            .toBeTransferAmount(TRANSFER_AMOUNT)
+            .build());
+    }
+}
@@ -0,0 +1,398 @@
+package com.acmebank.acmeaccountmanager.load;
+
+import com.acmebank.acmeaccountmanager.AcmeAccountManagerApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed loop load generator: starts the application on a random port against an in-memory H2, seeds accounts and
+ * transaction logs, and lets {@code load.concurrency} workers send requests of the configured mix back to back for
+ * {@code load.warmup} plus {@code load.duration}. Latencies of the measured part are recorded per operation in
+ * HdrHistograms.
+ * <p>
+ * Arguments are Spring properties: {@code load.*} binds to {@link LoadOptions}, everything else configures the
+ * application, e.g. {@code --load.scenario=hot-accounts --acme.transfer.mode=conditional-update}. A worker waits for
+ * each response before sending the next request, so once the service saturates the request rate drops instead of the
+ * latency growing; compare runs at the same concurrency.
+ */
+public class LoadGenerator {
+
+    /**
+     * Passed as arguments, as application.yml would win over default properties, unless given explicitly.
+     */
+    private static final Map<String, String> DEFAULT_ARGUMENTS = Map.of(
+        "server.port", "0",
+        "spring.datasource.url",
+        "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.jpa.show-sql", "false",
+        "spring.h2.console.enabled", "false",
+        "acme.reference-code.node-id", "0",
+        "logging.level.root", "WARN");
+
+    private static final String TRANSFER_BODY = """
+        {"operatingAccountVersion":%d,"recipientAccountId":"%s","currencyCode":"HKD","amount":0.01}""";
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private final LoadOptions options;
+    private final URI baseUri;
+    private final JdbcTemplate jdbcTemplate;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String[] accountIds;
+    private final UUID[] userIds;
+    private final AtomicIntegerArray accountVersions;
+    private final ZipfDistribution zipfDistribution;
+    private final LoadOperation[] operations;
+    private final int[] cumulativeWeights;
+    private final AtomicLong versionRefreshes = new AtomicLong();
+
+    LoadGenerator(LoadOptions options, URI baseUri, JdbcTemplate jdbcTemplate) {
+        if (options.accounts() < 2 || options.users() < 1 || options.users() > options.accounts()) {
+            throw new IllegalArgumentException("load.accounts must be at least 2 and at least load.users");
+        }
+        this.options = options;
+        this.baseUri = baseUri;
+        this.jdbcTemplate = jdbcTemplate;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        accountIds = new String[options.accounts()];
+        for (int index = 0; index < accountIds.length; index++) {
+            accountIds[index] = "LOAD-%06d".formatted(index);
+        }
+        userIds = new UUID[options.users()];
+        for (int index = 0; index < userIds.length; index++) {
+            userIds[index] = UUID.randomUUID();
+        }
+        accountVersions = new AtomicIntegerArray(accountIds.length);
+        zipfDistribution = new ZipfDistribution(accountIds.length, options.zipfExponent());
+
+        final Map<LoadOperation, Integer> mix = new EnumMap<>(options.effectiveMix());
+        mix.values().removeIf(weight -> weight <= 0);
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no operation with a positive weight");
+        }
+        operations = mix.keySet().toArray(LoadOperation[]::new);
+        cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int index = 0; index < operations.length; index++) {
+            sum += mix.get(operations[index]);
+            cumulativeWeights[index] = sum;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AcmeAccountManagerApplication.class)
+            .run(withDefaults(args))) {
+            final LoadOptions options = Binder.get(context.getEnvironment()).bindOrCreate("load", LoadOptions.class);
+            final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            new LoadGenerator(options, URI.create("http://localhost:" + port), context.getBean(JdbcTemplate.class))
+                .run();
+        }
+    }
+
+    private static String[] withDefaults(String[] args) {
+        final List<String> arguments = new ArrayList<>(List.of(args));
+        DEFAULT_ARGUMENTS.forEach((name, value) -> {
+            if (arguments.stream().noneMatch(argument -> argument.startsWith("--" + name + "="))) {
+                arguments.add("--" + name + "=" + value);
+            }
+        });
+        return arguments.toArray(String[]::new);
+    }
+
+    void run() throws InterruptedException, IOException {
+        seed();
+
+        final long startNanos = System.nanoTime();
+        final long recordFromNanos = startNanos + options.warmup().toNanos();
+        final long endNanos = recordFromNanos + options.duration().toNanos();
+        final List<Worker> workers = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int index = 0; index < options.concurrency(); index++) {
+            final Worker worker = new Worker(recordFromNanos, endNanos);
+            workers.add(worker);
+            final Thread thread = new Thread(worker, "load-worker-" + index);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final Map<LoadOperation, OperationResult> results = new EnumMap<>(LoadOperation.class);
+        for (Worker worker : workers) {
+            worker.results.forEach((operation, result) ->
+                results.computeIfAbsent(operation, ignored -> new OperationResult()).add(result));
+        }
+        report(results);
+    }
+
+    private void seed() {
+        final List<Object[]> accounts = new ArrayList<>();
+        for (int index = 0; index < accountIds.length; index++) {
+            accounts.add(new Object[]{accountIds[index], ownerOf(index)});
+            accountVersions.set(index, 1);
+        }
+        insert("""
+            INSERT INTO money_account (id, version, primary_owner_id, currency_code, balance_amount)
+            VALUES (?, 1, ?, 'HKD', 1000000000000.00)""", accounts);
+
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        final List<Object[]> transactionLogs = new ArrayList<>();
+        for (int user = 0; user < userIds.length; user++) {
+            for (int log = 0; log < options.transactionLogsPerUser(); log++) {
+                transactionLogs.add(new Object[]{UUID.randomUUID(), accountIds[user], userIds[user],
+                    "LOAD_" + user + "_" + log, accountIds[(user + 1) % accountIds.length], now.minusSeconds(log)});
+            }
+        }
+        insert("""
+            INSERT INTO transaction_log (id, operating_account_id, operation, operating_account_user_id,
+                reference_code, counterpart_account_id, currency_code, money_amount, create_date_time_utc)
+            VALUES (?, ?, 'DEDUCT', ?, ?, ?, 'HKD', 0.01, ?)""", transactionLogs);
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += SEED_BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + SEED_BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private UUID ownerOf(int accountIndex) {
+        return userIds[accountIndex % userIds.length];
+    }
+
+    private void report(Map<LoadOperation, OperationResult> results) throws IOException {
+        final double seconds = options.duration().toNanos() / 1e9;
+        final PrintStream out = System.out;
+        out.printf(Locale.ROOT, "%n%s: %d workers, %s measured after %s warmup, %d accounts, %d users%n",
+            options.mix() == null || options.mix().isEmpty() ? "scenario " + kebabCase(options.scenario()) : "mix",
+            options.concurrency(), options.duration(), options.warmup(), options.accounts(), options.users());
+        out.printf(Locale.ROOT, "%-22s %10s %10s %10s %9s %9s %9s %9s %9s %8s %8s%n",
+            "operation", "requests", "req/s", "ok/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "409 rate", "shed",
+            "errors");
+
+        final Path reportDirectory = Files.createDirectories(Path.of(options.reportDirectory()));
+        final OperationResult total = new OperationResult();
+        for (Map.Entry<LoadOperation, OperationResult> entry : results.entrySet()) {
+            final String name = kebabCase(entry.getKey());
+            printRow(out, name, entry.getValue(), seconds);
+            total.add(entry.getValue());
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(reportDirectory.resolve(name + ".hgrm")))) {
+                // values are recorded in microseconds and written in milliseconds
+                entry.getValue().latencies.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        printRow(out, "total", total, seconds);
+        out.printf(Locale.ROOT, "version refreshes after 409: %d, percentile distributions in %s%n",
+            versionRefreshes.get(), reportDirectory.toAbsolutePath());
+        for (Map.Entry<LoadOperation, OperationResult> entry : results.entrySet()) {
+            if (entry.getValue().firstError != null) {
+                out.printf("first error of %s: %s%n", kebabCase(entry.getKey()), entry.getValue().firstError);
+            }
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, OperationResult result, double seconds) {
+        final Histogram latencies = result.latencies;
+        final long requests = latencies.getTotalCount();
+        final long succeeded = requests - result.conflicts - result.shed - result.errors;
+        out.printf(Locale.ROOT, "%-22s %10d %10.1f %10.1f %9.2f %9.2f %9.2f %9.2f %8.2f%% %8d %8d%n",
+            name, requests, requests / seconds, succeeded / seconds,
+            latencies.getValueAtPercentile(50) / 1000.0,
+            latencies.getValueAtPercentile(99) / 1000.0,
+            latencies.getValueAtPercentile(99.9) / 1000.0,
+            latencies.getMaxValue() / 1000.0,
+            result.transfers == 0 ? 0.0 : 100.0 * result.conflicts / result.transfers,
+            result.shed,
+            result.errors);
+    }
+
+    private static String kebabCase(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Latencies and outcomes of one operation, kept per worker and merged after the run.
+     */
+    private static final class OperationResult {
+        // auto-resizing, in microseconds
+        final Histogram latencies = new Histogram(3);
+        long transfers;
+        long conflicts;
+        long shed;
+        long errors;
+        String firstError;
+
+        void add(OperationResult other) {
+            latencies.add(other.latencies);
+            transfers += other.transfers;
+            conflicts += other.conflicts;
+            shed += other.shed;
+            errors += other.errors;
+            if (firstError == null) {
+                firstError = other.firstError;
+            }
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private final long recordFromNanos;
+        private final long endNanos;
+        private final Map<LoadOperation, OperationResult> results = new EnumMap<>(LoadOperation.class);
+
+        Worker(long recordFromNanos, long endNanos) {
+            this.recordFromNanos = recordFromNanos;
+            this.endNanos = endNanos;
+        }
+
+        @Override
+        public void run() {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (long now = System.nanoTime(); now < endNanos; now = System.nanoTime()) {
+                final LoadOperation operation = nextOperation(random);
+                final OperationResult result = now >= recordFromNanos
+                    ? results.computeIfAbsent(operation, ignored -> new OperationResult())
+                    // warmup requests are sent the same way but not kept
+                    : new OperationResult();
+                try {
+                    execute(operation, random, result);
+                } catch (IOException exception) {
+                    result.errors++;
+                    if (result.firstError == null) {
+                        result.firstError = exception.toString();
+                    }
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private LoadOperation nextOperation(ThreadLocalRandom random) {
+            final int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int index = 0;
+            while (value >= cumulativeWeights[index]) {
+                index++;
+            }
+            return operations[index];
+        }
+
+        private void execute(LoadOperation operation, ThreadLocalRandom random, OperationResult result)
+            throws IOException, InterruptedException {
+            switch (operation) {
+                case UNIFORM_TRANSFER -> {
+                    final int from = random.nextInt(accountIds.length);
+                    final int to = random.nextInt(accountIds.length - 1);
+                    transfer(from, to >= from ? to + 1 : to, result);
+                }
+                case ZIPF_TRANSFER -> {
+                    final int from = zipfDistribution.sample(random);
+                    int to = zipfDistribution.sample(random);
+                    while (to == from) {
+                        to = zipfDistribution.sample(random);
+                    }
+                    transfer(from, to, result);
+                }
+                case ACCOUNT_POLL -> {
+                    final int account = random.nextInt(accountIds.length);
+                    send(request("/accounts/" + accountIds[account], ownerOf(account)).GET().build(), 200, false,
+                        result);
+                }
+                case TRANSACTION_LOG_READ -> send(
+                    request("/accounts/transaction-log?limit=" + options.transactionLogLimit(),
+                        userIds[random.nextInt(userIds.length)]).GET().build(),
+                    200, false, result);
+            }
+        }
+
+        private void transfer(int from, int to, OperationResult result) throws IOException, InterruptedException {
+            final int version = accountVersions.get(from);
+            final HttpRequest request = request("/accounts/" + accountIds[from] + "/transfer", ownerOf(from))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(TRANSFER_BODY.formatted(version, accountIds[to])))
+                .build();
+            result.transfers++;
+            final int status = send(request, 204, true, result);
+            if (status == 204) {
+                accountVersions.accumulateAndGet(from, version + 1, Math::max);
+            } else if (status == 409) {
+                result.conflicts++;
+                refreshVersion(from);
+            }
+        }
+
+        /**
+         * Reads the current version after a conflict, untimed, as a client would before retrying.
+         */
+        private void refreshVersion(int account) throws IOException, InterruptedException {
+            final HttpResponse<byte[]> response = httpClient.send(
+                request("/accounts/" + accountIds[account], ownerOf(account)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 200) {
+                final int version = objectMapper.readTree(response.body()).get("version").asInt();
+                accountVersions.accumulateAndGet(account, version, Math::max);
+                versionRefreshes.incrementAndGet();
+            }
+        }
+
+        private int send(HttpRequest request, int expectedStatus, boolean conflictExpected, OperationResult result)
+            throws IOException, InterruptedException {
+            final long startNanos = System.nanoTime();
+            final HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            result.latencies.recordValue((System.nanoTime() - startNanos) / 1000);
+            final int status = response.statusCode();
+            if (status == 429 || status == 503) {
+                result.shed++;
+                // waits as a client honouring Retry-After would, instead of resending at once
+                TimeUnit.SECONDS.sleep(response.headers().firstValueAsLong("Retry-After").orElse(1));
+                return status;
+            }
+            if (status != expectedStatus && !(status == 409 && conflictExpected)) {
+                result.errors++;
+                if (result.firstError == null) {
+                    result.firstError = status + " " + response.body();
+                }
+            }
+            return status;
+        }
+
+        private HttpRequest.Builder request(String path, UUID userId) {
+            return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("userId", userId.toString());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.acmebank.acmeaccountmanager.load;
+
+/**
+ * Requests a load worker can send, named in {@code load.mix} in kebab case, e.g. {@code load.mix.account-poll=90}.
+ */
+enum LoadOperation {
+
+    /**
+     * {@code POST /accounts/{id}/transfer} between two accounts drawn uniformly.
+     */
+    UNIFORM_TRANSFER,
+
+    /**
+     * {@code POST /accounts/{id}/transfer} between two accounts drawn from a Zipf distribution, so that a few low
+     * numbered accounts take most transfers and their versions conflict.
+     */
+    ZIPF_TRANSFER,
+
+    /**
+     * {@code GET /accounts/{id}} of an account drawn uniformly, as a client polling its balance.
+     */
+    ACCOUNT_POLL,
+
+    /**
+     * {@code GET /accounts/transaction-log} of a user drawn uniformly, one page of {@code load.transaction-log-limit}.
+     */
+    TRANSACTION_LOG_READ;
+
+    boolean isTransfer() {
+        return this == UNIFORM_TRANSFER || this == ZIPF_TRANSFER;
+    }
+}
@@ -0,0 +1,54 @@
+package com.acmebank.acmeaccountmanager.load;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Options of a load run, bound from the {@code load.*} arguments passed along with the application's own.
+ *
+ * @param scenario               preset request mix, used when {@code mix} is empty
+ * @param mix                    relative weights of the operations, e.g. {@code load.mix.uniform-transfer=70}
+ * @param concurrency            number of workers, each with one request in flight
+ * @param warmup                 time the workers run before latencies are recorded
+ * @param duration               time latencies are recorded for
+ * @param accounts               number of accounts seeded for the run
+ * @param users                  number of users owning the seeded accounts round robin
+ * @param zipfExponent           skew of the Zipf distribution, 0 is uniform
+ * @param transactionLogsPerUser transaction logs seeded per user for the transaction log reads
+ * @param transactionLogLimit    page size of the transaction log reads
+ * @param reportDirectory        where the percentile distribution of each operation is written as {@code .hgrm}
+ */
+record LoadOptions(
+    @DefaultValue("uniform") Scenario scenario,
+    Map<LoadOperation, Integer> mix,
+    @DefaultValue("16") int concurrency,
+    @DefaultValue("10s") Duration warmup,
+    @DefaultValue("30s") Duration duration,
+    @DefaultValue("1000") int accounts,
+    @DefaultValue("100") int users,
+    @DefaultValue("1.0") double zipfExponent,
+    @DefaultValue("2000") int transactionLogsPerUser,
+    @DefaultValue("1000") int transactionLogLimit,
+    @DefaultValue("target/load") String reportDirectory
+) {
+
+    Map<LoadOperation, Integer> effectiveMix() {
+        return mix == null || mix.isEmpty() ? scenario.mix : mix;
+    }
+
+    enum Scenario {
+        UNIFORM(Map.of(LoadOperation.UNIFORM_TRANSFER, 100)),
+        HOT_ACCOUNTS(Map.of(LoadOperation.ZIPF_TRANSFER, 100)),
+        READ_HEAVY(Map.of(LoadOperation.ACCOUNT_POLL, 90, LoadOperation.UNIFORM_TRANSFER, 10)),
+        STATEMENTS(Map.of(LoadOperation.TRANSACTION_LOG_READ, 50, LoadOperation.UNIFORM_TRANSFER, 50));
+
+        final Map<LoadOperation, Integer> mix;
+
+        Scenario(Map<LoadOperation, Integer> mix) {
+            this.mix = new EnumMap<>(mix);
+        }
+    }
+}
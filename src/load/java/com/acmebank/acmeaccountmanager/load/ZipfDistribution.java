@@ -0,0 +1,31 @@
+package com.acmebank.acmeaccountmanager.load;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipf distribution over the indexes {@code 0..size-1}, index {@code k} drawn with a probability proportional to
+ * {@code 1 / (k + 1)^exponent}. Sampled by a binary search of the precomputed cumulative probabilities.
+ */
+final class ZipfDistribution {
+
+    private final double[] cumulativeProbabilities;
+
+    ZipfDistribution(int size, double exponent) {
+        cumulativeProbabilities = new double[size];
+        double sum = 0;
+        for (int index = 0; index < size; index++) {
+            sum += 1 / Math.pow(index + 1, exponent);
+            cumulativeProbabilities[index] = sum;
+        }
+        for (int index = 0; index < size; index++) {
+            cumulativeProbabilities[index] /= sum;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        final int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+        // the insertion point when the value is not found, capped against rounding of the last probability
+        return Math.min(index >= 0 ? index : -index - 1, cumulativeProbabilities.length - 1);
+    }
+}
@@ -0,0 +1,43 @@
+package com.acmebank.acmeaccountmanager;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * Creates the beans of the OpenAPI documentation and the Swagger UI on their first use rather than at startup under
+ * the {@code fast-start} profile. Unlike {@code spring.main.lazy-initialization}, the beans serving the API stay
+ * eager so that the first requests after startup do not pay for them.
+ */
+@Configuration
+@Profile("fast-start")
+class FastStartConfiguration {
+
+    private static final String DEFERRED_PACKAGE = "org.springdoc.";
+
+    @Bean
+    static BeanFactoryPostProcessor deferApiDocumentationBeans() {
+        return beanFactory -> {
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                final BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                if (declaringClassName(definition).startsWith(DEFERRED_PACKAGE)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static String declaringClassName(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotatedDefinition) {
+            final MethodMetadata factoryMethod = annotatedDefinition.getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                return factoryMethod.getDeclaringClassName();
+            }
+        }
+        return definition.getBeanClassName() != null ? definition.getBeanClassName() : "";
+    }
+}
@@ -0,0 +1,31 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Serves {@code application/cbor} and {@code application/x-jackson-smile} to clients that ask for them in
+ * {@code Accept}, JSON stays the default. The mappers come from the builder of the JSON mapper, so that the binary
+ * payloads have the same schema, e.g. ISO-8601 instants rather than timestamps.
+ * <p>
+ * The converters replace those Spring MVC registers by itself when the formats are on the classpath, which are built
+ * without the Spring Boot Jackson settings.
+ */
+@Configuration(proxyBeanMethods = false)
+class BinaryFormatConfiguration {
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -1,65 +1,150 @@
 package com.acmebank.acmeaccountmanager.rest;
 
 import com.acmebank.acmeaccountmanager.rest.mapper.AccountManagementMapper;
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
 import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.AsyncTransfers;
 import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.SubmittedTransfer;
 import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLogPage;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RequestMapping("/accounts")
 @RestController
 public class MoneyAccountController {
 
+    static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
+
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    // clients and proxies keep the account, but ask whether it changed before every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final AccountManagement accountManagement;
+    private final AsyncTransfers asyncTransfers;
     private final AccountManagementMapper mapper;
+    private final ObjectMapper objectMapper;
 
 
     public MoneyAccountController(
         AccountManagement accountManagement,
-        AccountManagementMapper mapper
+        AsyncTransfers asyncTransfers,
+        AccountManagementMapper mapper,
+        ObjectMapper objectMapper
     ) {
         this.accountManagement = accountManagement;
+        this.asyncTransfers = asyncTransfers;
         this.mapper = mapper;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{account-id}")
     @Operation(summary = "Get Money Account.",
-        description = "To simplify stuff, only account owner user is permitted to retrieve the account.")
-    public MoneyAccountVo getMoneyAccount(
+        description = "To simplify stuff, only account owner user is permitted to retrieve the account. Answers "
+            + "304 Not Modified when If-None-Match carries the ETag of the current account.")
+    public ResponseEntity<MoneyAccountVo> getMoneyAccount(
         @RequestHeader
         @Parameter(schema = @Schema(example = "2a31b993-4895-4484-9521-066f741c89b9"))
         UUID userId,
-        @PathVariable("account-id") String accountId
+        @PathVariable("account-id") String accountId,
+        WebRequest webRequest
     ) {
-        MoneyAccount account = accountManagement.getAccount(AccountManagement.GetMoneyAccountRequest.builder()
+        final AccountManagement.GetMoneyAccountRequest request = AccountManagement.GetMoneyAccountRequest.builder()
             .userId(userId)
             .id(accountId)
-            .build());
-        return mapper.serviceToRest(account);
+            .build();
+        // looked up before the account, so that the ETag is never newer than the body it is sent with
+        final String eTag = eTag(accountManagement.getAccountRevision(request));
+        if (webRequest.checkNotModified(eTag)) {
+            return revalidated(ResponseEntity.status(HttpStatus.NOT_MODIFIED), eTag).build();
+        }
+        MoneyAccount account = accountManagement.getAccount(request);
+        return revalidated(ResponseEntity.ok(), eTag)
+            .body(mapper.serviceToRest(account));
     }
 
     @GetMapping
-    @Operation(summary = "Get All Money Accounts.")
-    public List<MoneyAccountVo> getAllMoneyAccounts(
+    @Operation(summary = "Get All Money Accounts.",
+        description = "Answers 304 Not Modified when If-None-Match carries the ETag of the current accounts.")
+    public ResponseEntity<List<MoneyAccountVo>> getAllMoneyAccounts(
         @RequestHeader
         @Parameter(schema = @Schema(example = "2a31b993-4895-4484-9521-066f741c89b9"))
-        UUID userId
+        UUID userId,
+        WebRequest webRequest
     ) {
+        final String eTag = eTag(accountManagement.getAllAccountsRevision(userId));
+        if (webRequest.checkNotModified(eTag)) {
+            return revalidated(ResponseEntity.status(HttpStatus.NOT_MODIFIED), eTag).build();
+        }
         List<MoneyAccount> accounts = accountManagement.getAllAccounts(userId);
-        return accounts.stream().map(mapper::serviceToRest)
+        return revalidated(ResponseEntity.ok(), eTag)
+            .body(accounts.stream().map(mapper::serviceToRest)
+                .toList());
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get Money Accounts by Id.",
+        description = "Reads up to " + AccountManagement.MAX_ACCOUNT_LOOKUP_SIZE + " accounts at once, e.g. "
+            + "ids=a,b,c. Answers one lookup per distinct id in request order, accounts that do not exist or are "
+            + "owned by another user are reported in their status.")
+    public List<AccountLookupVo> getMoneyAccountsById(
+        @RequestHeader
+        @Parameter(schema = @Schema(example = "2a31b993-4895-4484-9521-066f741c89b9"))
+        UUID userId,
+        @RequestParam List<String> ids
+    ) {
+        return accountManagement.getAccounts(new LinkedHashSet<>(ids), userId).stream()
+            .map(mapper::serviceToRest)
             .toList();
     }
 
+    /**
+     * The ETag is the same for JSON, CBOR and Smile: {@code Vary: Accept} keeps a cache from revalidating one format
+     * and serving it to a request for another.
+     */
+    private static ResponseEntity.BodyBuilder revalidated(ResponseEntity.BodyBuilder response, String eTag) {
+        return response
+            .eTag(eTag)
+            .cacheControl(REVALIDATE)
+            .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * Weak, as the same revision is served in every representation the client may negotiate.
+     */
+    private static String eTag(String revision) {
+        return "W/\"" + revision + "\"";
+    }
+
     @PostMapping("/{account-id}/transfer")
     @Operation(summary = "Transfer Money to Another Account.")
     public ResponseEntity<Void> transferMoneyToAnotherAccount(
@@ -85,14 +170,165 @@ public class MoneyAccountController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/{account-id}/transfer:async")
+    @Operation(summary = "Submit Transfer Money to Another Account.",
+        description = "Queues the transfer and answers right away. The outcome is fetched from the Location, "
+            + "/transfers/{transfer-id}, for a limited time.")
+    public ResponseEntity<TransferController.SubmittedTransferVo> submitTransferMoneyToAnotherAccount(
+        @RequestHeader
+        @Parameter(schema = @Schema(example = "2a31b993-4895-4484-9521-066f741c89b9"))
+        UUID userId,
+        @PathVariable("account-id") String operatingAccountId,
+        @RequestBody TransferMoneyToAnotherAccountRequestVo requestVo
+    ) {
+        SubmittedTransfer submittedTransfer = asyncTransfers.submit(
+            AccountManagement.TransferMoneyToAccountRequest.builder()
+                .operatingAccountId(operatingAccountId)
+                .operatingAccountVersion(requestVo.operatingAccountVersion())
+                .recipientAccountId(requestVo.recipientAccountId())
+                .currencyCode(requestVo.currencyCode())
+                .toBeTransferAmount(requestVo.amount())
+                .userId(userId)
+                .build());
+        return ResponseEntity.accepted()
+            .location(URI.create("/transfers/" + submittedTransfer.id()))
+            .body(mapper.serviceToRest(submittedTransfer));
+    }
+
+    @PostMapping("/{account-id}/transfers:batch")
+    @Operation(summary = "Transfer Money to Many Accounts.",
+        description = "All transfers run in one transaction and are checked against the same operating account "
+            + "version. ALL_OR_NOTHING rejects the whole batch on the first failure, PER_ITEM commits the "
+            + "successful transfers and reports the failures in their outcome.")
+    public List<TransferOutcomeVo> transferMoneyToAnotherAccounts(
+        @RequestHeader
+        @Parameter(schema = @Schema(example = "2a31b993-4895-4484-9521-066f741c89b9"))
+        UUID userId,
+        @PathVariable("account-id") String operatingAccountId,
+        @RequestBody TransferMoneyToAnotherAccountsRequestVo requestVo
+    ) {
+        final Integer operatingAccountVersion = requestVo.operatingAccountVersion();
+        final List<AccountManagement.TransferMoneyToAccountRequest> requests = requestVo.transfers() == null
+            ? List.of()
+            : requestVo.transfers().stream()
+            .map(transfer -> AccountManagement.TransferMoneyToAccountRequest.builder()
+                .operatingAccountId(operatingAccountId)
+                .operatingAccountVersion(operatingAccountVersion)
+                .recipientAccountId(transfer.recipientAccountId())
+                .currencyCode(transfer.currencyCode())
+                .toBeTransferAmount(transfer.amount())
+                .userId(userId)
+                .build())
+            .toList();
+
+        return accountManagement.transferMoneyToAccounts(requests, requestVo.mode()).stream()
+            .map(mapper::serviceToRest)
+            .toList();
+    }
+
     @GetMapping("/transaction-log")
-    @Operation(summary = "Get All Transaction Log by User.")
-    public List<TransactionLog> getAllTransactionLogByUser(
+    @Operation(summary = "Get Transaction Log by User.",
+        description = "Newest first, one page at a time. When there are more logs, the response carries an "
+            + HEADER_NEXT_CURSOR + " header whose value is passed as the cursor of the next request.")
+    public ResponseEntity<List<TransactionLog>> getTransactionLogByUser(
+        @RequestHeader
+        @Parameter(schema = @Schema(example = "2a31b993-4895-4484-9521-066f741c89b9"))
+        UUID userId,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "100")
+        @Parameter(schema = @Schema(maximum = "" + AccountManagement.MAX_TRANSACTION_LOG_PAGE_SIZE))
+        Integer limit
+    ) {
+        TransactionLogPage page = accountManagement.getTransactionLogPage(
+            AccountManagement.GetTransactionLogPageRequest.builder()
+                .userId(userId)
+                .cursor(cursor)
+                .limit(limit)
+                .build());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(HEADER_NEXT_CURSOR, page.nextCursor());
+        }
+        return response.body(page.transactionLogs());
+    }
+
+    @GetMapping("/transaction-log/export")
+    @Operation(summary = "Export Transaction Log by User.",
+        description = "Oldest first, streamed from a database cursor as one line per log. Compressed with gzip "
+            + "when the request accepts it. from is inclusive, to is exclusive, both are ISO-8601 instants.")
+    public ResponseEntity<StreamingResponseBody> exportTransactionLogByUser(
         @RequestHeader
         @Parameter(schema = @Schema(example = "2a31b993-4895-4484-9521-066f741c89b9"))
-        UUID userId
+        UUID userId,
+        @RequestParam(defaultValue = "ndjson") TransactionLogExportFormat format,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
-        return accountManagement.getAllTransactionLog(userId);
+        final AccountManagement.ExportTransactionLogRequest request =
+            AccountManagement.ExportTransactionLogRequest.builder()
+                .userId(userId)
+                .from(from)
+                .to(to)
+                .build();
+        final boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE) : outputStream;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8),
+                EXPORT_BUFFER_SIZE);
+            accountManagement.exportTransactionLog(request, format.open(writer, objectMapper));
+            writer.flush();
+            if (target instanceof GZIPOutputStream gzipOutputStream) {
+                gzipOutputStream.finish();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(format.mediaType)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("transaction-log." + format.fileExtension)
+                .build().toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Follows RFC 9110: a coding with {@code q=0} is not acceptable, and {@code *} stands for the codings not listed.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            final String[] parts = element.split(";");
+            final String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                final String parameter = parts[i].trim();
+                if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException exception) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
     }
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -110,6 +346,51 @@ public class MoneyAccountController {
     ) {
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record AccountLookupVo(
+        @JsonProperty(required = true)
+        String accountId,
+        @JsonProperty(required = true)
+        AccountLookup.Status status,
+        MoneyAccountVo account,
+        String error
+    ) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record TransferMoneyToAnotherAccountsRequestVo(
+        @JsonProperty(required = true)
+        Integer operatingAccountVersion,
+        @JsonProperty(required = true)
+        @Schema(example = "ALL_OR_NOTHING")
+        AccountManagement.BatchTransferMode mode,
+        @JsonProperty(required = true)
+        List<TransferVo> transfers
+    ) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record TransferVo(
+        @JsonProperty(required = true)
+        String recipientAccountId,
+        @JsonProperty(required = true)
+        String currencyCode,
+        @JsonProperty(required = true)
+        BigDecimal amount
+    ) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record TransferOutcomeVo(
+        @JsonProperty(required = true)
+        String recipientAccountId,
+        @JsonProperty(required = true)
+        TransferOutcome.Status status,
+        String referenceCode,
+        String error
+    ) {
+    }
+
     @JsonInclude(JsonInclude.Include.NON_NULL)
     public record TransferMoneyToAnotherAccountRequestVo(
         @JsonProperty(required = true)
@@ -0,0 +1,122 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Line oriented formats of the transaction log export. The writers append one line per log and never flush, the
+ * buffers around the response decide when bytes go out.
+ */
+enum TransactionLogExportFormat {
+
+    NDJSON(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8), "ndjson") {
+        @Override
+        RowWriter open(Writer writer, ObjectMapper objectMapper) throws IOException {
+            final ObjectWriter objectWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            final JsonGenerator generator = objectMapper.createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+            return transactionLog -> {
+                objectWriter.writeValue(generator, transactionLog);
+                generator.writeRaw('\n');
+                // hands the serialized line to the writer, which buffers it
+                generator.flush();
+            };
+        }
+    },
+
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv") {
+        @Override
+        RowWriter open(Writer writer, ObjectMapper objectMapper) throws IOException {
+            writer.write("id,operatingAccountId,operation,operatingAccountUserId,referenceCode,counterpartAccountId,"
+                + "currencyCode,moneyAmount,createDateTimeUtc\n");
+            return transactionLog -> {
+                writer.write(String.valueOf(transactionLog.id()));
+                writer.write(',');
+                writeField(writer, transactionLog.operatingAccountId());
+                writer.write(',');
+                writeField(writer, transactionLog.operation());
+                writer.write(',');
+                writer.write(String.valueOf(transactionLog.operatingAccountUserId()));
+                writer.write(',');
+                writeField(writer, transactionLog.referenceCode());
+                writer.write(',');
+                writeField(writer, transactionLog.counterpartAccountId());
+                writer.write(',');
+                writeField(writer, transactionLog.currencyCode());
+                writer.write(',');
+                writer.write(transactionLog.moneyAmount().toPlainString());
+                writer.write(',');
+                writer.write(String.valueOf(transactionLog.createDateTimeUtc()));
+                writer.write('\n');
+            };
+        }
+
+        private static void writeField(Writer writer, String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    };
+
+    final MediaType mediaType;
+    final String fileExtension;
+
+    TransactionLogExportFormat(MediaType mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Writes whatever comes before the first row and returns the writer of the rows.
+     */
+    abstract RowWriter open(Writer writer, ObjectMapper objectMapper) throws IOException;
+
+    /**
+     * Lets the request parameter be written in lower case, as in {@code format=csv}.
+     */
+    @Component
+    static class CaseInsensitiveConverter implements Converter<String, TransactionLogExportFormat> {
+        @Override
+        public TransactionLogExportFormat convert(String source) {
+            return valueOf(source.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    @FunctionalInterface
+    interface RowWriter extends Consumer<TransactionLog> {
+
+        void write(TransactionLog transactionLog) throws IOException;
+
+        @Override
+        default void accept(TransactionLog transactionLog) {
+            try {
+                write(transactionLog);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
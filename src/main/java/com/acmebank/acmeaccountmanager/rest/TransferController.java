@@ -0,0 +1,65 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.acmebank.acmeaccountmanager.rest.mapper.AccountManagementMapper;
+import com.acmebank.acmeaccountmanager.service.api.AsyncTransfers;
+import com.acmebank.acmeaccountmanager.service.api.SubmittedTransfer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@RequestMapping("/transfers")
+@RestController
+public class TransferController {
+
+    private final AsyncTransfers asyncTransfers;
+    private final AccountManagementMapper mapper;
+
+    public TransferController(AsyncTransfers asyncTransfers, AccountManagementMapper mapper) {
+        this.asyncTransfers = asyncTransfers;
+        this.mapper = mapper;
+    }
+
+    @GetMapping("/{transfer-id}")
+    @Operation(summary = "Get Submitted Transfer.",
+        description = "State of a transfer submitted to /accounts/{account-id}/transfer:async. With wait, a pending "
+            + "transfer is only answered once it is done or the wait is over, without holding a server thread.")
+    public CompletableFuture<SubmittedTransferVo> getSubmittedTransfer(
+        @RequestHeader
+        @Parameter(schema = @Schema(example = "2a31b993-4895-4484-9521-066f741c89b9"))
+        UUID userId,
+        @PathVariable("transfer-id") UUID transferId,
+        @RequestParam(defaultValue = "PT0S")
+        @Parameter(schema = @Schema(example = "PT10S"))
+        Duration wait
+    ) {
+        return asyncTransfers.getTransfer(transferId, userId, wait)
+            .thenApply(mapper::serviceToRest);
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record SubmittedTransferVo(
+        @JsonProperty(required = true)
+        UUID id,
+        @JsonProperty(required = true)
+        String operatingAccountId,
+        @JsonProperty(required = true)
+        String recipientAccountId,
+        @JsonProperty(required = true)
+        SubmittedTransfer.Status status,
+        String referenceCode,
+        String error
+    ) {
+    }
+}
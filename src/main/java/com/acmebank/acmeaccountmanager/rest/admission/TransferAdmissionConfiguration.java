@@ -0,0 +1,23 @@
+package com.acmebank.acmeaccountmanager.rest.admission;
+
+import com.acmebank.acmeaccountmanager.service.api.TransferAdmission;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Installs the filter rejecting transfers over the concurrency limit before they are read. Like the limiter, only in
+ * front of the database engine.
+ */
+@Configuration
+@ConditionalOnExpression("${acme.transfer.admission.enabled:false} and '${acme.account.engine:jpa}' == 'jpa'")
+class TransferAdmissionConfiguration {
+
+    @Bean
+    TransferAdmissionFilter transferAdmissionFilter(TransferAdmission transferAdmission, ObjectMapper objectMapper)
+        throws JsonProcessingException {
+        return new TransferAdmissionFilter(transferAdmission, objectMapper);
+    }
+}
@@ -0,0 +1,72 @@
+package com.acmebank.acmeaccountmanager.rest.admission;
+
+import com.acmebank.acmeaccountmanager.rest.exception.ErrorResponse;
+import com.acmebank.acmeaccountmanager.rest.exception.GlobalExceptionHandler;
+import com.acmebank.acmeaccountmanager.service.api.TransferAdmission;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * Answers single and batch transfers with {@code 503 Service Unavailable} while the concurrency limit is reached,
+ * before their body is parsed and validated: under overload most requests are rejected, and a rejection taking as
+ * much CPU as a transfer leaves none for the admitted ones. Async submissions only queue, their transfers are admitted
+ * when the workers execute them.
+ * <p>
+ * Runs right after the request observation, so that rejected requests still show in {@code http.server.requests}.
+ */
+class TransferAdmissionFilter extends OncePerRequestFilter implements Ordered {
+
+    private static final Pattern TRANSFER_PATH = Pattern.compile("/accounts/[^/]+/(transfer|transfers:batch)");
+
+    private final TransferAdmission transferAdmission;
+    private final byte[] overloadedBody;
+
+    TransferAdmissionFilter(TransferAdmission transferAdmission, ObjectMapper objectMapper)
+        throws JsonProcessingException {
+        this.transferAdmission = transferAdmission;
+        // same body as the exception handler answers a transfer rejected later with
+        this.overloadedBody =
+            objectMapper.writeValueAsBytes(new ErrorResponse("The service is overloaded, retry later."));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+            || !TRANSFER_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length())).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        final Duration retryAfter = transferAdmission.shed();
+        if (retryAfter.isZero()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, GlobalExceptionHandler.retryAfterSeconds(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(overloadedBody.length);
+        response.getOutputStream().write(overloadedBody);
+    }
+
+    @Override
+    public int getOrder() {
+        // ServerHttpObservationFilter is at HIGHEST_PRECEDENCE + 1
+        return Ordered.HIGHEST_PRECEDENCE + 2;
+    }
+}
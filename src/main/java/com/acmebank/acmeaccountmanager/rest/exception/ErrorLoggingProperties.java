@@ -0,0 +1,16 @@
+package com.acmebank.acmeaccountmanager.rest.exception;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param logInterval minimum time between two log lines of the same exception type; the occurrences in between are
+ *                    counted and reported with the next line
+ */
+@ConfigurationProperties(prefix = "acme.errors")
+record ErrorLoggingProperties(
+    @DefaultValue("10s") Duration logInterval
+) {
+}
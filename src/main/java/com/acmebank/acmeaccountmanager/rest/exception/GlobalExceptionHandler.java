@@ -1,62 +1,137 @@
 package com.acmebank.acmeaccountmanager.rest.exception;
 
 import com.acmebank.acmeaccountmanager.service.exception.InsufficientBalanceErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.InvalidCursorErrorException;
 import com.acmebank.acmeaccountmanager.service.exception.NotAuthorizedErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.TransferOverloadedErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.TransferQueueFullErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.TransferRateLimitedErrorException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import javax.money.MonetaryException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @RestControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+    private final SampledExceptionLogger sampledLog;
+
+    GlobalExceptionHandler(MeterRegistry meterRegistry, ErrorLoggingProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.sampledLog = new SampledExceptionLogger(log, properties.logInterval(), System::nanoTime);
+    }
+
+    private <T> ResponseEntity<T> respond(T body, HttpStatus status, Exception exception) {
+        return respond(body, status, new HttpHeaders(), exception);
+    }
+
+    private <T> ResponseEntity<T> respond(T body, HttpStatus status, HttpHeaders headers, Exception exception) {
+        Counter.builder("acme.api.errors")
+            .description("Requests answered by the exception handler")
+            .tag("status", String.valueOf(status.value()))
+            .tag("exception", exception.getClass().getSimpleName())
+            .register(meterRegistry)
+            .increment();
+        return new ResponseEntity<>(body, headers, status);
+    }
+
+    private static HttpHeaders retryAfter(Duration retryAfter) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, retryAfterSeconds(retryAfter));
+        return headers;
+    }
+
+    /**
+     * Value of {@code Retry-After}, in whole seconds, rounded up so that a client retrying on time is admitted.
+     */
+    public static String retryAfterSeconds(Duration retryAfter) {
+        final long nanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+        return Long.toString(Math.max(1, (retryAfter.toNanos() + nanosPerSecond - 1) / nanosPerSecond));
+    }
+
     // Client Side Error
 
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<ErrorResponse> generateEntityNotFoundExceptionResponse(
         EntityNotFoundException exception) {
-        log.info(exception.getMessage(), exception);
-        return new ResponseEntity<>(new ErrorResponse(exception.getMessage()),
-            HttpStatus.NOT_FOUND);
+        sampledLog.log(Level.INFO, exception);
+        return respond(new ErrorResponse(exception.getMessage()), HttpStatus.NOT_FOUND, exception);
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ErrorResponse> generateConstraintViolationExceptionResponse(
         ConstraintViolationException exception) {
-        log.info(exception.getMessage(), exception);
-        return new ResponseEntity<>(new ErrorResponse(exception.getMessage()),
-            HttpStatus.BAD_REQUEST);
+        sampledLog.log(Level.INFO, exception);
+        return respond(new ErrorResponse(exception.getMessage()), HttpStatus.BAD_REQUEST, exception);
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> generateMethodArgumentTypeMismatchExceptionResponse(
+        MethodArgumentTypeMismatchException exception) {
+        sampledLog.log(Level.INFO, exception);
+        return respond(new ErrorResponse("Invalid value of parameter " + exception.getName()),
+            HttpStatus.BAD_REQUEST, exception);
+    }
+
+    @ExceptionHandler(InvalidCursorErrorException.class)
+    public ResponseEntity<ErrorResponse> generateInvalidCursorErrorExceptionResponse(
+        InvalidCursorErrorException exception) {
+        sampledLog.log(Level.INFO, exception);
+        return respond(new ErrorResponse(exception.getMessage()), HttpStatus.BAD_REQUEST, exception);
     }
 
     @ExceptionHandler(MonetaryException.class)
     public ResponseEntity<ErrorResponse> generateMonetaryExceptionResponse(
         MonetaryException exception) {
-        log.info(exception.getMessage(), exception);
-        return new ResponseEntity<>(new ErrorResponse(exception.getMessage()),
-            HttpStatus.UNPROCESSABLE_ENTITY);
+        sampledLog.log(Level.INFO, exception);
+        return respond(new ErrorResponse(exception.getMessage()), HttpStatus.UNPROCESSABLE_ENTITY, exception);
     }
 
     @ExceptionHandler(InsufficientBalanceErrorException.class)
     public ResponseEntity<ErrorResponse> generateInsufficientBalanceErrorExceptionResponse(
         InsufficientBalanceErrorException exception) {
-        log.info(exception.getMessage(), exception);
-        return new ResponseEntity<>(new ErrorResponse(exception.getMessage()),
-            HttpStatus.UNPROCESSABLE_ENTITY);
+        sampledLog.log(Level.INFO, exception);
+        return respond(new ErrorResponse(exception.getMessage()), HttpStatus.UNPROCESSABLE_ENTITY, exception);
     }
 
     @ExceptionHandler(OptimisticLockException.class)
     public ResponseEntity<ErrorResponse> generateOptimisticLockExceptionResponse(
         OptimisticLockException exception) {
-        log.info(exception.getMessage(), exception);
-        return new ResponseEntity<>(new ErrorResponse("Concurrent operation conflict is detected."),
-            HttpStatus.CONFLICT);
+        sampledLog.log(Level.INFO, exception);
+        return respond(new ErrorResponse("Concurrent operation conflict is detected."),
+            HttpStatus.CONFLICT, exception);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> generateOptimisticLockingFailureExceptionResponse(
+        OptimisticLockingFailureException exception) {
+        sampledLog.log(Level.INFO, exception);
+        return respond(new ErrorResponse("Concurrent operation conflict is detected."),
+            HttpStatus.CONFLICT, exception);
+    }
+
+    @ExceptionHandler(TransferRateLimitedErrorException.class)
+    public ResponseEntity<ErrorResponse> generateTransferRateLimitedErrorExceptionResponse(
+        TransferRateLimitedErrorException exception) {
+        sampledLog.log(Level.INFO, exception);
+        return respond(new ErrorResponse("Too many transfers, retry later."), HttpStatus.TOO_MANY_REQUESTS,
+            retryAfter(exception.getRetryAfter()), exception);
     }
 
 
@@ -65,20 +140,37 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(NotAuthorizedErrorException.class)
     public ResponseEntity<ErrorResponse> generateNotAuthorizedErrorExceptionResponse(
         NotAuthorizedErrorException exception) {
-        log.warn("NotAuthorizedErrorException: " + exception.getMessage());
-        return new ResponseEntity<>(new ErrorResponse("You are not authorized!"), HttpStatus.FORBIDDEN);
+        sampledLog.log(Level.WARN, exception);
+        return respond(new ErrorResponse("You are not authorized!"), HttpStatus.FORBIDDEN, exception);
     }
 
 
     // Server Side Error
 
+    @ExceptionHandler(TransferQueueFullErrorException.class)
+    public ResponseEntity<ErrorResponse> generateTransferQueueFullErrorExceptionResponse(
+        TransferQueueFullErrorException exception) {
+        sampledLog.log(Level.WARN, exception);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return respond(new ErrorResponse(exception.getMessage()), HttpStatus.SERVICE_UNAVAILABLE, headers, exception);
+    }
+
+    @ExceptionHandler(TransferOverloadedErrorException.class)
+    public ResponseEntity<ErrorResponse> generateTransferOverloadedErrorExceptionResponse(
+        TransferOverloadedErrorException exception) {
+        sampledLog.log(Level.WARN, exception);
+        return respond(new ErrorResponse("The service is overloaded, retry later."), HttpStatus.SERVICE_UNAVAILABLE,
+            retryAfter(exception.getRetryAfter()), exception);
+    }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> generateExceptionResponse(
         Exception exception) {
+        // not sampled: unlike the rejections above, every one of these needs looking into
         log.error(exception.getMessage(), exception);
-        return new ResponseEntity<>(new ErrorResponse("Unclassified error happened!"),
-            HttpStatus.INTERNAL_SERVER_ERROR);
+        return respond(new ErrorResponse("Unclassified error happened!"),
+            HttpStatus.INTERNAL_SERVER_ERROR, exception);
     }
 
 }
@@ -0,0 +1,61 @@
+package com.acmebank.acmeaccountmanager.rest.exception;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Logs at most one line per exception type and interval. The other occurrences are only counted, and the next line
+ * of their type reports how many were left out. The exact counts per response status are in {@code acme.api.errors}.
+ */
+class SampledExceptionLogger {
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final LongSupplier nanoTime;
+    private final ConcurrentMap<Class<?>, Sample> samples = new ConcurrentHashMap<>();
+
+    SampledExceptionLogger(Logger logger, Duration interval, LongSupplier nanoTime) {
+        this.logger = logger;
+        this.intervalNanos = interval.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    void log(Level level, Exception exception) {
+        if (!logger.isEnabledForLevel(level)) {
+            return;
+        }
+        final long now = nanoTime.getAsLong();
+        final Sample sample = samples.computeIfAbsent(exception.getClass(), type -> new Sample(now - intervalNanos));
+        final long loggedAt = sample.loggedAt.get();
+        if (now - loggedAt < intervalNanos || !sample.loggedAt.compareAndSet(loggedAt, now)) {
+            sample.suppressed.increment();
+            return;
+        }
+        final long suppressed = sample.suppressed.sumThenReset();
+        final LoggingEventBuilder event = logger.atLevel(level);
+        if (suppressed == 0) {
+            event.log("{}: {}", exception.getClass().getSimpleName(), exception.getMessage());
+        } else {
+            event.log("{}: {} ({} more since the previous line)",
+                exception.getClass().getSimpleName(), exception.getMessage(), suppressed);
+        }
+    }
+
+    private static final class Sample {
+
+        private final AtomicLong loggedAt;
+        private final LongAdder suppressed = new LongAdder();
+
+        private Sample(long loggedAt) {
+            this.loggedAt = new AtomicLong(loggedAt);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.acmebank.acmeaccountmanager.rest.mapper;
 
 import com.acmebank.acmeaccountmanager.rest.MoneyAccountController;
+import com.acmebank.acmeaccountmanager.rest.TransferController;
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
 import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.SubmittedTransfer;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
@@ -12,4 +16,37 @@ public abstract class AccountManagementMapper {
     @Mapping(target = "currencyCode", source = "balance.currency.currencyCode")
     @Mapping(target = "balanceAmount", source = "balance.numberStripped")
     public abstract MoneyAccountController.MoneyAccountVo serviceToRest(MoneyAccount moneyAccount);
+
+    public MoneyAccountController.AccountLookupVo serviceToRest(AccountLookup accountLookup) {
+        String error = accountLookup.status() == AccountLookup.Status.NOT_AUTHORIZED
+            ? "You are not authorized!"
+            : accountLookup.error();
+        return new MoneyAccountController.AccountLookupVo(accountLookup.accountId(), accountLookup.status(),
+            accountLookup.account() == null ? null : serviceToRest(accountLookup.account()), error);
+    }
+
+    /**
+     * Rejections that {@code GlobalExceptionHandler} would not expose verbatim get the same generic message here.
+     */
+    public MoneyAccountController.TransferOutcomeVo serviceToRest(TransferOutcome transferOutcome) {
+        String error = switch (transferOutcome.status()) {
+            case NOT_AUTHORIZED -> "You are not authorized!";
+            case CONFLICT -> "Concurrent operation conflict is detected.";
+            default -> transferOutcome.error();
+        };
+        return new MoneyAccountController.TransferOutcomeVo(transferOutcome.recipientAccountId(),
+            transferOutcome.status(), transferOutcome.referenceCode(), error);
+    }
+
+    public TransferController.SubmittedTransferVo serviceToRest(SubmittedTransfer submittedTransfer) {
+        String error = switch (submittedTransfer.status()) {
+            case NOT_AUTHORIZED -> "You are not authorized!";
+            case CONFLICT -> "Concurrent operation conflict is detected.";
+            case FAILED -> "Unclassified error happened!";
+            default -> submittedTransfer.error();
+        };
+        return new TransferController.SubmittedTransferVo(submittedTransfer.id(),
+            submittedTransfer.operatingAccountId(), submittedTransfer.recipientAccountId(),
+            submittedTransfer.status(), submittedTransfer.referenceCode(), error);
+    }
 }
@@ -0,0 +1,73 @@
+package com.acmebank.acmeaccountmanager.rest.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statements, rows and JDBC time of the HTTP request being handled by the current thread. Statements executed by
+ * other threads, e.g. the group committer or the async transfer workers, are not attributed to any request.
+ */
+final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> executionsByStatement = new HashMap<>();
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+
+    private SqlStatistics() {
+    }
+
+    static SqlStatistics start() {
+        final SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the statistics of the current request, {@code null} outside of one
+     */
+    static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * A batch counts as one statement, it is one round trip.
+     */
+    void recordExecution(String statement, long rows, long jdbcNanos) {
+        statements++;
+        this.rows += rows;
+        this.jdbcNanos += jdbcNanos;
+        executionsByStatement.merge(statement, 1, Integer::sum);
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    int statements() {
+        return statements;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    long jdbcNanos() {
+        return jdbcNanos;
+    }
+
+    /**
+     * @return the statement executed most often, with its number of executions, {@code null} without statements
+     */
+    Map.Entry<String, Integer> mostRepeatedStatement() {
+        return executionsByStatement.entrySet().stream()
+            .max(Map.Entry.comparingByValue())
+            .orElse(null);
+    }
+}
@@ -0,0 +1,44 @@
+package com.acmebank.acmeaccountmanager.rest.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data source used by JPA and JDBC, the auto-configured pool or the read replica routing, in a proxy
+ * reporting to {@link SqlStatisticsListener}, and installs the filter that scopes the statistics to each request.
+ */
+@Configuration
+@ConditionalOnProperty(name = "acme.sql-statistics.enabled", matchIfMissing = true)
+class SqlStatisticsConfiguration {
+
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    @Bean
+    static BeanPostProcessor sqlStatisticsDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!DATA_SOURCE_BEAN_NAME.equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                final SqlStatisticsListener listener = new SqlStatisticsListener();
+                return ProxyDataSourceBuilder.create(DATA_SOURCE_BEAN_NAME, dataSource)
+                    .listener(listener)
+                    .methodListener(listener)
+                    .proxyResultSet()
+                    .build();
+            }
+        };
+    }
+
+    @Bean
+    SqlStatisticsFilter sqlStatisticsFilter(MeterRegistry meterRegistry, SqlStatisticsProperties properties) {
+        return new SqlStatisticsFilter(meterRegistry, properties);
+    }
+}
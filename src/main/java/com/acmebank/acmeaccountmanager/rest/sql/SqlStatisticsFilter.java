@@ -0,0 +1,146 @@
+package com.acmebank.acmeaccountmanager.rest.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the {@link SqlStatistics} of each request and records them per handler as {@code acme.http.sql.*}
+ * meters, logging the request when one statement is repeated as with an N+1 query.
+ */
+@Slf4j
+class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    static final String ROWS_HEADER = "X-Sql-Rows";
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final MeterRegistry meterRegistry;
+    private final SqlStatisticsProperties properties;
+
+    SqlStatisticsFilter(MeterRegistry meterRegistry, SqlStatisticsProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        final SqlStatistics statistics = SqlStatistics.start();
+        final HeaderWritingResponse headerWritingResponse =
+            properties.responseHeaders() ? new HeaderWritingResponse(response, statistics) : null;
+        try {
+            filterChain.doFilter(request, headerWritingResponse != null ? headerWritingResponse : response);
+        } finally {
+            SqlStatistics.stop();
+            if (headerWritingResponse != null) {
+                headerWritingResponse.writeHeaders();
+            }
+            record(request, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        final Tags tags = Tags.of("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : "UNKNOWN");
+        DistributionSummary.builder("acme.http.sql.statements")
+            .description("Statements executed per request, a batch counting as one")
+            .tags(tags)
+            .register(meterRegistry)
+            .record(statistics.statements());
+        DistributionSummary.builder("acme.http.sql.rows")
+            .description("Rows read or written per request")
+            .tags(tags)
+            .register(meterRegistry)
+            .record(statistics.rows());
+        Timer.builder("acme.http.sql.time")
+            .description("JDBC execution time per request, result set reads excluded")
+            .tags(tags)
+            .register(meterRegistry)
+            .record(statistics.jdbcNanos(), TimeUnit.NANOSECONDS);
+
+        final Map.Entry<String, Integer> repeated = statistics.mostRepeatedStatement();
+        if (repeated != null && repeated.getValue() >= properties.repeatedStatementThreshold()) {
+            log.warn("{} {} executed {} times, likely an N+1 query: {}", request.getMethod(), request.getRequestURI(),
+                repeated.getValue(), repeated.getKey());
+        }
+    }
+
+    /**
+     * Writes the headers right before the response is committed, which for a response with a body happens once the
+     * handler has returned but before the body is written.
+     */
+    private static final class HeaderWritingResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatistics statistics;
+        private boolean headersWritten;
+
+        private HeaderWritingResponse(HttpServletResponse response, SqlStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        void writeHeaders() {
+            if (headersWritten || isCommitted()) {
+                return;
+            }
+            headersWritten = true;
+            setHeader(STATEMENTS_HEADER, Integer.toString(statistics.statements()));
+            setHeader(ROWS_HEADER, Long.toString(statistics.rows()));
+            addHeader(SERVER_TIMING_HEADER,
+                String.format(Locale.ROOT, "sql;dur=%.3f", statistics.jdbcNanos() / 1_000_000.0));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            writeHeaders();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            writeHeaders();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.acmebank.acmeaccountmanager.rest.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Adds every statement executed through the proxied data source to the {@link SqlStatistics} of the current request.
+ * Rows are the update counts of writes and the rows read from the result sets of queries.
+ */
+class SqlStatisticsListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final String START_NANOS = SqlStatisticsListener.class.getName() + ".startNanos";
+
+    @Override
+    public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+        if (SqlStatistics.current() != null) {
+            // the elapsed time of the execution info is in milliseconds, too coarse for single statements
+            executionInfo.addCustomValue(START_NANOS, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+        final SqlStatistics statistics = SqlStatistics.current();
+        final Long startNanos = executionInfo.getCustomValue(START_NANOS, Long.class);
+        if (statistics == null || startNanos == null) {
+            return;
+        }
+        final String statement = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        statistics.recordExecution(statement, updateCount(executionInfo.getResult()), System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+            && Boolean.TRUE.equals(executionContext.getResult())
+            && "next".equals(executionContext.getMethod().getName())) {
+            final SqlStatistics statistics = SqlStatistics.current();
+            if (statistics != null) {
+                statistics.recordRow();
+            }
+        }
+    }
+
+    private static long updateCount(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof Long count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof int[] counts) {
+            long sum = 0;
+            for (int count : counts) {
+                // Statement.SUCCESS_NO_INFO is negative
+                sum += Math.max(count, 0);
+            }
+            return sum;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.acmebank.acmeaccountmanager.rest.sql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param enabled                    count the statements, rows and JDBC time of each HTTP request
+ * @param responseHeaders            answer the counts as {@code X-Sql-*} and {@code Server-Timing} headers, for
+ *                                   development only
+ * @param repeatedStatementThreshold executions of the same statement within one request from which it is logged as
+ *                                   a likely N+1 query
+ */
+@ConfigurationProperties(prefix = "acme.sql-statistics")
+record SqlStatisticsProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("false") boolean responseHeaders,
+    @DefaultValue("10") int repeatedStatementThreshold
+) {
+}
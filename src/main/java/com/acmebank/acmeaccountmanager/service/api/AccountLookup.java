@@ -0,0 +1,29 @@
+package com.acmebank.acmeaccountmanager.service.api;
+
+/**
+ * Result of one account of a multi-get.
+ *
+ * @param account the account, only set when it is found
+ * @param error   reason the account is not returned, only set when it is not found or not authorized
+ */
+public record AccountLookup(
+    String accountId,
+    Status status,
+    MoneyAccount account,
+    String error
+) {
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND,
+        NOT_AUTHORIZED
+    }
+
+    public static AccountLookup found(MoneyAccount account) {
+        return new AccountLookup(account.id(), Status.FOUND, account, null);
+    }
+
+    public static AccountLookup rejected(String accountId, Status status, String error) {
+        return new AccountLookup(accountId, status, null, error);
+    }
+}
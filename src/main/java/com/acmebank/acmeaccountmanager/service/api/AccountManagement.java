@@ -2,23 +2,87 @@ package com.acmebank.acmeaccountmanager.service.api;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface AccountManagement {
 
+    int MAX_TRANSACTION_LOG_PAGE_SIZE = 1000;
+
+    int MAX_BATCH_TRANSFER_SIZE = 1000;
+
+    int MAX_ACCOUNT_LOOKUP_SIZE = 100;
+
     MoneyAccount getAccount(@Valid GetMoneyAccountRequest request);
 
     List<MoneyAccount> getAllAccounts(@NotNull UUID userId);
 
+    /**
+     * Reads the accounts in one go. Accounts that do not exist or that the user may not read are reported in their
+     * lookup rather than thrown.
+     *
+     * @return one lookup per id, in the iteration order of {@code ids}
+     */
+    List<AccountLookup> getAccounts(
+        @NotEmpty @Size(max = MAX_ACCOUNT_LOOKUP_SIZE) Set<@NotNull String> ids,
+        @NotNull UUID userId);
+
+    /**
+     * Opaque revision of what {@link #getAccount} returns, which changes whenever the account does. Cheaper than
+     * reading the account, so that polling clients can be told nothing changed.
+     */
+    String getAccountRevision(@Valid GetMoneyAccountRequest request);
+
+    /**
+     * Opaque revision of what {@link #getAllAccounts} returns, see {@link #getAccountRevision}.
+     */
+    String getAllAccountsRevision(@NotNull UUID userId);
+
     void transferMoneyToAccount(@Valid TransferMoneyToAccountRequest request);
 
+    /**
+     * Runs all transfers in one transaction. Transfers debiting the same account are all checked against the
+     * version that account had before the batch, so they carry the same {@code operatingAccountVersion}.
+     *
+     * @return one outcome per request, in request order
+     */
+    List<TransferOutcome> transferMoneyToAccounts(
+        @NotEmpty @Size(max = MAX_BATCH_TRANSFER_SIZE) List<@Valid @NotNull TransferMoneyToAccountRequest> requests,
+        @NotNull BatchTransferMode mode);
+
     List<TransactionLog> getAllTransactionLog(@NotNull UUID userId);
 
+    TransactionLogPage getTransactionLogPage(@Valid GetTransactionLogPageRequest request);
+
+    /**
+     * Passes the user's transaction logs to the consumer oldest first, one at a time and without collecting them, so
+     * that the memory used does not depend on the number of logs. The consumer runs inside one read-only
+     * transaction and should not block for long.
+     */
+    void exportTransactionLog(@Valid ExportTransactionLogRequest request, @NotNull Consumer<TransactionLog> consumer);
+
+    enum BatchTransferMode {
+        /**
+         * The first rejected transfer rolls the whole batch back and is thrown as it would be for a single transfer.
+         */
+        ALL_OR_NOTHING,
+        /**
+         * Rejected transfers are reported in their outcome, the others are committed.
+         */
+        PER_ITEM
+    }
+
     @Builder
     record GetMoneyAccountRequest(
         @NotNull String id,
@@ -36,4 +100,27 @@ public interface AccountManagement {
         @NotNull UUID userId
     ) {
     }
+
+    /**
+     * @param cursor {@link TransactionLogPage#nextCursor()} of the previous page, {@code null} for the first page
+     */
+    @Builder
+    record GetTransactionLogPageRequest(
+        @NotNull UUID userId,
+        String cursor,
+        @NotNull @Min(1) @Max(MAX_TRANSACTION_LOG_PAGE_SIZE) Integer limit
+    ) {
+    }
+
+    /**
+     * @param from inclusive lower bound of {@link TransactionLog#createDateTimeUtc()}, {@code null} for no bound
+     * @param to   exclusive upper bound of {@link TransactionLog#createDateTimeUtc()}, {@code null} for no bound
+     */
+    @Builder
+    record ExportTransactionLogRequest(
+        @NotNull UUID userId,
+        Instant from,
+        Instant to
+    ) {
+    }
 }
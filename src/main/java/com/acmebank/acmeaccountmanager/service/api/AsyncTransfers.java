@@ -0,0 +1,31 @@
+package com.acmebank.acmeaccountmanager.service.api;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transfers executed in the background: submitting only queues a transfer, its outcome is looked up by its id until
+ * it expires. Queued transfers are kept in memory, a transfer still pending when the service stops is lost.
+ */
+public interface AsyncTransfers {
+
+    /**
+     * @throws com.acmebank.acmeaccountmanager.service.exception.TransferQueueFullErrorException when the queue of
+     *                                                                                         pending transfers is full
+     */
+    SubmittedTransfer submit(@Valid AccountManagement.TransferMoneyToAccountRequest request);
+
+    /**
+     * @param wait how long to wait for a pending transfer, capped by the configured maximum
+     * @return completes with the transfer as soon as it is no longer pending, or with its pending state after the
+     * wait
+     * @throws jakarta.persistence.EntityNotFoundException when the transfer does not exist, has expired or was
+     *                                                     submitted by another user
+     */
+    CompletableFuture<SubmittedTransfer> getTransfer(@NotNull UUID transferId, @NotNull UUID userId,
+                                                     @NotNull Duration wait);
+}
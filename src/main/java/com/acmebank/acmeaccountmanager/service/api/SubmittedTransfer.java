@@ -0,0 +1,36 @@
+package com.acmebank.acmeaccountmanager.service.api;
+
+import java.util.UUID;
+
+/**
+ * State of a transfer submitted with {@link AsyncTransfers#submit}.
+ *
+ * @param referenceCode transaction reference code, only set when the transfer is completed
+ * @param error         reason of the rejection or failure
+ */
+public record SubmittedTransfer(
+    UUID id,
+    String operatingAccountId,
+    String recipientAccountId,
+    Status status,
+    String referenceCode,
+    String error
+) {
+
+    public enum Status {
+        PENDING,
+        COMPLETED,
+        NOT_FOUND,
+        NOT_AUTHORIZED,
+        CONFLICT,
+        UNPROCESSABLE,
+        /**
+         * The transfer could not be executed for another reason, e.g. the database was unavailable.
+         */
+        FAILED
+    }
+
+    public boolean isPending() {
+        return status == Status.PENDING;
+    }
+}
@@ -0,0 +1,15 @@
+package com.acmebank.acmeaccountmanager.service.api;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * One page of transaction logs, newest first. {@code nextCursor} is {@code null} on the last page.
+ */
+@Builder
+public record TransactionLogPage(
+    List<TransactionLog> transactionLogs,
+    String nextCursor
+) {
+}
@@ -0,0 +1,15 @@
+package com.acmebank.acmeaccountmanager.service.api;
+
+import java.time.Duration;
+
+/**
+ * Early look at the concurrency limit of transfers, for callers that can turn a transfer away before reading it.
+ */
+public interface TransferAdmission {
+
+    /**
+     * @return zero when a transfer may go ahead, otherwise the delay after which its client should retry, the
+     * transfer then counting as rejected
+     */
+    Duration shed();
+}
@@ -0,0 +1,31 @@
+package com.acmebank.acmeaccountmanager.service.api;
+
+/**
+ * Result of one transfer of a batch.
+ *
+ * @param referenceCode transaction reference code, only set when the transfer is completed
+ * @param error         reason of the rejection, only set when the transfer is rejected
+ */
+public record TransferOutcome(
+    String recipientAccountId,
+    Status status,
+    String referenceCode,
+    String error
+) {
+
+    public enum Status {
+        COMPLETED,
+        NOT_FOUND,
+        NOT_AUTHORIZED,
+        CONFLICT,
+        UNPROCESSABLE
+    }
+
+    public static TransferOutcome completed(String recipientAccountId, String referenceCode) {
+        return new TransferOutcome(recipientAccountId, Status.COMPLETED, referenceCode, null);
+    }
+
+    public static TransferOutcome rejected(String recipientAccountId, Status status, String error) {
+        return new TransferOutcome(recipientAccountId, status, null, error);
+    }
+}
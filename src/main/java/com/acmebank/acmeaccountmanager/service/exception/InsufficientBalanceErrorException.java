@@ -1,7 +1,7 @@
 package com.acmebank.acmeaccountmanager.service.exception;
 
-public class InsufficientBalanceErrorException extends RuntimeException {
+public class InsufficientBalanceErrorException extends ServiceErrorException {
     public InsufficientBalanceErrorException(String accountId) {
-        super("Account[%s] does not have enough balance!".formatted(accountId));
+        super("Account[%s] does not have enough balance!", accountId);
     }
 }
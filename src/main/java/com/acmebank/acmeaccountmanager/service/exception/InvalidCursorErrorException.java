@@ -0,0 +1,7 @@
+package com.acmebank.acmeaccountmanager.service.exception;
+
+public class InvalidCursorErrorException extends ServiceErrorException {
+    public InvalidCursorErrorException(String cursor) {
+        super("Cursor[%s] is not valid!", cursor);
+    }
+}
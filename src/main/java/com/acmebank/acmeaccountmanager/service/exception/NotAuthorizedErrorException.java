@@ -1,7 +1,7 @@
 package com.acmebank.acmeaccountmanager.service.exception;
 
-public class NotAuthorizedErrorException extends RuntimeException {
-    public NotAuthorizedErrorException(String message) {
-        super(message);
+public class NotAuthorizedErrorException extends ServiceErrorException {
+    public NotAuthorizedErrorException(String messageFormat, Object... arguments) {
+        super(messageFormat, arguments);
     }
 }
@@ -0,0 +1,40 @@
+package com.acmebank.acmeaccountmanager.service.exception;
+
+/**
+ * Base of the exceptions the service throws for requests it rejects. These are expected in numbers under load, e.g.
+ * during a retry storm, so they format their message only when it is read and do not fill in a stack trace: the
+ * handler answers them with a client error and never logs the stack.
+ * <p>
+ * The stack traces are decided once per JVM, by the {@value #STACKLESS_PROPERTY} system property, so that every
+ * application context and every account engine in it creates them alike. It is named after the class rather than in
+ * the {@code acme.*} namespace because it is not an application property: setting it in the environment or in an
+ * application yml has no effect.
+ */
+public abstract class ServiceErrorException extends RuntimeException {
+
+    /**
+     * {@code false} to fill in the stack traces again while debugging.
+     */
+    public static final String STACKLESS_PROPERTY = "com.acmebank.acmeaccountmanager.stacklessExceptions";
+
+    private static final boolean STACK_TRACE_WRITABLE =
+        !Boolean.parseBoolean(System.getProperty(STACKLESS_PROPERTY, "true"));
+
+    private final String messageFormat;
+    private final Object[] arguments;
+    private String message;
+
+    protected ServiceErrorException(String messageFormat, Object... arguments) {
+        super(null, null, false, STACK_TRACE_WRITABLE);
+        this.messageFormat = messageFormat;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = arguments.length == 0 ? messageFormat : messageFormat.formatted(arguments);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,17 @@
+package com.acmebank.acmeaccountmanager.service.exception;
+
+import java.time.Duration;
+
+public class TransferOverloadedErrorException extends ServiceErrorException {
+
+    private final Duration retryAfter;
+
+    public TransferOverloadedErrorException(int limit, Duration retryAfter) {
+        super("The limit of %d concurrent transfers is reached!", limit);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,7 @@
+package com.acmebank.acmeaccountmanager.service.exception;
+
+public class TransferQueueFullErrorException extends ServiceErrorException {
+    public TransferQueueFullErrorException(int capacity) {
+        super("The queue of %d pending transfers is full!", capacity);
+    }
+}
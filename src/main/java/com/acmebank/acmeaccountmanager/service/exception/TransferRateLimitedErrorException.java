@@ -0,0 +1,18 @@
+package com.acmebank.acmeaccountmanager.service.exception;
+
+import java.time.Duration;
+import java.util.UUID;
+
+public class TransferRateLimitedErrorException extends ServiceErrorException {
+
+    private final Duration retryAfter;
+
+    public TransferRateLimitedErrorException(UUID userId, Duration retryAfter) {
+        super("User[%s] is submitting transfers too fast!", userId);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,19 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled     serve {@code getAccount} and {@code getAllAccounts} through {@link MoneyAccountCache}
+ * @param maximumSize entries kept per cache, the least recently used are evicted beyond it
+ * @param timeToLive  age after which an entry is reloaded even if no transfer invalidated it
+ */
+@ConfigurationProperties(prefix = "acme.account.cache")
+record AccountCacheProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("10000") long maximumSize,
+    @DefaultValue("30s") Duration timeToLive
+) {
+}
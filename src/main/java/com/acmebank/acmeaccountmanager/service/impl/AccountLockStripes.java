@@ -0,0 +1,62 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks that account ids are hashed onto. Locks are always taken in ascending stripe order, which
+ * keeps two callers from ever waiting on each other in a cycle, even when different account ids share a stripe.
+ */
+class AccountLockStripes {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    AccountLockStripes(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @return the acquired locks in acquisition order, or {@code null} when they could not all be acquired within
+     * the timeout, in which case none is held
+     */
+    List<ReentrantLock> tryLockAll(Collection<String> accountIds, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        int[] stripes = accountIds.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+        List<ReentrantLock> acquired = new ArrayList<>(stripes.length);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            for (int stripe : stripes) {
+                ReentrantLock lock = locks[stripe];
+                if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    unlockAll(acquired);
+                    return null;
+                }
+                acquired.add(lock);
+            }
+            return acquired;
+        } catch (InterruptedException e) {
+            unlockAll(acquired);
+            throw e;
+        }
+    }
+
+    static void unlockAll(List<ReentrantLock> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).unlock();
+        }
+    }
+
+    private int stripeOf(String accountId) {
+        int hash = accountId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
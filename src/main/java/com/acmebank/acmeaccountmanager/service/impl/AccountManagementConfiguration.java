@@ -0,0 +1,107 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.IntSupplier;
+
+/**
+ * Assembles the {@link AccountManagement} that the rest of the application sees: the transactional implementation
+ * wrapped by the optional decorators enabled in configuration. Without any decorator enabled no bean is declared
+ * here and {@link AccountManagementImpl} is injected directly. The decorators target the database engine and are left
+ * out with {@code acme.account.engine=in-memory}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "acme.account.engine", havingValue = "jpa", matchIfMissing = true)
+class AccountManagementConfiguration {
+
+    @Bean
+    @Primary
+    @ConditionalOnExpression("${acme.transfer.contention.enabled:false} or ${acme.account.cache.enabled:false}"
+        + " or ${acme.transaction-log.group-commit.enabled:false} or ${acme.transfer.admission.enabled:false}")
+    AccountManagement accountManagement(
+        AccountManagementImpl accountManagementImpl,
+        ObjectProvider<TransferGroupCommitter> transferGroupCommitter,
+        TransferProperties transferProperties,
+        TransferContentionStatistics transferContentionStatistics,
+        AccountCacheProperties accountCacheProperties,
+        MoneyAccountCache moneyAccountCache,
+        HotAccountBalanceSlots hotAccountBalanceSlots,
+        ObjectProvider<TransferConcurrencyLimiter> transferConcurrencyLimiter,
+        ObjectProvider<UserTransferRateLimiter> userTransferRateLimiter
+    ) {
+        // innermost to outermost: group commit, contention, cache, admission. Cache hits and rejected transfers
+        // therefore take no locks.
+        AccountManagement accountManagement = accountManagementImpl;
+        TransferGroupCommitter groupCommitter = transferGroupCommitter.getIfAvailable();
+        if (groupCommitter != null) {
+            accountManagement = new GroupCommitAccountManagement(accountManagement, groupCommitter);
+        }
+        if (transferProperties.contention().enabled()) {
+            accountManagement = new ContentionAwareAccountManagement(accountManagement,
+                transferProperties.contention(), transferContentionStatistics, hotAccountBalanceSlots);
+        }
+        if (accountCacheProperties.enabled()) {
+            accountManagement = new CachingAccountManagement(accountManagement, moneyAccountCache,
+                hotAccountBalanceSlots);
+        }
+        if (transferProperties.admission().enabled()) {
+            accountManagement = new AdmissionControlledAccountManagement(accountManagement,
+                transferConcurrencyLimiter.getObject(), userTransferRateLimiter.getObject());
+        }
+        return accountManagement;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "acme.transfer.admission.enabled", havingValue = "true")
+    TransferConcurrencyLimiter transferConcurrencyLimiter(TransferProperties transferProperties,
+                                                          DataSource dataSource) throws SQLException {
+        return new TransferConcurrencyLimiter(transferProperties.admission(), connectionWaiters(dataSource),
+            System::nanoTime);
+    }
+
+    /**
+     * Threads waiting for a connection of the primary pool, through the statistics proxy and the replica routing;
+     * none when the pool is not Hikari.
+     */
+    private static IntSupplier connectionWaiters(DataSource dataSource) throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            return () -> 0;
+        }
+        final HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        return () -> {
+            // started by the first connection
+            final HikariPoolMXBean poolMXBean = pool.getHikariPoolMXBean();
+            return poolMXBean == null ? 0 : poolMXBean.getThreadsAwaitingConnection();
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "acme.transfer.admission.enabled", havingValue = "true")
+    UserTransferRateLimiter userTransferRateLimiter(TransferProperties transferProperties) {
+        return new UserTransferRateLimiter(transferProperties.admission(), System::nanoTime);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "acme.transaction-log.group-commit.enabled", havingValue = "true")
+    TransferGroupCommitter transferGroupCommitter(
+        AccountManagementImpl accountManagementImpl,
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager,
+        TransactionLogProperties transactionLogProperties
+    ) {
+        return new TransferGroupCommitter(accountManagementImpl, entityManager, transactionManager,
+            transactionLogProperties.groupCommit());
+    }
+}
@@ -1,52 +1,90 @@
 package com.acmebank.acmeaccountmanager.service.impl;
 
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
 import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
 import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
 import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLogPage;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
 import com.acmebank.acmeaccountmanager.service.exception.InsufficientBalanceErrorException;
-import com.acmebank.acmeaccountmanager.service.impl.mapper.AccountManagementImplMapper;
+import com.acmebank.acmeaccountmanager.service.exception.NotAuthorizedErrorException;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.OptimisticLockException;
-import org.javamoney.moneta.Money;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import javax.money.MonetaryException;
+import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Validated
+@Timed(value = AccountManagementMetrics.TIMER, histogram = true)
 @Transactional
+@ConditionalOnProperty(name = "acme.account.engine", havingValue = "jpa", matchIfMissing = true)
 class AccountManagementImpl implements AccountManagement {
 
+    private static final Instant UNBOUNDED_FROM = Instant.EPOCH;
+    private static final Instant UNBOUNDED_TO = Instant.parse("9999-12-31T23:59:59Z");
+
     private final MoneyAccountRepository moneyAccountRepository;
-    private final AccountManagementImplMapper mapper;
     private final AuthorizationValidationService authorizationValidationService;
-    private final ReferenceCodeGenerator referenceCodeGenerator;
+    private final TimeOrderedReferenceCodeGenerator referenceCodeGenerator;
     private final TransactionLogRepository transactionLogRepository;
+    private final ArchivedTransactionLogRepository archivedTransactionLogRepository;
+    private final TransferProperties transferProperties;
+    private final MoneyAccountCache moneyAccountCache;
+    private final HotAccountBalanceSlots hotAccountBalanceSlots;
+    private final TransactionLogWriter transactionLogWriter;
+    private final AccountManagementMetrics metrics;
 
     public AccountManagementImpl(
         MoneyAccountRepository moneyAccountRepository,
-        AccountManagementImplMapper mapper,
-        TransactionLogRepository transactionLogRepository
+        TransactionLogRepository transactionLogRepository,
+        ArchivedTransactionLogRepository archivedTransactionLogRepository,
+        TransferProperties transferProperties,
+        MoneyAccountCache moneyAccountCache,
+        HotAccountBalanceSlots hotAccountBalanceSlots,
+        TimeOrderedReferenceCodeGenerator referenceCodeGenerator,
+        TransactionLogWriter transactionLogWriter,
+        AccountManagementMetrics metrics
     ) {
         this.moneyAccountRepository = moneyAccountRepository;
-        this.mapper = mapper;
         this.authorizationValidationService = new AuthorizationValidationService();
-        this.referenceCodeGenerator = new ReferenceCodeGenerator();
         this.transactionLogRepository = transactionLogRepository;
+        this.archivedTransactionLogRepository = archivedTransactionLogRepository;
+        this.transferProperties = transferProperties;
+        this.moneyAccountCache = moneyAccountCache;
+        this.hotAccountBalanceSlots = hotAccountBalanceSlots;
+        this.referenceCodeGenerator = referenceCodeGenerator;
+        this.transactionLogWriter = transactionLogWriter;
+        this.metrics = metrics;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public MoneyAccount getAccount(GetMoneyAccountRequest request) {
         final String moneyAccountId = request.id();
         final UUID userId = request.userId();
 
-        MoneyAccountEntity moneyAccountEntity = getMoneyAccountEntityOrThrow(moneyAccountId);
-        MoneyAccount moneyAccount = mapper.entityToDomainObject(moneyAccountEntity);
+        MoneyAccount moneyAccount = moneyAccountRepository.findRowById(moneyAccountId)
+            .orElseThrow(
+                () -> new EntityNotFoundException("MoneyAccount[%s] does not exist!".formatted(moneyAccountId)))
+            .toMoneyAccount();
         authorizationValidationService.ensureHasReadAccess(moneyAccount, userId);
         return moneyAccount;
     }
@@ -58,76 +96,325 @@ class AccountManagementImpl implements AccountManagement {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<MoneyAccount> getAllAccounts(UUID userId) {
-        return moneyAccountRepository.findAllByPrimaryOwnerIdOrderById(userId)
-            .stream().map(mapper::entityToDomainObject)
+        return moneyAccountRepository.findRowsByPrimaryOwnerId(userId)
+            .stream().map(MoneyAccountRow::toMoneyAccount)
             .toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<AccountLookup> getAccounts(Set<String> ids, UUID userId) {
+        final Map<String, MoneyAccount> moneyAccountsById = moneyAccountRepository.findRowsByIdIn(ids).stream()
+            .map(MoneyAccountRow::toMoneyAccount)
+            .collect(Collectors.toMap(MoneyAccount::id, moneyAccount -> moneyAccount));
+        return authorizationValidationService.filterReadAccess(ids, moneyAccountsById, userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getAccountRevision(GetMoneyAccountRequest request) {
+        final String moneyAccountId = request.id();
+        if (hotAccountBalanceSlots.isHot(moneyAccountId)) {
+            // credits to the slots leave the version alone
+            final MoneyAccount moneyAccount = getAccount(request);
+            return AccountRevisions.of(moneyAccount, true);
+        }
+        final MoneyAccountRepository.MoneyAccountVersion version =
+            moneyAccountRepository.findVersionById(moneyAccountId)
+                .orElseThrow(
+                    () -> new EntityNotFoundException("MoneyAccount[%s] does not exist!".formatted(moneyAccountId)));
+        authorizationValidationService.ensureHasReadAccess(moneyAccountId, version.getPrimaryOwnerId(),
+            request.userId());
+        return AccountRevisions.of(version.getVersion());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getAllAccountsRevision(UUID userId) {
+        final List<MoneyAccountRepository.MoneyAccountVersion> versions =
+            moneyAccountRepository.findVersionsByPrimaryOwnerIdOrderById(userId);
+        final List<String> accountRevisions = new ArrayList<>(versions.size());
+        for (MoneyAccountRepository.MoneyAccountVersion version : versions) {
+            final String revision = hotAccountBalanceSlots.isHot(version.getId())
+                ? getAccountRevision(GetMoneyAccountRequest.builder().id(version.getId()).userId(userId).build())
+                : AccountRevisions.of(version.getVersion());
+            accountRevisions.add(version.getId() + ":" + revision);
+        }
+        return AccountRevisions.ofAll(accountRevisions);
+    }
+
     @Override
     public void transferMoneyToAccount(TransferMoneyToAccountRequest request) {
+        if (transferProperties.mode() == TransferProperties.TransferMode.CONDITIONAL_UPDATE) {
+            transferMoneyByConditionalUpdate(request);
+        } else {
+            transferMoneyByEntity(request);
+        }
+    }
+
+    @Override
+    public List<TransferOutcome> transferMoneyToAccounts(List<TransferMoneyToAccountRequest> requests,
+                                                         BatchTransferMode mode) {
+        // one IN query puts every account into the persistence context, the per transfer lookups are served from it
+        moneyAccountRepository.findAllById(requests.stream()
+            .flatMap(request -> Stream.of(request.operatingAccountId(), request.recipientAccountId()))
+            .collect(Collectors.toSet()));
+
+        List<TransferOutcome> outcomes = new ArrayList<>(requests.size());
+        for (TransferMoneyToAccountRequest request : requests) {
+            try {
+                String transactionCode = transferMoneyByEntity(request);
+                outcomes.add(TransferOutcome.completed(request.recipientAccountId(), transactionCode));
+            } catch (EntityNotFoundException exception) {
+                outcomes.add(rejectOrThrow(mode, request, TransferOutcome.Status.NOT_FOUND, exception));
+            } catch (NotAuthorizedErrorException exception) {
+                outcomes.add(rejectOrThrow(mode, request, TransferOutcome.Status.NOT_AUTHORIZED, exception));
+            } catch (OptimisticLockException exception) {
+                outcomes.add(rejectOrThrow(mode, request, TransferOutcome.Status.CONFLICT, exception));
+            } catch (InsufficientBalanceErrorException | MonetaryException exception) {
+                outcomes.add(rejectOrThrow(mode, request, TransferOutcome.Status.UNPROCESSABLE, exception));
+            }
+        }
+        return outcomes;
+    }
+
+    private static TransferOutcome rejectOrThrow(BatchTransferMode mode, TransferMoneyToAccountRequest request,
+                                                 TransferOutcome.Status status, RuntimeException exception) {
+        if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+            throw exception;
+        }
+        return TransferOutcome.rejected(request.recipientAccountId(), status, exception.getMessage());
+    }
+
+    /**
+     * Every check runs before the first mutation, so a rejected transfer leaves the persistence context untouched
+     * and the surrounding transaction can still be committed. Versions are only bumped on flush, hence all
+     * transfers of one transaction are checked against the version the operating account had when it was loaded.
+     */
+    private String transferMoneyByEntity(TransferMoneyToAccountRequest request) {
         final UUID operatingUserId = request.userId();
         final MoneyAccountEntity operatingAccount = getMoneyAccountEntityOrThrow(request.operatingAccountId());
         final Integer operatingAccountVersion = request.operatingAccountVersion();
         final MoneyAccountEntity recipientAccount = getMoneyAccountEntityOrThrow(request.recipientAccountId());
-        final Money toBeTransferMoney = Money.of(request.toBeTransferAmount(), request.currencyCode());
+        final MinorUnitMoney toBeTransferMoney =
+            MinorUnitMoney.of(request.currencyCode(), request.toBeTransferAmount());
 
-        final String operationType = "TRANSFER";
-        final String transactionCode = "%s_%s".formatted(operationType, referenceCodeGenerator.generate(20));
-        deductMoney(operatingAccount, operatingAccountVersion, toBeTransferMoney, operatingUserId,
+        final MinorUnitMoney newOperatingBalance =
+            ensureDeductible(operatingAccount, operatingAccountVersion, toBeTransferMoney, operatingUserId);
+        ensureCreditable(recipientAccount.getCurrencyCode(), toBeTransferMoney);
+
+        final String transactionCode = generateTransactionCode();
+        deductMoney(operatingAccount, newOperatingBalance, toBeTransferMoney,
             transactionCode, recipientAccount.getId());
         addMoney(recipientAccount, toBeTransferMoney,
             transactionCode, operatingAccount.getId());
+        metrics.recordTransfer(toBeTransferMoney);
+        return transactionCode;
+    }
+
+    private String generateTransactionCode() {
+        final String operationType = "TRANSFER";
+        return referenceCodeGenerator.generate(operationType);
     }
 
-    private void deductMoney(MoneyAccountEntity account, int versionNumber, Money amount, UUID userId,
+    private void deductMoney(MoneyAccountEntity account, MinorUnitMoney newBalance, MinorUnitMoney amount,
                              String transactionCode, String counterpartAccountId) {
+        if (account.getMinorUnitBalance().subtract(amount).isNegative()) {
+            // the slots cover the rest, ensureDeductible locked them
+            hotAccountBalanceSlots.drain(account.getId());
+        }
+        account.setMinorUnitBalance(newBalance);
+        moneyAccountRepository.save(account);
+        moneyAccountCache.invalidate(account.getId(), account.getPrimaryOwnerId());
+        saveTransactionLog(account.getId(), "DEDUCT", account.getPrimaryOwnerId(), transactionCode,
+            counterpartAccountId, amount);
+    }
+
+    /**
+     * @return the balance after the debit, which counts the slots of a hot account when the balance alone does not
+     * cover it. The slots are then locked but only drained by {@link #deductMoney}, once every check passed.
+     */
+    private MinorUnitMoney ensureDeductible(MoneyAccountEntity account, int versionNumber, MinorUnitMoney amount,
+                                            UUID userId) {
         authorizationValidationService.ensureHasMoneyDeductionAccess(account, userId);
         if (!account.getVersion().equals(versionNumber)) {
             throw new OptimisticLockException(
                 "MoneyAccountId: %s, versionNumber: %s".formatted(account.getId(), versionNumber));
         }
-        Money newBalance = account.getBalance().subtract(amount);
+        MinorUnitMoney newBalance = account.getMinorUnitBalance().subtract(amount);
+        if (newBalance.isNegative() && hotAccountBalanceSlots.isHot(account.getId())) {
+            newBalance = newBalance.add(
+                MinorUnitMoney.of(account.getCurrencyCode(), hotAccountBalanceSlots.lockTotal(account.getId())));
+        }
         if (newBalance.isNegative()) {
             throw new InsufficientBalanceErrorException(account.getId());
         }
-        account.setBalanceAmount(newBalance.getNumberStripped());
-        moneyAccountRepository.save(account);
-        transactionLogRepository.save(TransactionLogEntity.builder()
-            .operatingAccountId(account.getId())
-            .operation("DEDUCT")
-            .operatingAccountUserId(account.getPrimaryOwnerId())
-            .referenceCode(transactionCode)
-            .counterpartAccountId(counterpartAccountId)
-            .currencyCode(amount.getCurrency().getCurrencyCode())
-            .moneyAmount(amount.getNumberStripped())
-            .createDateTimeUtc(Instant.now(Clock.systemUTC()))
-            .build());
+        return newBalance;
+    }
+
+    private static void ensureCreditable(String accountCurrencyCode, MinorUnitMoney amount) {
+        final String amountCurrencyCode = amount.currencyCode();
+        if (!accountCurrencyCode.equals(amountCurrencyCode)) {
+            throw new MonetaryException("Currency mismatch: %s/%s".formatted(accountCurrencyCode, amountCurrencyCode));
+        }
     }
 
-    private void addMoney(MoneyAccountEntity account, Money amount,
+    private void addMoney(MoneyAccountEntity account, MinorUnitMoney amount,
                           String transactionCode, String counterpartAccountId) {
-        Money newBalance = account.getBalance().add(amount);
-        account.setBalanceAmount(newBalance.getNumberStripped());
-        moneyAccountRepository.save(account);
-        transactionLogRepository.save(TransactionLogEntity.builder()
-            .operatingAccountId(account.getId())
-            .operation("ADD")
-            .operatingAccountUserId(account.getPrimaryOwnerId())
+        if (hotAccountBalanceSlots.isHot(account.getId())) {
+            hotAccountBalanceSlots.credit(account.getId(), amount.toBigDecimal());
+        } else {
+            account.setMinorUnitBalance(account.getMinorUnitBalance().add(amount));
+            moneyAccountRepository.save(account);
+        }
+        moneyAccountCache.invalidate(account.getId(), account.getPrimaryOwnerId());
+        saveTransactionLog(account.getId(), "ADD", account.getPrimaryOwnerId(), transactionCode,
+            counterpartAccountId, amount);
+    }
+
+    private void transferMoneyByConditionalUpdate(TransferMoneyToAccountRequest request) {
+        final UUID operatingUserId = request.userId();
+        final String operatingAccountId = request.operatingAccountId();
+        final String recipientAccountId = request.recipientAccountId();
+        final MinorUnitMoney toBeTransferMoney =
+            MinorUnitMoney.of(request.currencyCode(), request.toBeTransferAmount());
+        final String currencyCode = toBeTransferMoney.currencyCode();
+        final BigDecimal amount = toBeTransferMoney.toBigDecimal();
+
+        // read the recipient before the debit so that no row lock is held while it is fetched
+        final Optional<MoneyAccountRepository.MoneyAccountOwnership> recipient =
+            moneyAccountRepository.findOwnershipById(recipientAccountId);
+
+        if (!debitBalance(operatingAccountId, request.operatingAccountVersion(), operatingUserId, currencyCode,
+            amount)) {
+            throw explainRejectedDebit(operatingAccountId, request.operatingAccountVersion(), toBeTransferMoney,
+                operatingUserId);
+        }
+        final MoneyAccountRepository.MoneyAccountOwnership recipientOwnership = recipient
+            .orElseThrow(() -> new EntityNotFoundException(
+                "MoneyAccount[%s] does not exist!".formatted(recipientAccountId)));
+        ensureCreditable(recipientOwnership.getCurrencyCode(), toBeTransferMoney);
+        if (hotAccountBalanceSlots.isHot(recipientAccountId)) {
+            hotAccountBalanceSlots.credit(recipientAccountId, amount);
+        } else if (moneyAccountRepository.creditBalance(recipientAccountId, currencyCode, amount) == 0) {
+            throw new EntityNotFoundException("MoneyAccount[%s] does not exist!".formatted(recipientAccountId));
+        }
+        final UUID recipientOwnerId = recipientOwnership.getPrimaryOwnerId();
+        moneyAccountCache.invalidate(operatingAccountId, operatingUserId);
+        moneyAccountCache.invalidate(recipientAccountId, recipientOwnerId);
+
+        final String transactionCode = generateTransactionCode();
+        saveTransactionLog(operatingAccountId, "DEDUCT", operatingUserId, transactionCode, recipientAccountId,
+            toBeTransferMoney);
+        saveTransactionLog(recipientAccountId, "ADD", recipientOwnerId, transactionCode, operatingAccountId,
+            toBeTransferMoney);
+        metrics.recordTransfer(toBeTransferMoney);
+    }
+
+    /**
+     * A debit of a hot account that matched no row is retried once its slots have been drained into the balance.
+     */
+    private boolean debitBalance(String accountId, int versionNumber, UUID userId, String currencyCode,
+                                 BigDecimal amount) {
+        if (moneyAccountRepository.debitBalance(accountId, versionNumber, userId, currencyCode, amount) == 1) {
+            return true;
+        }
+        if (!hotAccountBalanceSlots.isHot(accountId)) {
+            return false;
+        }
+        final BigDecimal drained = hotAccountBalanceSlots.drain(accountId);
+        return drained.signum() != 0
+            && moneyAccountRepository.consolidateBalance(accountId, drained) == 1
+            && moneyAccountRepository.debitBalance(accountId, versionNumber, userId, currencyCode, amount) == 1;
+    }
+
+    /**
+     * Re-reads the operating account to turn a debit that matched no row into the same exception the entity mode
+     * would have thrown. Off the happy path, so the extra query is only paid on failure.
+     */
+    private RuntimeException explainRejectedDebit(String accountId, int versionNumber, MinorUnitMoney amount,
+                                                  UUID userId) {
+        MoneyAccountEntity account = getMoneyAccountEntityOrThrow(accountId);
+        ensureDeductible(account, versionNumber, amount, userId);
+        // every guard passes now, so the account changed between the update and this read
+        return new OptimisticLockException(
+            "MoneyAccountId: %s, versionNumber: %s".formatted(accountId, versionNumber));
+    }
+
+    private void saveTransactionLog(String accountId, String operation, UUID accountOwnerId, String transactionCode,
+                                    String counterpartAccountId, MinorUnitMoney amount) {
+        transactionLogWriter.write(TransactionLogEntity.builder()
+            .id(referenceCodeGenerator.generateUuid())
+            .operatingAccountId(accountId)
+            .operation(operation)
+            .operatingAccountUserId(accountOwnerId)
             .referenceCode(transactionCode)
             .counterpartAccountId(counterpartAccountId)
-            .currencyCode(amount.getCurrency().getCurrencyCode())
-            .moneyAmount(amount.getNumberStripped())
+            .currencyCode(amount.currencyCode())
+            .moneyAmount(amount.toBigDecimal())
             .createDateTimeUtc(Instant.now(Clock.systemUTC()))
             .build());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<TransactionLog> getAllTransactionLog(UUID userId) {
-        return transactionLogRepository.findAllByOperatingAccountUserIdOrderByCreateDateTimeUtcDesc(userId)
-            .stream()
-            .map(mapper::entityToDomainObject)
-            .toList();
+        List<TransactionLog> transactionLogs =
+            new ArrayList<>(transactionLogRepository.findAllLogsByOperatingAccountUserId(userId));
+        transactionLogs.addAll(archivedTransactionLogRepository.findAllLogsByOperatingAccountUserId(userId));
+        return transactionLogs;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionLogPage getTransactionLogPage(GetTransactionLogPageRequest request) {
+        final UUID userId = request.userId();
+        // one extra row tells whether there is a next page without a count query
+        final Limit limit = Limit.of(request.limit() + 1);
+
+        final TransactionLogCursor cursor =
+            request.cursor() == null ? null : TransactionLogCursor.decode(request.cursor());
+        List<TransactionLog> transactionLogs = cursor == null
+            ? transactionLogRepository.findFirstPageByOperatingAccountUserId(userId, limit)
+            : transactionLogRepository.findNextPageByOperatingAccountUserId(
+                userId, cursor.createDateTimeUtc(), cursor.id(), limit);
+        // archived logs are older than all logs in transaction_log, so the archive is only read past its end
+        if (transactionLogs.size() < limit.max()) {
+            final TransactionLogCursor archiveCursor = transactionLogs.isEmpty()
+                ? cursor
+                : TransactionLogCursor.of(transactionLogs.get(transactionLogs.size() - 1));
+            final Limit archiveLimit = Limit.of(limit.max() - transactionLogs.size());
+            transactionLogs = new ArrayList<>(transactionLogs);
+            transactionLogs.addAll(archiveCursor == null
+                ? archivedTransactionLogRepository.findFirstPageByOperatingAccountUserId(userId, archiveLimit)
+                : archivedTransactionLogRepository.findNextPageByOperatingAccountUserId(
+                    userId, archiveCursor.createDateTimeUtc(), archiveCursor.id(), archiveLimit));
+        }
+
+        boolean hasNextPage = transactionLogs.size() > request.limit();
+        List<TransactionLog> pageLogs = hasNextPage ? transactionLogs.subList(0, request.limit()) : transactionLogs;
+        return TransactionLogPage.builder()
+            .transactionLogs(List.copyOf(pageLogs))
+            .nextCursor(hasNextPage ? TransactionLogCursor.of(pageLogs.get(pageLogs.size() - 1)).encode() : null)
+            .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTransactionLog(ExportTransactionLogRequest request, Consumer<TransactionLog> consumer) {
+        final Instant from = request.from() == null ? UNBOUNDED_FROM : request.from();
+        final Instant to = request.to() == null ? UNBOUNDED_TO : request.to();
+        // oldest first, so the archive goes first; its index range on the create time skips it for recent exports
+        try (Stream<TransactionLog> transactionLogs =
+                 archivedTransactionLogRepository.streamByOperatingAccountUserId(request.userId(), from, to)) {
+            transactionLogs.forEach(consumer);
+        }
+        try (Stream<TransactionLog> transactionLogs =
+                 transactionLogRepository.streamByOperatingAccountUserId(request.userId(), from, to)) {
+            transactionLogs.forEach(consumer);
+        }
     }
 
 }
@@ -0,0 +1,57 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Meters of the account management layer besides the latency timer, which every implementation and decorator
+ * declares with {@code @Timed(TIMER)}. Only the outermost decorator, the primary bean of
+ * {@link AccountManagementConfiguration}, is proxied and gets timed next to the engine, so the {@code class} tag tells
+ * the end to end latency, cache hits, lock waits and retries included, apart from the time spent in the engine.
+ */
+@Component
+class AccountManagementMetrics {
+
+    static final String TIMER = "acme.account.management";
+    static final String TRANSFER_AMOUNT = "acme.transfer.amount";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DistributionSummary> transferAmountsByCurrency = new ConcurrentHashMap<>();
+
+    AccountManagementMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records the amount of a transfer, once the current transaction committed if there is one.
+     */
+    void recordTransfer(MinorUnitMoney amount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transferAmount(amount).record(amount.doubleValue());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                transferAmount(amount).record(amount.doubleValue());
+            }
+        });
+    }
+
+    private DistributionSummary transferAmount(MinorUnitMoney amount) {
+        return transferAmountsByCurrency.computeIfAbsent(amount.currencyCode(),
+            currencyCode -> DistributionSummary.builder(TRANSFER_AMOUNT)
+                .description("Amounts of completed transfers, in the major unit of their currency")
+                .tag("currency", currencyCode)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(0.01)
+                .maximumExpectedValue(1_000_000_000.0)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,53 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Revisions returned by {@link com.acmebank.acmeaccountmanager.service.api.AccountManagement#getAccountRevision}.
+ * <p>
+ * Every balance change bumps the version of an account, except credits to hot accounts, which go to the slots of
+ * {@link HotAccountBalanceSlots}. The revision of a hot account therefore carries its balance as well.
+ */
+final class AccountRevisions {
+
+    private static final int ALL_ACCOUNTS_REVISION_BYTES = 8;
+
+    private AccountRevisions() {
+    }
+
+    static String of(int version) {
+        return Integer.toString(version);
+    }
+
+    static String of(int version, BigDecimal balanceAmount) {
+        return version + "-" + balanceAmount.stripTrailingZeros().toPlainString();
+    }
+
+    static String of(MoneyAccount account, boolean hot) {
+        return hot ? of(account.version(), account.balance().getNumberStripped()) : of(account.version());
+    }
+
+    /**
+     * @param accountRevisions {@code id:revision} of each account of the user, in a stable order
+     */
+    static String ofAll(List<String> accountRevisions) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+        for (String accountRevision : accountRevisions) {
+            digest.update(accountRevision.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, ALL_ACCOUNTS_REVISION_BYTES);
+    }
+}
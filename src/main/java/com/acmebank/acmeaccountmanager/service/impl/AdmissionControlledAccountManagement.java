@@ -0,0 +1,160 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLogPage;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
+import com.acmebank.acmeaccountmanager.service.exception.TransferOverloadedErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.TransferRateLimitedErrorException;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Admits transfers through the {@link UserTransferRateLimiter} of their user first, then through the
+ * {@link TransferConcurrencyLimiter}, so that under overload the excess is rejected before it waits for a connection
+ * or a lock and the admitted transfers still complete in time. Reads are not limited.
+ * <p>
+ * Outermost of the decorators: a rejected transfer takes no lock and no connection. Most HTTP transfers beyond the
+ * limit do not even get here, {@link TransferConcurrencyLimiter#shed} turns them away before their body is read.
+ */
+@Validated
+@Timed(value = AccountManagementMetrics.TIMER, histogram = true)
+class AdmissionControlledAccountManagement implements AccountManagement {
+
+    private final AccountManagement delegate;
+    private final TransferConcurrencyLimiter concurrencyLimiter;
+    private final UserTransferRateLimiter userRateLimiter;
+
+    AdmissionControlledAccountManagement(AccountManagement delegate, TransferConcurrencyLimiter concurrencyLimiter,
+                                         UserTransferRateLimiter userRateLimiter) {
+        this.delegate = delegate;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.userRateLimiter = userRateLimiter;
+    }
+
+    @Override
+    public MoneyAccount getAccount(GetMoneyAccountRequest request) {
+        return delegate.getAccount(request);
+    }
+
+    @Override
+    public List<MoneyAccount> getAllAccounts(UUID userId) {
+        return delegate.getAllAccounts(userId);
+    }
+
+    @Override
+    public List<AccountLookup> getAccounts(Set<String> ids, UUID userId) {
+        return delegate.getAccounts(ids, userId);
+    }
+
+    @Override
+    public String getAccountRevision(GetMoneyAccountRequest request) {
+        return delegate.getAccountRevision(request);
+    }
+
+    @Override
+    public String getAllAccountsRevision(UUID userId) {
+        return delegate.getAllAccountsRevision(userId);
+    }
+
+    @Override
+    public void transferMoneyToAccount(TransferMoneyToAccountRequest request) {
+        admit(Map.of(request.userId(), 1), () -> {
+            delegate.transferMoneyToAccount(request);
+            return null;
+        });
+    }
+
+    /**
+     * Every user is charged one token per transfer of their own: the batches of {@link QueuedAsyncTransfers} mix
+     * the transfers of many users.
+     */
+    @Override
+    public List<TransferOutcome> transferMoneyToAccounts(List<TransferMoneyToAccountRequest> requests,
+                                                         BatchTransferMode mode) {
+        final Map<UUID, Integer> transfersByUser = new LinkedHashMap<>();
+        requests.forEach(request -> transfersByUser.merge(request.userId(), 1, Integer::sum));
+        return admit(transfersByUser, () -> delegate.transferMoneyToAccounts(requests, mode));
+    }
+
+    @Override
+    public List<TransactionLog> getAllTransactionLog(UUID userId) {
+        return delegate.getAllTransactionLog(userId);
+    }
+
+    @Override
+    public TransactionLogPage getTransactionLogPage(GetTransactionLogPageRequest request) {
+        return delegate.getTransactionLogPage(request);
+    }
+
+    @Override
+    public void exportTransactionLog(ExportTransactionLogRequest request, Consumer<TransactionLog> consumer) {
+        delegate.exportTransactionLog(request, consumer);
+    }
+
+    private <T> T admit(Map<UUID, Integer> transfersByUser, Supplier<T> transfer) {
+        acquireUserRates(transfersByUser);
+        if (!concurrencyLimiter.tryAcquire()) {
+            // the transfers are not executed, their retry must not be charged twice
+            releaseUserRates(transfersByUser.entrySet());
+            throw new TransferOverloadedErrorException(concurrencyLimiter.limit(), concurrencyLimiter.retryAfter());
+        }
+        boolean dropped = false;
+        try {
+            return transfer.get();
+        } catch (RuntimeException exception) {
+            dropped = isOverload(exception);
+            throw exception;
+        } finally {
+            concurrencyLimiter.release(dropped);
+        }
+    }
+
+    /**
+     * Rejects the transfers as a whole when one of their users is over its rate; the users charged before get their
+     * tokens back.
+     */
+    private void acquireUserRates(Map<UUID, Integer> transfersByUser) {
+        final List<Map.Entry<UUID, Integer>> charged = new ArrayList<>(transfersByUser.size());
+        for (Map.Entry<UUID, Integer> transfers : transfersByUser.entrySet()) {
+            final Duration rateLimitWait = userRateLimiter.tryAcquire(transfers.getKey(), transfers.getValue());
+            if (!rateLimitWait.isZero()) {
+                releaseUserRates(charged);
+                throw new TransferRateLimitedErrorException(transfers.getKey(), rateLimitWait);
+            }
+            charged.add(transfers);
+        }
+    }
+
+    private void releaseUserRates(Collection<Map.Entry<UUID, Integer>> charged) {
+        charged.forEach(refund -> userRateLimiter.release(refund.getKey(), refund.getValue()));
+    }
+
+    /**
+     * Timeouts waiting for a connection or for the database. Conflicts and rejected transfers are not, they were
+     * served in time.
+     */
+    private static boolean isOverload(RuntimeException exception) {
+        return exception instanceof CannotCreateTransactionException
+            || exception instanceof TransactionTimedOutException
+            || exception instanceof QueryTimeoutException
+            || exception instanceof TransientDataAccessResourceException;
+    }
+}
@@ -0,0 +1,51 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Transaction log of a closed month, moved out of {@code transaction_log} by {@link TransactionLogArchiver}. Rows are
+ * only ever inserted by the archiver, never updated.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor
+@Table(name = "transaction_log_archive")
+class ArchivedTransactionLogEntity {
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private String operatingAccountId;
+
+    @Column(nullable = false)
+    private String operation;
+
+    @Column(nullable = false)
+    private UUID operatingAccountUserId;
+
+    @Column(nullable = false)
+    private String referenceCode;
+
+    @Column
+    private String counterpartAccountId;
+
+    @Column
+    private String currencyCode;
+
+    @Column
+    private BigDecimal moneyAmount;
+
+    @Column(nullable = false)
+    private Instant createDateTimeUtc;
+}
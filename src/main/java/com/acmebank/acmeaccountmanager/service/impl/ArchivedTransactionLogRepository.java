@@ -0,0 +1,69 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Read side of {@code transaction_log_archive}, with the same queries as {@link TransactionLogRepository}. Every
+ * archived log is older than every log in {@code transaction_log}, so results of both can simply be concatenated.
+ */
+@org.springframework.stereotype.Repository
+interface ArchivedTransactionLogRepository extends Repository<ArchivedTransactionLogEntity, UUID> {
+
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.api.TransactionLog(
+            l.id, l.operatingAccountId, l.operation, l.operatingAccountUserId, l.referenceCode,
+            l.counterpartAccountId, l.currencyCode, l.moneyAmount, l.createDateTimeUtc)
+        from ArchivedTransactionLogEntity l
+        where l.operatingAccountUserId = :userId
+        order by l.createDateTimeUtc desc""")
+    List<TransactionLog> findAllLogsByOperatingAccountUserId(UUID userId);
+
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.api.TransactionLog(
+            l.id, l.operatingAccountId, l.operation, l.operatingAccountUserId, l.referenceCode,
+            l.counterpartAccountId, l.currencyCode, l.moneyAmount, l.createDateTimeUtc)
+        from ArchivedTransactionLogEntity l
+        where l.operatingAccountUserId = :userId
+        order by l.createDateTimeUtc desc, l.id desc""")
+    List<TransactionLog> findFirstPageByOperatingAccountUserId(UUID userId, Limit limit);
+
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.api.TransactionLog(
+            l.id, l.operatingAccountId, l.operation, l.operatingAccountUserId, l.referenceCode,
+            l.counterpartAccountId, l.currencyCode, l.moneyAmount, l.createDateTimeUtc)
+        from ArchivedTransactionLogEntity l
+        where l.operatingAccountUserId = :userId
+          and (l.createDateTimeUtc < :createDateTimeUtc
+            or (l.createDateTimeUtc = :createDateTimeUtc and l.id < :id))
+        order by l.createDateTimeUtc desc, l.id desc""")
+    List<TransactionLog> findNextPageByOperatingAccountUserId(UUID userId, Instant createDateTimeUtc, UUID id,
+                                                              Limit limit);
+
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "" + TransactionLogRepository.EXPORT_FETCH_SIZE),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.api.TransactionLog(
+            l.id, l.operatingAccountId, l.operation, l.operatingAccountUserId, l.referenceCode,
+            l.counterpartAccountId, l.currencyCode, l.moneyAmount, l.createDateTimeUtc)
+        from ArchivedTransactionLogEntity l
+        where l.operatingAccountUserId = :userId
+          and l.createDateTimeUtc >= :from
+          and l.createDateTimeUtc < :to
+        order by l.createDateTimeUtc, l.id""")
+    Stream<TransactionLog> streamByOperatingAccountUserId(UUID userId, Instant from, Instant to);
+}
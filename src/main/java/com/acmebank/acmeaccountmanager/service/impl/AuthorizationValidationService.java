@@ -1,25 +1,65 @@
 package com.acmebank.acmeaccountmanager.service.impl;
 
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
 import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
 import com.acmebank.acmeaccountmanager.service.exception.NotAuthorizedErrorException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 class AuthorizationValidationService {
 
 
     public void ensureHasReadAccess(MoneyAccount moneyAccount, UUID userId) {
-        if (!moneyAccount.primaryOwnerId().equals(userId)) {
-            throw new NotAuthorizedErrorException("Non authorized user[%s] is trying to read MoneyAccount[%s]!"
-                .formatted(userId, moneyAccount.id()));
+        ensureHasReadAccess(moneyAccount.id(), moneyAccount.primaryOwnerId(), userId);
+    }
+
+    public void ensureHasReadAccess(String moneyAccountId, UUID primaryOwnerId, UUID userId) {
+        if (!hasReadAccess(primaryOwnerId, userId)) {
+            throw new NotAuthorizedErrorException("Non authorized user[%s] is trying to read MoneyAccount[%s]!",
+                userId, moneyAccountId);
+        }
+    }
+
+    /**
+     * The bulk counterpart of {@link #ensureHasReadAccess(MoneyAccount, UUID)}.
+     *
+     * @param accountsById the accounts among {@code accountIds} that exist
+     * @return one lookup per id, in the iteration order of {@code accountIds}
+     */
+    public List<AccountLookup> filterReadAccess(Collection<String> accountIds, Map<String, MoneyAccount> accountsById,
+                                                UUID userId) {
+        final List<AccountLookup> lookups = new ArrayList<>(accountIds.size());
+        for (String accountId : accountIds) {
+            final MoneyAccount moneyAccount = accountsById.get(accountId);
+            if (moneyAccount == null) {
+                lookups.add(AccountLookup.rejected(accountId, AccountLookup.Status.NOT_FOUND,
+                    "MoneyAccount[%s] does not exist!".formatted(accountId)));
+            } else if (!hasReadAccess(moneyAccount.primaryOwnerId(), userId)) {
+                lookups.add(AccountLookup.rejected(accountId, AccountLookup.Status.NOT_AUTHORIZED,
+                    "Non authorized user[%s] is trying to read MoneyAccount[%s]!".formatted(userId, accountId)));
+            } else {
+                lookups.add(AccountLookup.found(moneyAccount));
+            }
         }
+        return lookups;
+    }
+
+    private static boolean hasReadAccess(UUID primaryOwnerId, UUID userId) {
+        return primaryOwnerId.equals(userId);
     }
 
     public void ensureHasMoneyDeductionAccess(MoneyAccountEntity moneyAccount, UUID userId) {
-        if (!moneyAccount.getPrimaryOwnerId().equals(userId)) {
+        ensureHasMoneyDeductionAccess(moneyAccount.getId(), moneyAccount.getPrimaryOwnerId(), userId);
+    }
+
+    public void ensureHasMoneyDeductionAccess(String moneyAccountId, UUID primaryOwnerId, UUID userId) {
+        if (!primaryOwnerId.equals(userId)) {
             throw new NotAuthorizedErrorException(
-                "Non authorized user[%s] is trying to deduct MoneyAccount[%s]'s money!"
-                    .formatted(userId, moneyAccount.getId()));
+                "Non authorized user[%s] is trying to deduct MoneyAccount[%s]'s money!", userId, moneyAccountId);
         }
     }
 }
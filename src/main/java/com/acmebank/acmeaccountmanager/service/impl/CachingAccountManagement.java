@@ -0,0 +1,124 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLogPage;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Serves account reads from {@link MoneyAccountCache} without opening a transaction. Invalidation is left to the
+ * transactional implementation, which knows which accounts a transfer changed.
+ * <p>
+ * Loads read from the primary even when a replica is configured, a lagging replica row loaded right after an
+ * invalidation would otherwise stay cached until it expires.
+ */
+@Validated
+@Timed(value = AccountManagementMetrics.TIMER, histogram = true)
+class CachingAccountManagement implements AccountManagement {
+
+    private final AccountManagement delegate;
+    private final MoneyAccountCache cache;
+    private final HotAccountBalanceSlots hotAccountBalanceSlots;
+    private final AuthorizationValidationService authorizationValidationService;
+
+    CachingAccountManagement(AccountManagement delegate, MoneyAccountCache cache,
+                             HotAccountBalanceSlots hotAccountBalanceSlots) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.hotAccountBalanceSlots = hotAccountBalanceSlots;
+        this.authorizationValidationService = new AuthorizationValidationService();
+    }
+
+    @Override
+    public MoneyAccount getAccount(GetMoneyAccountRequest request) {
+        MoneyAccount moneyAccount = cache.getAccount(request.id(),
+            () -> ReadWriteRoutingDataSource.readFromPrimary(() -> delegate.getAccount(request)));
+        // a hit may have been loaded on behalf of another user
+        authorizationValidationService.ensureHasReadAccess(moneyAccount, request.userId());
+        return moneyAccount;
+    }
+
+    @Override
+    public List<MoneyAccount> getAllAccounts(UUID userId) {
+        return cache.getAllAccounts(userId,
+            () -> ReadWriteRoutingDataSource.readFromPrimary(() -> delegate.getAllAccounts(userId)));
+    }
+
+    @Override
+    public List<AccountLookup> getAccounts(Set<String> ids, UUID userId) {
+        // the delegate leaves out the accounts the user may not read, its rejections replace the not found below
+        final Map<String, AccountLookup> rejectedMisses = new HashMap<>();
+        final Map<String, MoneyAccount> moneyAccountsById = cache.getAccounts(ids, missedIds -> {
+            final Map<String, MoneyAccount> loaded = new HashMap<>();
+            final List<AccountLookup> lookups =
+                ReadWriteRoutingDataSource.readFromPrimary(() -> delegate.getAccounts(missedIds, userId));
+            for (AccountLookup lookup : lookups) {
+                if (lookup.account() != null) {
+                    loaded.put(lookup.accountId(), lookup.account());
+                } else {
+                    rejectedMisses.put(lookup.accountId(), lookup);
+                }
+            }
+            return loaded;
+        });
+        // hits may have been loaded on behalf of another user
+        return authorizationValidationService.filterReadAccess(ids, moneyAccountsById, userId).stream()
+            .map(lookup -> rejectedMisses.getOrDefault(lookup.accountId(), lookup))
+            .toList();
+    }
+
+    /**
+     * Derived from the cached account rather than read from the database, so that a revision is never newer than
+     * the account served along with it.
+     */
+    @Override
+    public String getAccountRevision(GetMoneyAccountRequest request) {
+        MoneyAccount moneyAccount = getAccount(request);
+        return AccountRevisions.of(moneyAccount, hotAccountBalanceSlots.isHot(moneyAccount.id()));
+    }
+
+    @Override
+    public String getAllAccountsRevision(UUID userId) {
+        return AccountRevisions.ofAll(getAllAccounts(userId).stream()
+            .map(account -> account.id() + ":"
+                + AccountRevisions.of(account, hotAccountBalanceSlots.isHot(account.id())))
+            .toList());
+    }
+
+    @Override
+    public void transferMoneyToAccount(TransferMoneyToAccountRequest request) {
+        delegate.transferMoneyToAccount(request);
+    }
+
+    @Override
+    public List<TransferOutcome> transferMoneyToAccounts(List<TransferMoneyToAccountRequest> requests,
+                                                         BatchTransferMode mode) {
+        return delegate.transferMoneyToAccounts(requests, mode);
+    }
+
+    @Override
+    public List<TransactionLog> getAllTransactionLog(UUID userId) {
+        return delegate.getAllTransactionLog(userId);
+    }
+
+    @Override
+    public TransactionLogPage getTransactionLogPage(GetTransactionLogPageRequest request) {
+        return delegate.getTransactionLogPage(request);
+    }
+
+    @Override
+    public void exportTransactionLog(ExportTransactionLogRequest request, Consumer<TransactionLog> consumer) {
+        delegate.exportTransactionLog(request, consumer);
+    }
+}
@@ -0,0 +1,198 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLogPage;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Wraps the transactional {@link AccountManagement} so that transfers touching the same account are serialized by
+ * in-JVM striped locks, held until the transaction has committed. Conflicts that still reach the database, e.g. from
+ * another instance, are retried with a jittered exponential backoff when they are on the recipient side.
+ * <p>
+ * Credits to hot accounts do not touch the account row, see {@link HotAccountBalanceSlots}, so hot recipients are
+ * not locked.
+ * <p>
+ * Only conflicts detected at flush are retried, and only while every operating account is still at the
+ * {@code operatingAccountVersion} the client sent: a conflict on an operating account leaves it at a newer version,
+ * which a retry would reject as stale anyway.
+ */
+@Slf4j
+@Validated
+@Timed(value = AccountManagementMetrics.TIMER, histogram = true)
+class ContentionAwareAccountManagement implements AccountManagement {
+
+    private final AccountManagement delegate;
+    private final TransferProperties.Contention properties;
+    private final TransferContentionStatistics statistics;
+    private final AccountLockStripes lockStripes;
+    private final HotAccountBalanceSlots hotAccountBalanceSlots;
+
+    ContentionAwareAccountManagement(AccountManagement delegate, TransferProperties.Contention properties,
+                                     TransferContentionStatistics statistics,
+                                     HotAccountBalanceSlots hotAccountBalanceSlots) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.statistics = statistics;
+        this.hotAccountBalanceSlots = hotAccountBalanceSlots;
+        this.lockStripes = new AccountLockStripes(properties.lockStripes());
+    }
+
+    @Override
+    public MoneyAccount getAccount(GetMoneyAccountRequest request) {
+        return delegate.getAccount(request);
+    }
+
+    @Override
+    public List<MoneyAccount> getAllAccounts(UUID userId) {
+        return delegate.getAllAccounts(userId);
+    }
+
+    @Override
+    public List<AccountLookup> getAccounts(Set<String> ids, UUID userId) {
+        return delegate.getAccounts(ids, userId);
+    }
+
+    @Override
+    public String getAccountRevision(GetMoneyAccountRequest request) {
+        return delegate.getAccountRevision(request);
+    }
+
+    @Override
+    public String getAllAccountsRevision(UUID userId) {
+        return delegate.getAllAccountsRevision(userId);
+    }
+
+    @Override
+    public void transferMoneyToAccount(TransferMoneyToAccountRequest request) {
+        runWithRetry(List.of(request), lockedAccountIds(Stream.of(request)), () -> {
+            delegate.transferMoneyToAccount(request);
+            return null;
+        });
+    }
+
+    @Override
+    public List<TransferOutcome> transferMoneyToAccounts(List<TransferMoneyToAccountRequest> requests,
+                                                         BatchTransferMode mode) {
+        return runWithRetry(requests, lockedAccountIds(requests.stream()),
+            () -> delegate.transferMoneyToAccounts(requests, mode));
+    }
+
+    private Set<String> lockedAccountIds(Stream<TransferMoneyToAccountRequest> requests) {
+        return requests
+            .flatMap(request -> hotAccountBalanceSlots.isHot(request.recipientAccountId())
+                ? Stream.of(request.operatingAccountId())
+                : Stream.of(request.operatingAccountId(), request.recipientAccountId()))
+            .collect(Collectors.toSet());
+    }
+
+    @Override
+    public List<TransactionLog> getAllTransactionLog(UUID userId) {
+        return delegate.getAllTransactionLog(userId);
+    }
+
+    @Override
+    public TransactionLogPage getTransactionLogPage(GetTransactionLogPageRequest request) {
+        return delegate.getTransactionLogPage(request);
+    }
+
+    @Override
+    public void exportTransactionLog(ExportTransactionLogRequest request, Consumer<TransactionLog> consumer) {
+        delegate.exportTransactionLog(request, consumer);
+    }
+
+    private <T> T runWithRetry(List<TransferMoneyToAccountRequest> requests, Collection<String> accountIds,
+                               Supplier<T> transfer) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return runLocked(accountIds, transfer);
+            } catch (OptimisticLockingFailureException exception) {
+                statistics.recordConflict();
+                if (attempt >= properties.maxAttempts() || !operatingAccountsUnchanged(requests)) {
+                    throw exception;
+                }
+                statistics.recordRetry();
+                log.debug("Retrying transfer on accounts {} after conflict, attempt {}", accountIds, attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * The flush conflict itself does not tell reliably which account it was on, JDBC batches report it without the
+     * entity, so the operating accounts are read again, from the primary: a lagging replica would report the old
+     * version and have the transfer retried.
+     */
+    private boolean operatingAccountsUnchanged(List<TransferMoneyToAccountRequest> requests) {
+        final Set<String> checkedAccountIds = new HashSet<>();
+        for (TransferMoneyToAccountRequest request : requests) {
+            if (!checkedAccountIds.add(request.operatingAccountId())) {
+                continue;
+            }
+            try {
+                final MoneyAccount operatingAccount = ReadWriteRoutingDataSource.readFromPrimary(() ->
+                    delegate.getAccount(new GetMoneyAccountRequest(request.operatingAccountId(), request.userId())));
+                if (!operatingAccount.version().equals(request.operatingAccountVersion())) {
+                    return false;
+                }
+            } catch (RuntimeException exception) {
+                log.debug("Not retrying transfer, operating account {} could not be read",
+                    request.operatingAccountId(), exception);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private <T> T runLocked(Collection<String> accountIds, Supplier<T> transfer) {
+        long waitStart = System.nanoTime();
+        List<ReentrantLock> locks;
+        try {
+            locks = lockStripes.tryLockAll(accountIds, properties.lockTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OptimisticLockException("Interrupted while waiting for the locks of accounts " + accountIds);
+        }
+        if (locks == null) {
+            statistics.recordLockTimeout();
+            throw new OptimisticLockException("Timed out waiting for the locks of accounts " + accountIds);
+        }
+        statistics.recordAttempt(System.nanoTime() - waitStart);
+        try {
+            return transfer.get();
+        } finally {
+            AccountLockStripes.unlockAll(locks);
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(properties.maxBackoff().toNanos(),
+            properties.initialBackoff().toNanos() << Math.min(attempt - 1, 30));
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OptimisticLockException("Interrupted while backing off before retrying a transfer");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLogPage;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Routes single transfers through the {@link TransferGroupCommitter}. Batches already share one transaction and
+ * reads do not commit anything, both go straight to the delegate.
+ */
+@Validated
+@Timed(value = AccountManagementMetrics.TIMER, histogram = true)
+class GroupCommitAccountManagement implements AccountManagement {
+
+    private final AccountManagement delegate;
+    private final TransferGroupCommitter groupCommitter;
+
+    GroupCommitAccountManagement(AccountManagement delegate, TransferGroupCommitter groupCommitter) {
+        this.delegate = delegate;
+        this.groupCommitter = groupCommitter;
+    }
+
+    @Override
+    public MoneyAccount getAccount(GetMoneyAccountRequest request) {
+        return delegate.getAccount(request);
+    }
+
+    @Override
+    public List<MoneyAccount> getAllAccounts(UUID userId) {
+        return delegate.getAllAccounts(userId);
+    }
+
+    @Override
+    public List<AccountLookup> getAccounts(Set<String> ids, UUID userId) {
+        return delegate.getAccounts(ids, userId);
+    }
+
+    @Override
+    public String getAccountRevision(GetMoneyAccountRequest request) {
+        return delegate.getAccountRevision(request);
+    }
+
+    @Override
+    public String getAllAccountsRevision(UUID userId) {
+        return delegate.getAllAccountsRevision(userId);
+    }
+
+    @Override
+    public void transferMoneyToAccount(TransferMoneyToAccountRequest request) {
+        groupCommitter.transferMoneyToAccount(request);
+    }
+
+    @Override
+    public List<TransferOutcome> transferMoneyToAccounts(List<TransferMoneyToAccountRequest> requests,
+                                                         BatchTransferMode mode) {
+        return delegate.transferMoneyToAccounts(requests, mode);
+    }
+
+    @Override
+    public List<TransactionLog> getAllTransactionLog(UUID userId) {
+        return delegate.getAllTransactionLog(userId);
+    }
+
+    @Override
+    public TransactionLogPage getTransactionLogPage(GetTransactionLogPageRequest request) {
+        return delegate.getTransactionLogPage(request);
+    }
+
+    @Override
+    public void exportTransactionLog(ExportTransactionLogRequest request, Consumer<TransactionLog> consumer) {
+        delegate.exportTransactionLog(request, consumer);
+    }
+}
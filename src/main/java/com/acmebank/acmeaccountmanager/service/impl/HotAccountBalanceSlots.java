@@ -0,0 +1,96 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Spreads the credits of the accounts listed in {@code acme.transfer.hot-accounts.ids} over
+ * {@code acme.transfer.hot-accounts.slots} rows of {@code money_account_balance_slot}. A credit increments one
+ * random slot and neither locks nor versions the {@code money_account} row, so concurrent credits to one account only
+ * collide when they pick the same slot.
+ * <p>
+ * Debits still go against the {@code money_account} balance; when it does not cover a debit, the slots are drained
+ * into it first. Reads add the slots to the balance, see {@link MoneyAccountRepository#findRowById}. All statements
+ * run on the connection of the current transaction.
+ */
+@Component
+class HotAccountBalanceSlots {
+
+    private static final String CREDIT_SLOT = """
+        UPDATE money_account_balance_slot SET balance_amount = balance_amount + ?
+        WHERE account_id = ? AND slot = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<String> hotAccountIds;
+    private final int slots;
+
+    HotAccountBalanceSlots(JdbcTemplate jdbcTemplate, TransferProperties properties) {
+        if (properties.hotAccounts().slots() < 1) {
+            throw new IllegalArgumentException(
+                "Hot account slots must be at least 1: %d".formatted(properties.hotAccounts().slots()));
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotAccountIds = Set.copyOf(properties.hotAccounts().ids());
+        this.slots = properties.hotAccounts().slots();
+    }
+
+    boolean isHot(String accountId) {
+        return hotAccountIds.contains(accountId);
+    }
+
+    void credit(String accountId, BigDecimal amount) {
+        final int slot = ThreadLocalRandom.current().nextInt(slots);
+        if (jdbcTemplate.update(CREDIT_SLOT, amount, accountId, slot) == 0) {
+            createSlots(accountId);
+            jdbcTemplate.update(CREDIT_SLOT, amount, accountId, slot);
+        }
+    }
+
+    /**
+     * Locks the slots of the account until the end of the transaction, so that no other transaction drains them.
+     *
+     * @return the sum of the slots
+     */
+    BigDecimal lockTotal(String accountId) {
+        final List<BigDecimal> balances = jdbcTemplate.queryForList(
+            "SELECT balance_amount FROM money_account_balance_slot WHERE account_id = ? FOR UPDATE",
+            BigDecimal.class, accountId);
+        return balances.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Locks the slots of the account until the end of the transaction and sets them to zero.
+     *
+     * @return the sum of the slots before, to be added to the {@code money_account} balance
+     */
+    BigDecimal drain(String accountId) {
+        final BigDecimal total = lockTotal(accountId);
+        if (total.signum() != 0) {
+            jdbcTemplate.update("UPDATE money_account_balance_slot SET balance_amount = 0 WHERE account_id = ?",
+                accountId);
+        }
+        return total;
+    }
+
+    /**
+     * Runs on the first credit of an account, or after the number of slots was raised. The account row lock makes
+     * concurrent first credits create the slots once.
+     */
+    private void createSlots(String accountId) {
+        jdbcTemplate.queryForList("SELECT id FROM money_account WHERE id = ? FOR UPDATE", String.class, accountId);
+        final Set<Integer> existing = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT slot FROM money_account_balance_slot WHERE account_id = ?", Integer.class, accountId));
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO money_account_balance_slot (account_id, slot, balance_amount) VALUES (?, ?, 0)",
+            IntStream.range(0, slots).filter(slot -> !existing.contains(slot))
+                .mapToObj(slot -> new Object[]{accountId, slot})
+                .toList());
+    }
+}
@@ -0,0 +1,284 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal shared by all ledger shards. A single writer thread drains whatever the shards appended since
+ * its last write and forces the whole batch to disk at once, so the cost of one {@code fsync} is spread over every
+ * concurrent transfer (group commit). An append is acknowledged only after its batch is durable.
+ * <p>
+ * The journal is split into generations, one file each. {@link #rotate()} starts a new generation so that the files
+ * before it can be deleted once a snapshot covers them. Every frame is {@code length, crc32, payload}; replay stops at
+ * the first frame that does not check out, which is where a crash tore the last write.
+ */
+@Slf4j
+final class LedgerJournal implements AutoCloseable {
+
+    private static final Pattern FILE_NAME = Pattern.compile("journal-(\\d+)\\.log");
+    private static final int MAX_FRAME_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final int batchSize;
+    private final boolean fsync;
+    private final AtomicLong sequence = new AtomicLong();
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private FileChannel channel;
+    private long generation;
+
+    /**
+     * A record to write or, when {@code record} is {@code null}, a request to start the next generation.
+     */
+    private record Entry(LedgerRecord record, CompletableFuture<Long> ack) {
+    }
+
+    LedgerJournal(Path directory, int batchSize, boolean fsync) {
+        this.directory = directory;
+        this.batchSize = batchSize;
+        this.fsync = fsync;
+        this.writer = new Thread(this::writeLoop, "ledger-journal");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Starts writing into a new generation, after every generation already on disk.
+     *
+     * @param lastSequence highest sequence found while replaying, new records continue after it
+     */
+    void open(long lastSequence) {
+        sequence.set(lastSequence);
+        try {
+            generation = generations(directory).stream().mapToLong(Long::longValue).max().orElse(0);
+            openNextGeneration();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writer.start();
+    }
+
+    long nextSequence() {
+        return sequence.incrementAndGet();
+    }
+
+    long lastSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * @return completes with the record's sequence once the record is durable
+     */
+    CompletableFuture<Long> append(LedgerRecord record) {
+        return enqueue(record);
+    }
+
+    /**
+     * @return completes with the new generation once every record appended before has been forced to disk
+     */
+    CompletableFuture<Long> rotate() {
+        return enqueue(null);
+    }
+
+    private CompletableFuture<Long> enqueue(LedgerRecord record) {
+        CompletableFuture<Long> ack = new CompletableFuture<>();
+        if (failure != null) {
+            ack.completeExceptionally(new UncheckedIOException("Ledger journal is not writable", failure));
+        } else if (closed) {
+            ack.completeExceptionally(new IllegalStateException("Ledger journal is closed"));
+        } else {
+            queue.add(new Entry(record, ack));
+        }
+        return ack;
+    }
+
+    void deleteGenerationsBefore(long firstRetainedGeneration) throws IOException {
+        for (long oldGeneration : generations(directory)) {
+            if (oldGeneration < firstRetainedGeneration) {
+                Files.deleteIfExists(directory.resolve(fileName(oldGeneration)));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException, IOException {
+        closed = true;
+        writer.join();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void writeLoop() {
+        final List<Entry> batch = new ArrayList<>(batchSize);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch, bytes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Ledger journal write failed, rejecting all further appends", e);
+                failure = e;
+                batch.forEach(entry -> entry.ack().completeExceptionally(new UncheckedIOException(e)));
+            } finally {
+                batch.clear();
+                bytes.reset();
+            }
+        }
+    }
+
+    private void writeBatch(List<Entry> batch, ByteArrayOutputStream bytes) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        final DataOutputStream payloadOut = new DataOutputStream(payload);
+        final CRC32 crc = new CRC32();
+        final List<Long> results = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            if (entry.record() == null) {
+                flush(bytes);
+                channel.force(false);
+                channel.close();
+                openNextGeneration();
+                results.add(generation);
+                continue;
+            }
+            payload.reset();
+            entry.record().writeTo(payloadOut);
+            crc.reset();
+            crc.update(payload.toByteArray());
+            out.writeInt(payload.size());
+            out.writeInt((int) crc.getValue());
+            payload.writeTo(out);
+            results.add(entry.record().sequence());
+        }
+        flush(bytes);
+        if (fsync) {
+            channel.force(false);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).ack().complete(results.get(i));
+        }
+    }
+
+    private void flush(ByteArrayOutputStream bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        bytes.reset();
+    }
+
+    private void openNextGeneration() throws IOException {
+        generation++;
+        channel = FileChannel.open(directory.resolve(fileName(generation)),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Feeds every intact record with a sequence above {@code afterSequence} to {@code consumer}, oldest generation
+     * first.
+     *
+     * @return the highest sequence seen, or {@code afterSequence} if there was none
+     */
+    static long replay(Path directory, long afterSequence, Consumer<LedgerRecord> consumer) throws IOException {
+        long lastSequence = afterSequence;
+        for (long generation : generations(directory)) {
+            Path file = directory.resolve(fileName(generation));
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                LedgerRecord record;
+                while ((record = readFrame(in, file)) != null) {
+                    if (record.sequence() > afterSequence) {
+                        consumer.accept(record);
+                        lastSequence = Math.max(lastSequence, record.sequence());
+                    }
+                }
+            }
+        }
+        return lastSequence;
+    }
+
+    private static LedgerRecord readFrame(DataInputStream in, Path file) throws IOException {
+        final int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        try {
+            final int checksum = in.readInt();
+            if (length <= 0 || length > MAX_FRAME_BYTES) {
+                return tornFrame(file);
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                return tornFrame(file);
+            }
+            try (InputStream payloadIn = new ByteArrayInputStream(payload)) {
+                return LedgerRecord.readFrom(new DataInputStream(payloadIn));
+            }
+        } catch (EOFException e) {
+            return tornFrame(file);
+        }
+    }
+
+    private static LedgerRecord tornFrame(Path file) {
+        log.warn("Ledger journal {} ends with an incomplete record, ignoring the rest of the file", file);
+        return null;
+    }
+
+    private static List<Long> generations(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .map(file -> FILE_NAME.matcher(file.getFileName().toString()))
+                .filter(Matcher::matches)
+                .map(matcher -> Long.parseLong(matcher.group(1)))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static String fileName(long generation) {
+        return "journal-%020d.log".formatted(generation);
+    }
+}
@@ -0,0 +1,28 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of {@link ShardedLedgerAccountManagement}, used when {@code acme.account.engine=in-memory}.
+ *
+ * @param shards             number of single-writer shards the accounts are partitioned across
+ * @param shardQueueCapacity requests a shard may have queued before callers wait for room
+ * @param journalDirectory   directory of the journal and snapshot files
+ * @param journalBatchSize   most records written and forced to disk together
+ * @param fsync              force every journal batch to the storage device before acknowledging it
+ * @param snapshotInterval   time between two snapshots, after which older journal files are deleted
+ */
+@ConfigurationProperties(prefix = "acme.ledger")
+record LedgerProperties(
+    @DefaultValue("4") int shards,
+    @DefaultValue("10000") int shardQueueCapacity,
+    @DefaultValue("acme-acc-manager-ledger") Path journalDirectory,
+    @DefaultValue("512") int journalBatchSize,
+    @DefaultValue("true") boolean fsync,
+    @DefaultValue("5m") Duration snapshotInterval
+) {
+}
@@ -0,0 +1,106 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One entry of the ledger journal. Records carry the after-image of the account they touch, so replaying them is
+ * idempotent and needs no knowledge of the operation that produced them.
+ *
+ * @param sequence       journal position, unique across all shards
+ * @param type           {@link Type#OPEN} registers an account, {@link Type#DEBIT} and {@link Type#CREDIT} are the two
+ *                       halves of a transfer sharing the reference code of their transaction log
+ * @param balance        balance of the account after the record is applied
+ * @param version        version of the account after the record is applied
+ * @param transactionLog log written together with the balance change, {@code null} for {@link Type#OPEN}
+ */
+record LedgerRecord(
+    long sequence,
+    Type type,
+    String accountId,
+    UUID primaryOwnerId,
+    String currencyCode,
+    BigDecimal balance,
+    int version,
+    TransactionLog transactionLog
+) {
+
+    enum Type {OPEN, DEBIT, CREDIT}
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte(type.ordinal());
+        out.writeUTF(accountId);
+        writeUuid(out, primaryOwnerId);
+        out.writeUTF(currencyCode);
+        writeDecimal(out, balance);
+        out.writeInt(version);
+        out.writeBoolean(transactionLog != null);
+        if (transactionLog != null) {
+            writeUuid(out, transactionLog.id());
+            out.writeUTF(transactionLog.operation());
+            out.writeUTF(transactionLog.referenceCode());
+            out.writeUTF(transactionLog.counterpartAccountId());
+            out.writeUTF(transactionLog.currencyCode());
+            writeDecimal(out, transactionLog.moneyAmount());
+            out.writeLong(transactionLog.createDateTimeUtc().getEpochSecond());
+            out.writeInt(transactionLog.createDateTimeUtc().getNano());
+        }
+    }
+
+    static LedgerRecord readFrom(DataInput in) throws IOException {
+        final long sequence = in.readLong();
+        final Type type = Type.values()[in.readByte()];
+        final String accountId = in.readUTF();
+        final UUID primaryOwnerId = readUuid(in);
+        final String currencyCode = in.readUTF();
+        final BigDecimal balance = readDecimal(in);
+        final int version = in.readInt();
+        TransactionLog transactionLog = null;
+        if (in.readBoolean()) {
+            transactionLog = TransactionLog.builder()
+                .id(readUuid(in))
+                .operatingAccountId(accountId)
+                .operation(in.readUTF())
+                .operatingAccountUserId(primaryOwnerId)
+                .referenceCode(in.readUTF())
+                .counterpartAccountId(in.readUTF())
+                .currencyCode(in.readUTF())
+                .moneyAmount(readDecimal(in))
+                .createDateTimeUtc(Instant.ofEpochSecond(in.readLong(), in.readInt()))
+                .build();
+        }
+        return new LedgerRecord(sequence, type, accountId, primaryOwnerId, currencyCode, balance, version,
+            transactionLog);
+    }
+
+    private static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeDecimal(DataOutput out, BigDecimal decimal) throws IOException {
+        byte[] unscaled = decimal.unscaledValue().toByteArray();
+        out.writeInt(decimal.scale());
+        out.writeShort(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInput in) throws IOException {
+        final int scale = in.readInt();
+        byte[] unscaled = new byte[in.readUnsignedShort()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
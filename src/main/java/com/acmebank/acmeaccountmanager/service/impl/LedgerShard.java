@@ -0,0 +1,106 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Event loop that is the only writer of the accounts assigned to it, so their balances change without locks.
+ * <p>
+ * Requests from callers are bounded by {@code capacity}; callers wait for room instead of piling up work.
+ * Hand-offs between shards bypass that bound, since a shard waiting for another shard's queue could deadlock.
+ */
+@Slf4j
+final class LedgerShard implements AutoCloseable {
+
+    private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+    private final Semaphore admission;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    LedgerShard(int index, int capacity) {
+        this.admission = new Semaphore(capacity);
+        this.thread = new Thread(this::run, "ledger-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Runs {@code command} on the shard and completes with the future it returns.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> command) throws InterruptedException {
+        admission.acquire();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        queue.add(() -> {
+            admission.release();
+            try {
+                command.get().whenComplete((value, failure) -> {
+                    if (failure == null) {
+                        result.complete(value);
+                    } else {
+                        result.completeExceptionally(failure);
+                    }
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Queues work coming from another shard or from recovery.
+     */
+    void handoff(Runnable task) {
+        queue.add(task);
+    }
+
+    /**
+     * Parks the shard between two tasks until {@code resume} opens.
+     *
+     * @return completes as soon as the shard is parked
+     */
+    CompletableFuture<Void> pause(CountDownLatch resume) {
+        CompletableFuture<Void> paused = new CompletableFuture<>();
+        queue.add(() -> {
+            paused.complete(null);
+            try {
+                resume.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return paused;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        thread.join();
+    }
+
+    private void run() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Runnable task = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ledger shard task failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Point-in-time image of the ledger covering every journal record up to {@code sequence}.
+ *
+ * Transaction logs are not part of it, they are in the {@code transaction_log} table by the time the snapshot is
+ * written.
+ *
+ * @param accounts       one {@link LedgerRecord.Type#OPEN} record per account holding its balance and version
+ * @param pendingCredits {@link LedgerRecord.Type#DEBIT} records whose credit had not been applied yet
+ */
+record LedgerSnapshot(
+    long sequence,
+    List<LedgerRecord> accounts,
+    List<LedgerRecord> pendingCredits
+) {
+
+    private static final Pattern FILE_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+    private static final int FORMAT = 0x4C454432;
+
+    /**
+     * Writes to a temporary file first and moves it in place once it is on disk, so a crash never leaves a partial
+     * snapshot behind. The directory is forced as well, otherwise the rename itself could be lost while the journal
+     * it replaces is already deleted. Older snapshots are removed afterwards.
+     */
+    void write(Path directory) throws IOException {
+        Path target = directory.resolve("snapshot-%020d.bin".formatted(sequence));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(FORMAT);
+            out.writeLong(sequence);
+            writeRecords(out, accounts);
+            writeRecords(out, pendingCredits);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+        for (Path file : snapshotFiles(directory)) {
+            if (!file.equals(target)) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    static Optional<LedgerSnapshot> readLatest(Path directory) throws IOException {
+        List<Path> files = snapshotFiles(directory);
+        if (files.isEmpty()) {
+            return Optional.empty();
+        }
+        Path latest = files.get(files.size() - 1);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(latest)))) {
+            if (in.readInt() != FORMAT) {
+                throw new IOException("%s is not a ledger snapshot".formatted(latest));
+            }
+            return Optional.of(new LedgerSnapshot(in.readLong(), readRecords(in), readRecords(in)));
+        }
+    }
+
+    private static void writeRecords(DataOutputStream out, List<LedgerRecord> records) throws IOException {
+        out.writeInt(records.size());
+        for (LedgerRecord record : records) {
+            record.writeTo(out);
+        }
+    }
+
+    private static List<LedgerRecord> readRecords(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        List<LedgerRecord> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(LedgerRecord.readFrom(in));
+        }
+        return records;
+    }
+
+    private static List<Path> snapshotFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> FILE_NAME.matcher(file.getFileName().toString()).matches())
+                .sorted(Comparator.comparingLong(LedgerSnapshot::sequenceOf))
+                .toList();
+        }
+    }
+
+    private static long sequenceOf(Path file) {
+        Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+}
@@ -0,0 +1,107 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.javamoney.moneta.Money;
+
+import javax.money.Monetary;
+import javax.money.MonetaryException;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Amount of money as a count of the minor unit of its currency, e.g. cents for HKD. Used on the transfer hot path in
+ * place of {@link Money}, whose arithmetic allocates a {@link BigDecimal} per operation; Moneta stays at the API edge.
+ * <p>
+ * The scale of a currency is its default fraction digits, capped at the two decimals of the {@code DECIMAL(22, 2)}
+ * balance column, so that converting to and from the column is exact. Amounts with more decimals than their currency
+ * scale are rejected rather than rounded. Amounts and arithmetic results that do not fit into a {@code long}, i.e.
+ * above 92,233,720,368,547,758.07 for two decimal currencies, are rejected with a {@link MonetaryException} as well,
+ * so that callers treat them like any other amount the account cannot take.
+ */
+record MinorUnitMoney(String currencyCode, long minorUnits) {
+
+    static final int STORAGE_SCALE = 2;
+
+    private static final Map<String, Integer> SCALES = new ConcurrentHashMap<>();
+    private static final double[] POWERS_OF_TEN = {1, 10, 100};
+
+    static MinorUnitMoney of(String currencyCode, BigDecimal amount) {
+        final int scale = scaleOf(currencyCode);
+        final BigDecimal scaled;
+        try {
+            // a no-op when the scale already matches, as for balances of two decimal currencies read from the column
+            scaled = amount.setScale(scale);
+        } catch (ArithmeticException exception) {
+            throw new MonetaryException(
+                "%s %s has more than %d decimal places".formatted(currencyCode, amount.toPlainString(), scale));
+        }
+        try {
+            return new MinorUnitMoney(currencyCode, scaled.unscaledValue().longValueExact());
+        } catch (ArithmeticException exception) {
+            throw outOfRange(currencyCode, amount.toPlainString());
+        }
+    }
+
+    static MinorUnitMoney of(Money money) {
+        return of(money.getCurrency().getCurrencyCode(), money.getNumberStripped());
+    }
+
+    /**
+     * @throws javax.money.UnknownCurrencyException if the code is not a known currency
+     */
+    static int scaleOf(String currencyCode) {
+        Integer scale = SCALES.get(currencyCode);
+        if (scale == null) {
+            scale = SCALES.computeIfAbsent(currencyCode, code -> {
+                final int fractionDigits = Monetary.getCurrency(code).getDefaultFractionDigits();
+                // pseudo currencies like XAU have no minor unit
+                return fractionDigits < 0 ? STORAGE_SCALE : Math.min(fractionDigits, STORAGE_SCALE);
+            });
+        }
+        return scale;
+    }
+
+    MinorUnitMoney add(MinorUnitMoney other) {
+        ensureSameCurrency(other);
+        try {
+            return new MinorUnitMoney(currencyCode, Math.addExact(minorUnits, other.minorUnits));
+        } catch (ArithmeticException exception) {
+            throw outOfRange(currencyCode, toBigDecimal().add(other.toBigDecimal()).toPlainString());
+        }
+    }
+
+    MinorUnitMoney subtract(MinorUnitMoney other) {
+        ensureSameCurrency(other);
+        try {
+            return new MinorUnitMoney(currencyCode, Math.subtractExact(minorUnits, other.minorUnits));
+        } catch (ArithmeticException exception) {
+            throw outOfRange(currencyCode, toBigDecimal().subtract(other.toBigDecimal()).toPlainString());
+        }
+    }
+
+    private static MonetaryException outOfRange(String currencyCode, String amount) {
+        return new MonetaryException("%s %s is out of range".formatted(currencyCode, amount));
+    }
+
+    private void ensureSameCurrency(MinorUnitMoney other) {
+        if (!currencyCode.equals(other.currencyCode)) {
+            throw new MonetaryException("Currency mismatch: %s/%s".formatted(currencyCode, other.currencyCode));
+        }
+    }
+
+    boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, scaleOf(currencyCode));
+    }
+
+    double doubleValue() {
+        return minorUnits / POWERS_OF_TEN[scaleOf(currencyCode)];
+    }
+
+    Money toMoney() {
+        return Money.of(toBigDecimal(), currencyCode);
+    }
+}
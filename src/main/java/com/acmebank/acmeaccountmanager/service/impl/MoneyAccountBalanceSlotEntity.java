@@ -0,0 +1,33 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Part of the balance of a hot account, see {@link HotAccountBalanceSlots}. The balance of an account is its
+ * {@code money_account} balance plus the balances of all its slots. Written with JDBC only.
+ */
+@Entity
+@Getter
+@NoArgsConstructor
+@Table(name = "money_account_balance_slot")
+class MoneyAccountBalanceSlotEntity {
+
+    @EmbeddedId
+    private Key key;
+
+    @Column(precision = 22, scale = 2, nullable = false)
+    private BigDecimal balanceAmount;
+
+    @Embeddable
+    record Key(String accountId, int slot) implements Serializable {
+    }
+}
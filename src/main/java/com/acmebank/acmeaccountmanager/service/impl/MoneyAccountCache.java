@@ -0,0 +1,219 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of money accounts by account id and by owner id, used by {@link CachingAccountManagement}.
+ * <p>
+ * Writers call {@link #invalidate(String, UUID)} inside their transaction. The entries are dropped right away and
+ * once more after the transaction completed, so a reader that loaded the old row in between cannot keep it cached.
+ * A load is only stored if no invalidation of its key happened while it ran, and never replaces an entry with a
+ * higher version.
+ */
+@Component
+public class MoneyAccountCache implements MeterBinder {
+
+    private static final int GENERATION_STRIPES = 4096;
+    private static final BinaryOperator<MoneyAccount> NEWER_ACCOUNT =
+        (cached, loaded) -> cached.version() >= loaded.version() ? cached : loaded;
+
+    private final boolean enabled;
+    private final Cache<String, MoneyAccount> accountsById;
+    private final Cache<UUID, List<MoneyAccount>> accountsByOwnerId;
+    // bumped by every invalidation of a key hashing to the stripe, tells a load that it may be stale
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final LongAdder invalidations = new LongAdder();
+
+    MoneyAccountCache(AccountCacheProperties properties) {
+        this.enabled = properties.enabled();
+        this.accountsById = Caffeine.newBuilder()
+            .maximumSize(properties.maximumSize())
+            .expireAfterWrite(properties.timeToLive())
+            .recordStats()
+            .build();
+        this.accountsByOwnerId = Caffeine.newBuilder()
+            .maximumSize(properties.maximumSize())
+            .expireAfterWrite(properties.timeToLive())
+            .recordStats()
+            .build();
+    }
+
+    MoneyAccount getAccount(String accountId, Supplier<MoneyAccount> loader) {
+        return getOrLoad(accountsById, accountId, loader, NEWER_ACCOUNT);
+    }
+
+    List<MoneyAccount> getAllAccounts(UUID ownerId, Supplier<List<MoneyAccount>> loader) {
+        return getOrLoad(accountsByOwnerId, ownerId, loader, MoneyAccountCache::newerAccounts);
+    }
+
+    /**
+     * Keeps the cached list only if none of its accounts is older than in the loaded one and it has all of them.
+     */
+    private static List<MoneyAccount> newerAccounts(List<MoneyAccount> cached, List<MoneyAccount> loaded) {
+        final Map<String, Integer> cachedVersions = new HashMap<>();
+        cached.forEach(account -> cachedVersions.put(account.id(), account.version()));
+        for (MoneyAccount account : loaded) {
+            final Integer cachedVersion = cachedVersions.get(account.id());
+            if (cachedVersion == null || cachedVersion < account.version()) {
+                return loaded;
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Serves the cached accounts among {@code accountIds} and loads all others with one call of the loader.
+     *
+     * @param loader returns the accounts among the ids passed that exist, by id
+     * @return the accounts among {@code accountIds} that exist, by id
+     */
+    Map<String, MoneyAccount> getAccounts(Collection<String> accountIds,
+                                          Function<Set<String>, Map<String, MoneyAccount>> loader) {
+        final Map<String, MoneyAccount> accounts = new HashMap<>();
+        final Map<String, Long> missedGenerations = new HashMap<>();
+        for (String accountId : accountIds) {
+            final MoneyAccount cached = accountsById.getIfPresent(accountId);
+            if (cached != null) {
+                accounts.put(accountId, cached);
+            } else {
+                missedGenerations.put(accountId, generations.get(stripe(accountId)));
+            }
+        }
+        if (missedGenerations.isEmpty()) {
+            return accounts;
+        }
+        loader.apply(missedGenerations.keySet()).forEach((accountId, loaded) -> {
+            store(accountsById, accountId, missedGenerations.get(accountId), loaded, NEWER_ACCOUNT);
+            accounts.put(accountId, loaded);
+        });
+        return accounts;
+    }
+
+    private <K, V> V getOrLoad(Cache<K, V> cache, K key, Supplier<V> loader, BinaryOperator<V> newer) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final long generation = generations.get(stripe(key));
+        final V loaded = loader.get();
+        store(cache, key, generation, loaded, newer);
+        return loaded;
+    }
+
+    /**
+     * @param generation of the key's stripe before the load started
+     */
+    private <K, V> void store(Cache<K, V> cache, K key, long generation, V loaded, BinaryOperator<V> newer) {
+        final int stripe = stripe(key);
+        // compute runs under the same per key lock as invalidate, so the generation cannot change in between
+        cache.asMap().compute(key, (ignored, existing) -> {
+            if (generations.get(stripe) != generation) {
+                return existing;
+            }
+            return existing == null ? loaded : newer.apply(existing, loaded);
+        });
+    }
+
+    /**
+     * Drops the cached entries of an account that is being changed by the current transaction.
+     */
+    void invalidate(String accountId, UUID ownerId) {
+        if (!enabled) {
+            return;
+        }
+        invalidateNow(accountId, ownerId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PendingInvalidations pending = (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingInvalidations(new HashSet<>(), new HashSet<>());
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new AfterCompletionInvalidation());
+        }
+        pending.accountIds().add(accountId);
+        pending.ownerIds().add(ownerId);
+    }
+
+    private void invalidateNow(String accountId, UUID ownerId) {
+        invalidate(accountsById, accountId);
+        invalidate(accountsByOwnerId, ownerId);
+    }
+
+    private <K, V> void invalidate(Cache<K, V> cache, K key) {
+        cache.asMap().compute(key, (ignored, existing) -> {
+            generations.incrementAndGet(stripe(key));
+            return null;
+        });
+        invalidations.increment();
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private record PendingInvalidations(Set<String> accountIds, Set<UUID> ownerIds) {
+    }
+
+    private class AfterCompletionInvalidation implements TransactionSynchronization {
+        @Override
+        public void afterCompletion(int status) {
+            PendingInvalidations pending =
+                (PendingInvalidations) TransactionSynchronizationManager.unbindResource(MoneyAccountCache.this);
+            pending.accountIds().forEach(accountId -> invalidate(accountsById, accountId));
+            pending.ownerIds().forEach(ownerId -> invalidate(accountsByOwnerId, ownerId));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, accountsById, "accountsById");
+        CaffeineCacheMetrics.monitor(registry, accountsByOwnerId, "accountsByOwnerId");
+        FunctionCounter.builder("acme.account.cache.invalidations", invalidations, LongAdder::sum)
+            .description("Entries dropped because a transfer changed their account")
+            .register(registry);
+    }
+
+    public Snapshot snapshot() {
+        CacheStats byId = accountsById.stats();
+        CacheStats byOwnerId = accountsByOwnerId.stats();
+        return new Snapshot(
+            byId.hitCount() + byOwnerId.hitCount(),
+            byId.missCount() + byOwnerId.missCount(),
+            byId.evictionCount() + byOwnerId.evictionCount(),
+            invalidations.sum());
+    }
+
+    /**
+     * @param hits          reads served from the cache
+     * @param misses        reads that went to the database
+     * @param evictions     entries dropped for size or age
+     * @param invalidations entries dropped because a transfer changed their account
+     */
+    public record Snapshot(long hits, long misses, long evictions, long invalidations) {
+    }
+}
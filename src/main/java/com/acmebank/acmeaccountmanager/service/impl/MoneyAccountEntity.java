@@ -37,6 +37,15 @@ public class MoneyAccountEntity {
         return Money.of(balanceAmount, currencyCode);
     }
 
+    @Transient
+    MinorUnitMoney getMinorUnitBalance() {
+        return MinorUnitMoney.of(currencyCode, balanceAmount);
+    }
+
+    void setMinorUnitBalance(MinorUnitMoney balance) {
+        this.balanceAmount = balance.toBigDecimal();
+    }
+
     @PrePersist
     @PreUpdate
     private void validateBalance() {
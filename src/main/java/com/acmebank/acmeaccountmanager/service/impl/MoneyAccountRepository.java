@@ -1,13 +1,94 @@
 package com.acmebank.acmeaccountmanager.service.impl;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 interface MoneyAccountRepository extends JpaRepository<MoneyAccountEntity, String> {
 
-    List<MoneyAccountEntity> findAllByPrimaryOwnerIdOrderById(UUID primaryOwnerId);
+    Optional<MoneyAccountOwnership> findOwnershipById(String id);
+
+    Optional<MoneyAccountVersion> findVersionById(String id);
+
+    List<MoneyAccountVersion> findVersionsByPrimaryOwnerIdOrderById(UUID primaryOwnerId);
+
+    /**
+     * The balance includes the slots of hot accounts, see {@link HotAccountBalanceSlots}.
+     */
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.impl.MoneyAccountRow(
+            a.id, a.version, a.primaryOwnerId, a.currencyCode, a.balanceAmount + coalesce((
+                select sum(s.balanceAmount) from MoneyAccountBalanceSlotEntity s where s.key.accountId = a.id), 0))
+        from MoneyAccountEntity a
+        where a.id = :id""")
+    Optional<MoneyAccountRow> findRowById(String id);
+
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.impl.MoneyAccountRow(
+            a.id, a.version, a.primaryOwnerId, a.currencyCode, a.balanceAmount + coalesce((
+                select sum(s.balanceAmount) from MoneyAccountBalanceSlotEntity s where s.key.accountId = a.id), 0))
+        from MoneyAccountEntity a
+        where a.primaryOwnerId = :primaryOwnerId
+        order by a.id""")
+    List<MoneyAccountRow> findRowsByPrimaryOwnerId(UUID primaryOwnerId);
+
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.impl.MoneyAccountRow(
+            a.id, a.version, a.primaryOwnerId, a.currencyCode, a.balanceAmount + coalesce((
+                select sum(s.balanceAmount) from MoneyAccountBalanceSlotEntity s where s.key.accountId = a.id), 0))
+        from MoneyAccountEntity a
+        where a.id in :ids""")
+    List<MoneyAccountRow> findRowsByIdIn(Collection<String> ids);
+
+    /**
+     * @return 1 when the account was debited, 0 when it does not exist, is not owned by {@code ownerId}, is not at
+     * {@code version}, is held in another currency or does not have enough balance
+     */
+    @Modifying
+    @Query("""
+        update MoneyAccountEntity a
+        set a.balanceAmount = a.balanceAmount - :amount, a.version = a.version + 1
+        where a.id = :id and a.version = :version and a.primaryOwnerId = :ownerId
+          and a.currencyCode = :currencyCode and a.balanceAmount >= :amount""")
+    int debitBalance(String id, Integer version, UUID ownerId, String currencyCode, BigDecimal amount);
+
+    @Modifying
+    @Query("""
+        update MoneyAccountEntity a
+        set a.balanceAmount = a.balanceAmount + :amount, a.version = a.version + 1
+        where a.id = :id and a.currencyCode = :currencyCode""")
+    int creditBalance(String id, String currencyCode, BigDecimal amount);
+
+    /**
+     * Adds slots drained by {@link HotAccountBalanceSlots#drain} to the balance. Leaves the version alone, the total
+     * balance of the account does not change.
+     */
+    @Modifying
+    @Query("""
+        update MoneyAccountEntity a
+        set a.balanceAmount = a.balanceAmount + :amount
+        where a.id = :id""")
+    int consolidateBalance(String id, BigDecimal amount);
+
+    interface MoneyAccountOwnership {
+        UUID getPrimaryOwnerId();
+
+        String getCurrencyCode();
+    }
+
+    interface MoneyAccountVersion {
+        String getId();
+
+        Integer getVersion();
+
+        UUID getPrimaryOwnerId();
+    }
 }
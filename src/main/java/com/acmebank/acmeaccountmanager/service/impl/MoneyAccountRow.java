@@ -0,0 +1,24 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import org.javamoney.moneta.Money;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Columns of {@code money_account} selected by the read queries of {@link MoneyAccountRepository}. Built by a JPQL
+ * constructor expression, so reads neither hydrate nor track a {@link MoneyAccountEntity}.
+ */
+record MoneyAccountRow(
+    String id,
+    Integer version,
+    UUID primaryOwnerId,
+    String currencyCode,
+    BigDecimal balanceAmount
+) {
+
+    MoneyAccount toMoneyAccount() {
+        return new MoneyAccount(id, version, primaryOwnerId, currencyCode, Money.of(balanceAmount, currencyCode));
+    }
+}
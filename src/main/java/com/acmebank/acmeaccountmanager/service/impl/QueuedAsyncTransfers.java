@@ -0,0 +1,277 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.AsyncTransfers;
+import com.acmebank.acmeaccountmanager.service.api.SubmittedTransfer;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
+import com.acmebank.acmeaccountmanager.service.exception.TransferOverloadedErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.TransferQueueFullErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.TransferRateLimitedErrorException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues submitted transfers in a bounded in-memory queue that worker threads drain in batches. A batch runs through
+ * {@link AccountManagement#transferMoneyToAccounts} in {@code PER_ITEM} mode, so it costs one transaction and
+ * rejected transfers do not affect the others. Request threads only wait for the enqueue.
+ * <p>
+ * A batch checks every transfer of an operating account against the version the account had before the batch, so
+ * later transfers of the same operating account are deferred to a following round of the batch. When a batch fails
+ * as a whole, e.g. on a conflict detected at commit, its transfers are executed again one by one.
+ * <p>
+ * Transfers rejected by admission control, because the service is overloaded or their user is over its rate, are not
+ * failed: they go back into the queue once the rejection's {@code Retry-After} has passed, as a client would retry
+ * them. An overloaded batch is retried as a whole; of a rate limited batch only the limited users' transfers wait.
+ * <p>
+ * The state of a transfer can be looked up until {@code time-to-live} after its outcome is known; pending transfers
+ * do not expire, their number is bounded by the queue.
+ */
+@Slf4j
+@Service
+@Validated
+class QueuedAsyncTransfers implements AsyncTransfers, MeterBinder {
+
+    // like the synchronous path, the cause of an unexpected failure is logged rather than returned
+    static final String FAILED_ERROR = "Unclassified error happened!";
+
+    private final AccountManagement accountManagement;
+    private final TransferProperties.Async properties;
+    private final BlockingQueue<QueuedTransfer> queue;
+    private final Cache<UUID, QueuedTransfer> transfers;
+    private final List<Thread> workers;
+    private final ScheduledExecutorService admissionRetries;
+    private volatile boolean closed;
+
+    private record QueuedTransfer(UUID id, AccountManagement.TransferMoneyToAccountRequest request,
+                                  CompletableFuture<SubmittedTransfer> done) {
+
+        SubmittedTransfer toSubmittedTransfer(SubmittedTransfer.Status status, String referenceCode, String error) {
+            return new SubmittedTransfer(id, request.operatingAccountId(), request.recipientAccountId(), status,
+                referenceCode, error);
+        }
+    }
+
+    QueuedAsyncTransfers(AccountManagement accountManagement, TransferProperties transferProperties) {
+        this.accountManagement = accountManagement;
+        this.properties = transferProperties.async();
+        if (properties.batchSize() < 1 || properties.batchSize() > AccountManagement.MAX_BATCH_TRANSFER_SIZE) {
+            throw new IllegalArgumentException("Async transfer batch size must be between 1 and %d: %d"
+                .formatted(AccountManagement.MAX_BATCH_TRANSFER_SIZE, properties.batchSize()));
+        }
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.transfers = Caffeine.newBuilder()
+            .expireAfter(new ExpireAfterOutcome(properties.timeToLive()))
+            .build();
+        this.admissionRetries = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "async-transfer-admission-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers = new ArrayList<>(properties.workers());
+        for (int i = 0; i < properties.workers(); i++) {
+            Thread worker = new Thread(this::run, "async-transfer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @Override
+    public SubmittedTransfer submit(AccountManagement.TransferMoneyToAccountRequest request) {
+        QueuedTransfer queued = new QueuedTransfer(UUID.randomUUID(), request, new CompletableFuture<>());
+        transfers.put(queued.id(), queued);
+        if (closed || !queue.offer(queued)) {
+            transfers.invalidate(queued.id());
+            throw new TransferQueueFullErrorException(properties.queueCapacity());
+        }
+        return queued.toSubmittedTransfer(SubmittedTransfer.Status.PENDING, null, null);
+    }
+
+    @Override
+    public CompletableFuture<SubmittedTransfer> getTransfer(UUID transferId, UUID userId, Duration wait) {
+        QueuedTransfer queued = transfers.getIfPresent(transferId);
+        // another user's transfer is reported as missing, not as forbidden, to not reveal its existence
+        if (queued == null || !queued.request().userId().equals(userId)) {
+            throw new EntityNotFoundException("Transfer[%s] does not exist!".formatted(transferId));
+        }
+        final SubmittedTransfer pending = queued.toSubmittedTransfer(SubmittedTransfer.Status.PENDING, null, null);
+        if (queued.done().isDone() || wait.isZero() || wait.isNegative()) {
+            return CompletableFuture.completedFuture(queued.done().getNow(pending));
+        }
+        final long waitMillis = Math.min(wait.toMillis(), properties.maxWait().toMillis());
+        // completing the copy on timeout leaves the transfer itself pending
+        return queued.done().copy().completeOnTimeout(pending, waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("acme.transfer.async.queue", queue, BlockingQueue::size)
+            .description("Submitted transfers waiting for a worker")
+            .register(registry);
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        // transfers waiting to be admitted again get one more attempt, the workers drain the queue before they stop
+        admissionRetries.shutdownNow().forEach(Runnable::run);
+        closed = true;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.MINUTES.toMillis(1));
+        }
+    }
+
+    private void run() {
+        final List<QueuedTransfer> batch = new ArrayList<>(properties.batchSize());
+        while (!closed || !queue.isEmpty()) {
+            try {
+                QueuedTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.batchSize() - 1);
+                execute(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Executing {} async transfers failed", batch.size(), e);
+                batch.forEach(queued -> complete(queued, SubmittedTransfer.Status.FAILED, null, FAILED_ERROR));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void execute(List<QueuedTransfer> batch) {
+        List<QueuedTransfer> remaining = batch;
+        while (!remaining.isEmpty()) {
+            final Set<String> operatingAccountIds = new HashSet<>();
+            final List<QueuedTransfer> round = new ArrayList<>(remaining.size());
+            final List<QueuedTransfer> deferred = new ArrayList<>();
+            for (QueuedTransfer queued : remaining) {
+                (operatingAccountIds.add(queued.request().operatingAccountId()) ? round : deferred).add(queued);
+            }
+            executeRound(round);
+            remaining = deferred;
+        }
+    }
+
+    private void executeRound(List<QueuedTransfer> round) {
+        final List<TransferOutcome> outcomes;
+        try {
+            outcomes = accountManagement.transferMoneyToAccounts(
+                round.stream().map(QueuedTransfer::request).toList(), AccountManagement.BatchTransferMode.PER_ITEM);
+        } catch (TransferOverloadedErrorException e) {
+            // one by one would only add to the overload
+            requeueLater(round, e.getRetryAfter());
+            return;
+        } catch (RuntimeException e) {
+            log.debug("Batch of {} async transfers failed, executing them one by one", round.size(), e);
+            round.forEach(this::executeAlone);
+            return;
+        }
+        for (int i = 0; i < round.size(); i++) {
+            complete(round.get(i), outcomes.get(i));
+        }
+    }
+
+    private void executeAlone(QueuedTransfer queued) {
+        try {
+            complete(queued, accountManagement.transferMoneyToAccounts(List.of(queued.request()),
+                AccountManagement.BatchTransferMode.PER_ITEM).get(0));
+        } catch (TransferRateLimitedErrorException e) {
+            requeueLater(List.of(queued), e.getRetryAfter());
+        } catch (TransferOverloadedErrorException e) {
+            requeueLater(List.of(queued), e.getRetryAfter());
+        } catch (OptimisticLockException | OptimisticLockingFailureException e) {
+            complete(queued, SubmittedTransfer.Status.CONFLICT, null, e.getMessage());
+        } catch (ConstraintViolationException e) {
+            complete(queued, SubmittedTransfer.Status.UNPROCESSABLE, null, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Async transfer {} failed", queued.id(), e);
+            complete(queued, SubmittedTransfer.Status.FAILED, null, FAILED_ERROR);
+        }
+    }
+
+    private void requeueLater(List<QueuedTransfer> rejected, Duration retryAfter) {
+        try {
+            admissionRetries.schedule(() -> rejected.forEach(this::requeue), retryAfter.toNanos(),
+                TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // stopping: queued again, they would be rejected over and over while the workers drain the queue
+            log.warn("Dropping {} async transfers waiting for admission at shutdown", rejected.size());
+            rejected.forEach(queued -> complete(queued, SubmittedTransfer.Status.FAILED, null, FAILED_ERROR));
+        }
+    }
+
+    private void requeue(QueuedTransfer queued) {
+        if (!queue.offer(queued)) {
+            log.warn("Async transfer {} could not be queued again after admission control rejected it", queued.id());
+            complete(queued, SubmittedTransfer.Status.FAILED, null, FAILED_ERROR);
+        }
+    }
+
+    private void complete(QueuedTransfer queued, TransferOutcome outcome) {
+        complete(queued, SubmittedTransfer.Status.valueOf(outcome.status().name()), outcome.referenceCode(),
+            outcome.error());
+    }
+
+    private void complete(QueuedTransfer queued, SubmittedTransfer.Status status, String referenceCode,
+                          String error) {
+        if (queued.done().complete(queued.toSubmittedTransfer(status, referenceCode, error))) {
+            // written again, so that the time to live starts now
+            transfers.put(queued.id(), queued);
+        }
+    }
+
+    private static final class ExpireAfterOutcome implements Expiry<UUID, QueuedTransfer> {
+
+        private final long timeToLiveNanos;
+
+        private ExpireAfterOutcome(Duration timeToLive) {
+            this.timeToLiveNanos = timeToLive.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(UUID id, QueuedTransfer queued, long currentTime) {
+            return queued.done().isDone() ? timeToLiveNanos : Long.MAX_VALUE;
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID id, QueuedTransfer queued, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, queued, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(UUID id, QueuedTransfer queued, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
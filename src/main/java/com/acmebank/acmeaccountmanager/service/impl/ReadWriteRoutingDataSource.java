@@ -0,0 +1,85 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to the replica and everything else to the primary. A read-only
+ * transaction that cannot get a replica connection runs on the primary instead of failing.
+ * <p>
+ * The transaction manager only marks the transaction read-only after it began, so this data source has to sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which asks for the connection
+ * at the first statement.
+ * <p>
+ * Reads that must not see replication lag, e.g. loads of the account cache, run inside {@link #readFromPrimary}.
+ */
+@Slf4j
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final LongAdder fallbacks = new LongAdder();
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PRIMARY_READS.get() == null
+            ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    /**
+     * Runs {@code reads} with the read-only transactions it begins on the primary.
+     */
+    static <T> T readFromPrimary(Supplier<T> reads) {
+        if (PRIMARY_READS.get() != null) {
+            return reads.get();
+        }
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            PRIMARY_READS.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        try {
+            return super.getConnection();
+        } catch (SQLException exception) {
+            if (determineCurrentLookupKey() != Route.REPLICA) {
+                throw exception;
+            }
+            fallbacks.increment();
+            log.warn("Replica is unavailable, running read-only transaction on the primary: {}",
+                exception.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * @return read-only transactions that ran on the primary because the replica was unavailable
+     */
+    long fallbacks() {
+        return fallbacks.sum();
+    }
+}
@@ -0,0 +1,13 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @param nodeId id of this instance, between 0 and 65535, embedded into every reference code it generates. Instances
+ *               sharing a database must have distinct ids; the application does not start without one.
+ */
+@ConfigurationProperties(prefix = "acme.reference-code")
+record ReferenceCodeProperties(
+    Integer nodeId
+) {
+}
@@ -0,0 +1,23 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param url               JDBC url of the replica, read-only transactions stay on the primary while it is unset
+ * @param username          user of the replica
+ * @param password          password of the replica
+ * @param maximumPoolSize   connections kept to the replica
+ * @param connectionTimeout wait for a replica connection before the transaction falls back to the primary
+ */
+@ConfigurationProperties(prefix = "acme.datasource.replica")
+record ReplicaDataSourceProperties(
+    String url,
+    String username,
+    String password,
+    @DefaultValue("10") int maximumPoolSize,
+    @DefaultValue("1s") Duration connectionTimeout
+) {
+}
@@ -0,0 +1,786 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLogPage;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
+import com.acmebank.acmeaccountmanager.service.exception.InsufficientBalanceErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.NotAuthorizedErrorException;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import javax.money.MonetaryException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * {@link AccountManagement} that keeps balances in memory instead of reading and writing the database per transfer.
+ * <p>
+ * Accounts are partitioned across {@link LedgerShard}s by id; a shard's event loop is the only writer of its
+ * accounts, so balances change without locks and without optimistic conflicts between concurrent transfers. Owner and
+ * currency never change and are read from any thread, which lets a transfer reject an unknown or mismatching
+ * recipient before it touches a balance.
+ * <p>
+ * A transfer between shards is a two-step hand-off: the operating account's shard debits and journals the debit
+ * together with everything needed to credit, then passes the credit to the recipient's shard. The caller is answered
+ * once the credit is durable. Should the process die in between, recovery finds the debit without its credit in the
+ * journal and applies the credit.
+ * <p>
+ * Every change goes through the {@link LedgerJournal} before the caller is answered, and readers only see it once
+ * the journal has it on disk. {@link LedgerSnapshot}s taken every {@code acme.ledger.snapshot-interval} bound the
+ * journal that has to be replayed on start. Without a snapshot the accounts are loaded from the {@code money_account}
+ * table once; from then on the ledger files are the source of truth for balances. Transaction logs only stay in
+ * memory until the next snapshot, which moves them into the {@code transaction_log} table.
+ */
+@Slf4j
+@Service
+@Validated
+@Timed(value = AccountManagementMetrics.TIMER, histogram = true)
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty(name = "acme.account.engine", havingValue = "in-memory")
+class ShardedLedgerAccountManagement implements AccountManagement {
+
+    private static final Comparator<TransactionLogCursor> NEWEST_FIRST = Comparator
+        .comparing(TransactionLogCursor::createDateTimeUtc, Comparator.reverseOrder())
+        .thenComparing(TransactionLogCursor::id, Comparator.reverseOrder());
+    private static final Instant UNBOUNDED_FROM = Instant.EPOCH;
+    private static final Instant UNBOUNDED_TO = Instant.parse("9999-12-31T23:59:59Z");
+
+    private static final String COLUMNS = """
+        id, operating_account_id, operation, operating_account_user_id, reference_code, counterpart_account_id,
+        currency_code, money_amount, create_date_time_utc""";
+    // a crash between storing the logs and writing the snapshot replays them, so they are only inserted once
+    private static final String INSERT_TRANSACTION_LOG = "INSERT INTO transaction_log (" + COLUMNS + ") "
+        + "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM transaction_log WHERE id = ?)";
+    private static final String SELECT_TRANSACTION_LOGS = "SELECT " + COLUMNS + " FROM transaction_log ";
+
+    private final LedgerProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final AuthorizationValidationService authorizationValidationService;
+    private final TimeOrderedReferenceCodeGenerator referenceCodeGenerator;
+    private final AccountManagementMetrics metrics;
+    private final LedgerShard[] shards;
+    private final LedgerJournal journal;
+    private final ScheduledExecutorService snapshotScheduler;
+    private final Map<String, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<String>> accountIdsByOwner = new ConcurrentHashMap<>();
+    private final Map<UUID, ConcurrentNavigableMap<TransactionLogCursor, LedgerRecord>> transactionLogsByUser =
+        new ConcurrentHashMap<>();
+    // debits handed off to another shard whose credit is not applied yet, by reference code
+    private final Map<String, LedgerRecord> pendingCredits = new ConcurrentHashMap<>();
+
+    /**
+     * Owner and currency are fixed. {@code workingState} is only touched by {@code shard} and already includes
+     * changes on their way to the journal; {@code state} is what readers see, it follows once the journal has the
+     * change on disk.
+     */
+    private static final class LedgerAccount {
+        private final String id;
+        private final UUID primaryOwnerId;
+        private final String currencyCode;
+        private final LedgerShard shard;
+        private volatile State state;
+        private State workingState;
+
+        private LedgerAccount(String id, UUID primaryOwnerId, String currencyCode, LedgerShard shard) {
+            this.id = id;
+            this.primaryOwnerId = primaryOwnerId;
+            this.currencyCode = currencyCode;
+            this.shard = shard;
+        }
+    }
+
+    private record State(MinorUnitMoney balance, int version) {
+    }
+
+    private record PlannedTransfer(LedgerAccount recipientAccount, MinorUnitMoney amount, String transactionCode,
+                                   MinorUnitMoney operatingBalance) {
+    }
+
+    public ShardedLedgerAccountManagement(LedgerProperties properties, JdbcTemplate jdbcTemplate,
+                                          TimeOrderedReferenceCodeGenerator referenceCodeGenerator,
+                                          AccountManagementMetrics metrics) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.authorizationValidationService = new AuthorizationValidationService();
+        this.referenceCodeGenerator = referenceCodeGenerator;
+        this.metrics = metrics;
+        this.shards = new LedgerShard[properties.shards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new LedgerShard(i, properties.shardQueueCapacity());
+        }
+        this.journal = new LedgerJournal(properties.journalDirectory(), properties.journalBatchSize(),
+            properties.fsync());
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(properties.journalDirectory());
+        Optional<LedgerSnapshot> snapshot = LedgerSnapshot.readLatest(properties.journalDirectory());
+        long snapshotSequence = 0;
+        if (snapshot.isPresent()) {
+            snapshotSequence = snapshot.get().sequence();
+            snapshot.get().accounts().forEach(this::applyState);
+            snapshot.get().pendingCredits()
+                .forEach(debit -> pendingCredits.put(debit.transactionLog().referenceCode(), debit));
+        } else {
+            loadAccountsFromDatabase();
+        }
+        final long lastSequence = LedgerJournal.replay(properties.journalDirectory(), snapshotSequence, this::replay);
+
+        journal.open(lastSequence);
+        Arrays.stream(shards).forEach(LedgerShard::start);
+        for (LedgerRecord debit : pendingCredits.values()) {
+            log.info("Completing transfer {} interrupted by the last shutdown", debit.transactionLog().referenceCode());
+            accounts.get(debit.transactionLog().counterpartAccountId()).shard.handoff(() -> credit(debit));
+        }
+        log.info("Ledger recovered {} accounts up to journal sequence {}", accounts.size(), lastSequence);
+
+        takeSnapshot();
+        final long interval = properties.snapshotInterval().toMillis();
+        snapshotScheduler.scheduleWithFixedDelay(this::takeScheduledSnapshot, interval, interval,
+            TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        snapshotScheduler.shutdownNow();
+        snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+        takeSnapshot();
+        for (LedgerShard shard : shards) {
+            shard.close();
+        }
+        journal.close();
+    }
+
+    private void loadAccountsFromDatabase() {
+        jdbcTemplate.query(
+            // slots of hot accounts are added, so that switching engines keeps their credits
+            """
+                SELECT id, version, primary_owner_id, currency_code, balance_amount + COALESCE((
+                    SELECT SUM(s.balance_amount) FROM money_account_balance_slot s WHERE s.account_id = a.id), 0)
+                    AS balance_amount
+                FROM money_account a""",
+            (RowCallbackHandler) row -> applyState(new LedgerRecord(0, LedgerRecord.Type.OPEN,
+                row.getString("id"), row.getObject("primary_owner_id", UUID.class), row.getString("currency_code"),
+                row.getBigDecimal("balance_amount"), row.getInt("version"), null)));
+    }
+
+    private void replay(LedgerRecord record) {
+        applyState(record);
+        if (record.transactionLog() != null) {
+            addTransactionLog(record);
+        }
+        if (record.type() == LedgerRecord.Type.DEBIT) {
+            pendingCredits.put(record.transactionLog().referenceCode(), record);
+        } else if (record.type() == LedgerRecord.Type.CREDIT) {
+            pendingCredits.remove(record.transactionLog().referenceCode());
+        }
+    }
+
+    private LedgerAccount applyState(LedgerRecord record) {
+        LedgerAccount account = accounts.computeIfAbsent(record.accountId(), accountId -> register(
+            new LedgerAccount(accountId, record.primaryOwnerId(), record.currencyCode(), shardOf(accountId))));
+        account.state = new State(MinorUnitMoney.of(record.currencyCode(), record.balance()), record.version());
+        account.workingState = account.state;
+        return account;
+    }
+
+    private LedgerAccount register(LedgerAccount account) {
+        accountIdsByOwner.computeIfAbsent(account.primaryOwnerId, ownerId -> new ConcurrentSkipListSet<>())
+            .add(account.id);
+        return account;
+    }
+
+    private LedgerShard shardOf(String accountId) {
+        return shards[Math.floorMod(accountId.hashCode(), shards.length)];
+    }
+
+    /**
+     * Adds an account that did not exist in the {@code money_account} table when the ledger was first started.
+     */
+    void openAccount(String id, UUID primaryOwnerId, String currencyCode, BigDecimal balance) {
+        final LedgerShard shard = shardOf(id);
+        await(shard, () -> {
+            if (accounts.containsKey(id)) {
+                throw new IllegalArgumentException("MoneyAccount[%s] already exists!".formatted(id));
+            }
+            LedgerRecord open = new LedgerRecord(journal.nextSequence(), LedgerRecord.Type.OPEN, id, primaryOwnerId,
+                currencyCode, balance, 0, null);
+            return journal.append(open).thenApply(sequence -> {
+                applyState(open);
+                return sequence;
+            });
+        });
+    }
+
+    @Override
+    public MoneyAccount getAccount(GetMoneyAccountRequest request) {
+        MoneyAccount moneyAccount = toMoneyAccount(getAccountOrThrow(request.id()));
+        authorizationValidationService.ensureHasReadAccess(moneyAccount, request.userId());
+        return moneyAccount;
+    }
+
+    private LedgerAccount getAccountOrThrow(String moneyAccountId) {
+        LedgerAccount account = accounts.get(moneyAccountId);
+        if (account == null) {
+            throw new EntityNotFoundException("MoneyAccount[%s] does not exist!".formatted(moneyAccountId));
+        }
+        return account;
+    }
+
+    private static MoneyAccount toMoneyAccount(LedgerAccount account) {
+        final State state = account.state;
+        return MoneyAccount.builder()
+            .id(account.id)
+            .version(state.version())
+            .primaryOwnerId(account.primaryOwnerId)
+            .currencyCode(account.currencyCode)
+            .balance(state.balance().toMoney())
+            .build();
+    }
+
+    @Override
+    public List<MoneyAccount> getAllAccounts(UUID userId) {
+        return accountIdsByOwner.getOrDefault(userId, Collections.emptySet()).stream()
+            .map(accounts::get)
+            .map(ShardedLedgerAccountManagement::toMoneyAccount)
+            .toList();
+    }
+
+    @Override
+    public List<AccountLookup> getAccounts(Set<String> ids, UUID userId) {
+        final Map<String, MoneyAccount> moneyAccountsById = new HashMap<>();
+        for (String id : ids) {
+            final LedgerAccount account = accounts.get(id);
+            if (account != null) {
+                moneyAccountsById.put(id, toMoneyAccount(account));
+            }
+        }
+        return authorizationValidationService.filterReadAccess(ids, moneyAccountsById, userId);
+    }
+
+    @Override
+    public String getAccountRevision(GetMoneyAccountRequest request) {
+        final LedgerAccount account = getAccountOrThrow(request.id());
+        authorizationValidationService.ensureHasReadAccess(account.id, account.primaryOwnerId, request.userId());
+        // every balance change of the ledger bumps the version
+        return AccountRevisions.of(account.state.version());
+    }
+
+    @Override
+    public String getAllAccountsRevision(UUID userId) {
+        return AccountRevisions.ofAll(accountIdsByOwner.getOrDefault(userId, Collections.emptySet()).stream()
+            .sorted()
+            .map(accounts::get)
+            .map(account -> account.id + ":" + AccountRevisions.of(account.state.version()))
+            .toList());
+    }
+
+    @Override
+    public void transferMoneyToAccount(TransferMoneyToAccountRequest request) {
+        final LedgerAccount operatingAccount = getAccountOrThrow(request.operatingAccountId());
+        final LedgerAccount recipientAccount = getAccountOrThrow(request.recipientAccountId());
+        final MinorUnitMoney toBeTransferMoney =
+            MinorUnitMoney.of(request.currencyCode(), request.toBeTransferAmount());
+
+        await(operatingAccount.shard, () -> {
+            final State operatingState = operatingAccount.workingState;
+            final MinorUnitMoney newOperatingBalance = ensureDeductible(operatingAccount, operatingState,
+                request.operatingAccountVersion(), toBeTransferMoney, request.userId());
+            ensureCreditable(recipientAccount.currencyCode, toBeTransferMoney);
+            return transfer(operatingAccount, new State(newOperatingBalance, operatingState.version() + 1),
+                recipientAccount, toBeTransferMoney, generateTransactionCode());
+        });
+    }
+
+    /**
+     * All transfers of an {@link BatchTransferMode#ALL_OR_NOTHING} batch have to debit the same account: its shard
+     * checks and applies the whole batch in one go, which is what makes it possible without cross-shard coordination.
+     * A {@link BatchTransferMode#PER_ITEM} batch may debit several accounts, the transfers of each then run as a batch
+     * of their own on its shard. As with the database engine, the operating account version is checked against its
+     * value before the batch and bumped once.
+     */
+    @Override
+    public List<TransferOutcome> transferMoneyToAccounts(List<TransferMoneyToAccountRequest> requests,
+                                                         BatchTransferMode mode) {
+        final Map<String, List<Integer>> indexesByOperatingAccount = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByOperatingAccount.computeIfAbsent(requests.get(i).operatingAccountId(), id -> new ArrayList<>())
+                .add(i);
+        }
+        if (indexesByOperatingAccount.size() == 1) {
+            return join(submitBatch(requests.get(0).operatingAccountId(), requests, mode));
+        }
+        if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+            throw new ConstraintViolationException(
+                "All transfers of an all-or-nothing batch must debit the same MoneyAccount!", Set.of());
+        }
+
+        // every shard works on its part before the first one is waited for
+        final Map<String, CompletableFuture<List<TransferOutcome>>> outcomesByOperatingAccount = new HashMap<>();
+        indexesByOperatingAccount.forEach((operatingAccountId, indexes) -> outcomesByOperatingAccount.put(
+            operatingAccountId, submitBatch(operatingAccountId, indexes.stream().map(requests::get).toList(), mode)));
+        final TransferOutcome[] outcomes = new TransferOutcome[requests.size()];
+        indexesByOperatingAccount.forEach((operatingAccountId, indexes) -> {
+            final List<TransferOutcome> accountOutcomes = join(outcomesByOperatingAccount.get(operatingAccountId));
+            for (int i = 0; i < indexes.size(); i++) {
+                outcomes[indexes.get(i)] = accountOutcomes.get(i);
+            }
+        });
+        return Arrays.asList(outcomes);
+    }
+
+    private CompletableFuture<List<TransferOutcome>> submitBatch(String operatingAccountId,
+                                                                 List<TransferMoneyToAccountRequest> requests,
+                                                                 BatchTransferMode mode) {
+        final LedgerAccount operatingAccount = accounts.get(operatingAccountId);
+        if (operatingAccount == null) {
+            return CompletableFuture.completedFuture(requests.stream()
+                .map(request -> rejectOrThrow(mode, request, TransferOutcome.Status.NOT_FOUND,
+                    new EntityNotFoundException("MoneyAccount[%s] does not exist!".formatted(operatingAccountId))))
+                .toList());
+        }
+        return submit(operatingAccount.shard, () -> transferBatch(operatingAccount, requests, mode));
+    }
+
+    private CompletableFuture<List<TransferOutcome>> transferBatch(LedgerAccount operatingAccount,
+                                                                   List<TransferMoneyToAccountRequest> requests,
+                                                                   BatchTransferMode mode) {
+        final State operatingState = operatingAccount.workingState;
+        final List<TransferOutcome> outcomes = new ArrayList<>(requests.size());
+        final List<PlannedTransfer> plannedTransfers = new ArrayList<>(requests.size());
+        MinorUnitMoney operatingBalance = operatingState.balance();
+        for (TransferMoneyToAccountRequest request : requests) {
+            try {
+                final LedgerAccount recipientAccount = getAccountOrThrow(request.recipientAccountId());
+                final MinorUnitMoney toBeTransferMoney =
+                    MinorUnitMoney.of(request.currencyCode(), request.toBeTransferAmount());
+                final MinorUnitMoney newOperatingBalance = ensureDeductible(operatingAccount,
+                    new State(operatingBalance, operatingState.version()), request.operatingAccountVersion(),
+                    toBeTransferMoney, request.userId());
+                ensureCreditable(recipientAccount.currencyCode, toBeTransferMoney);
+
+                final String transactionCode = generateTransactionCode();
+                plannedTransfers.add(
+                    new PlannedTransfer(recipientAccount, toBeTransferMoney, transactionCode, newOperatingBalance));
+                operatingBalance = newOperatingBalance;
+                outcomes.add(TransferOutcome.completed(recipientAccount.id, transactionCode));
+            } catch (EntityNotFoundException exception) {
+                outcomes.add(rejectOrThrow(mode, request, TransferOutcome.Status.NOT_FOUND, exception));
+            } catch (NotAuthorizedErrorException exception) {
+                outcomes.add(rejectOrThrow(mode, request, TransferOutcome.Status.NOT_AUTHORIZED, exception));
+            } catch (OptimisticLockException exception) {
+                outcomes.add(rejectOrThrow(mode, request, TransferOutcome.Status.CONFLICT, exception));
+            } catch (InsufficientBalanceErrorException | MonetaryException exception) {
+                outcomes.add(rejectOrThrow(mode, request, TransferOutcome.Status.UNPROCESSABLE, exception));
+            }
+        }
+
+        // nothing is applied before every transfer has been checked, so a rejection above leaves the ledger untouched
+        final CompletableFuture<?>[] acknowledgements = plannedTransfers.stream()
+            .map(planned -> transfer(operatingAccount,
+                new State(planned.operatingBalance(), operatingState.version() + 1),
+                planned.recipientAccount(), planned.amount(), planned.transactionCode()))
+            .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(acknowledgements).thenApply(durable -> outcomes);
+    }
+
+    private static TransferOutcome rejectOrThrow(BatchTransferMode mode, TransferMoneyToAccountRequest request,
+                                                 TransferOutcome.Status status, RuntimeException exception) {
+        if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+            throw exception;
+        }
+        return TransferOutcome.rejected(request.recipientAccountId(), status, exception.getMessage());
+    }
+
+    private MinorUnitMoney ensureDeductible(LedgerAccount account, State state, int versionNumber,
+                                            MinorUnitMoney amount, UUID userId) {
+        authorizationValidationService.ensureHasMoneyDeductionAccess(account.id, account.primaryOwnerId, userId);
+        if (state.version() != versionNumber) {
+            throw new OptimisticLockException(
+                "MoneyAccountId: %s, versionNumber: %s".formatted(account.id, versionNumber));
+        }
+        MinorUnitMoney newBalance = state.balance().subtract(amount);
+        if (newBalance.isNegative()) {
+            throw new InsufficientBalanceErrorException(account.id);
+        }
+        return newBalance;
+    }
+
+    private static void ensureCreditable(String accountCurrencyCode, MinorUnitMoney amount) {
+        final String amountCurrencyCode = amount.currencyCode();
+        if (!accountCurrencyCode.equals(amountCurrencyCode)) {
+            throw new MonetaryException("Currency mismatch: %s/%s".formatted(accountCurrencyCode, amountCurrencyCode));
+        }
+    }
+
+    private String generateTransactionCode() {
+        final String operationType = "TRANSFER";
+        return referenceCodeGenerator.generate(operationType);
+    }
+
+    /**
+     * Runs on the operating account's shard once every check passed.
+     *
+     * @return completes when the credit, and with it the debit journaled before, is durable
+     */
+    private CompletableFuture<Long> transfer(LedgerAccount operatingAccount, State newOperatingState,
+                                             LedgerAccount recipientAccount, MinorUnitMoney amount,
+                                             String transactionCode) {
+        final LedgerRecord debit = changeRecord(LedgerRecord.Type.DEBIT, operatingAccount, newOperatingState,
+            "DEDUCT", transactionCode, recipientAccount.id, amount);
+        metrics.recordTransfer(amount);
+        // the journal is written in append order, the acknowledgement of the credit covers the debit as well
+        journal(operatingAccount, newOperatingState, debit);
+
+        if (recipientAccount.shard == operatingAccount.shard) {
+            return credit(debit);
+        }
+        pendingCredits.put(transactionCode, debit);
+        CompletableFuture<Long> credited = new CompletableFuture<>();
+        recipientAccount.shard.handoff(() -> credit(debit).whenComplete((sequence, failure) -> {
+            if (failure == null) {
+                credited.complete(sequence);
+            } else {
+                credited.completeExceptionally(failure);
+            }
+        }));
+        return credited;
+    }
+
+    /**
+     * Runs on the recipient account's shard.
+     */
+    private CompletableFuture<Long> credit(LedgerRecord debit) {
+        final TransactionLog deduction = debit.transactionLog();
+        final LedgerAccount recipientAccount = accounts.get(deduction.counterpartAccountId());
+        final MinorUnitMoney amount = MinorUnitMoney.of(deduction.currencyCode(), deduction.moneyAmount());
+        final State recipientState = recipientAccount.workingState;
+        final State newRecipientState =
+            new State(recipientState.balance().add(amount), recipientState.version() + 1);
+
+        final LedgerRecord credit = changeRecord(LedgerRecord.Type.CREDIT, recipientAccount, newRecipientState,
+            "ADD", deduction.referenceCode(), debit.accountId(), amount);
+        pendingCredits.remove(deduction.referenceCode());
+        return journal(recipientAccount, newRecipientState, credit);
+    }
+
+    /**
+     * Runs on the shard of {@code account}, whose next checks already see {@code newState}. Readers see it, and the
+     * record's transaction log, once the record is durable. The journal acknowledges in append order and an account
+     * only appends from its shard, so the account's records are published in order. A failed append leaves the
+     * journal rejecting everything after it, and the shard goes back to the last durable state.
+     *
+     * @return completes after the record has been published
+     */
+    private CompletableFuture<Long> journal(LedgerAccount account, State newState, LedgerRecord record) {
+        account.workingState = newState;
+        return journal.append(record).whenComplete((sequence, failure) -> {
+            if (failure == null) {
+                account.state = newState;
+                addTransactionLog(record);
+            } else {
+                account.shard.handoff(() -> account.workingState = account.state);
+            }
+        });
+    }
+
+    private LedgerRecord changeRecord(LedgerRecord.Type type, LedgerAccount account, State newState,
+                                      String operation, String transactionCode, String counterpartAccountId,
+                                      MinorUnitMoney amount) {
+        return new LedgerRecord(journal.nextSequence(), type, account.id, account.primaryOwnerId,
+            account.currencyCode, newState.balance().toBigDecimal(), newState.version(), TransactionLog.builder()
+            .id(referenceCodeGenerator.generateUuid())
+            .operatingAccountId(account.id)
+            .operation(operation)
+            .operatingAccountUserId(account.primaryOwnerId)
+            .referenceCode(transactionCode)
+            .counterpartAccountId(counterpartAccountId)
+            .currencyCode(amount.currencyCode())
+            .moneyAmount(amount.toBigDecimal())
+            // the precision of transaction_log, so a log orders the same before and after it is stored
+            .createDateTimeUtc(Instant.now(Clock.systemUTC()).truncatedTo(ChronoUnit.MICROS))
+            .build());
+    }
+
+    private void addTransactionLog(LedgerRecord record) {
+        final TransactionLog transactionLog = record.transactionLog();
+        // compute, so that a snapshot dropping the user's emptied map cannot lose the log
+        transactionLogsByUser.compute(transactionLog.operatingAccountUserId(), (userId, transactionLogs) -> {
+            final ConcurrentNavigableMap<TransactionLogCursor, LedgerRecord> userLogs =
+                transactionLogs != null ? transactionLogs : new ConcurrentSkipListMap<>(NEWEST_FIRST);
+            userLogs.put(TransactionLogCursor.of(transactionLog), record);
+            return userLogs;
+        });
+    }
+
+    private void removeTransactionLog(LedgerRecord record) {
+        final TransactionLog transactionLog = record.transactionLog();
+        transactionLogsByUser.computeIfPresent(transactionLog.operatingAccountUserId(), (userId, transactionLogs) -> {
+            transactionLogs.remove(TransactionLogCursor.of(transactionLog));
+            return transactionLogs.isEmpty() ? null : transactionLogs;
+        });
+    }
+
+    /**
+     * Logs still in memory are read before the table: a log only leaves memory after it has been stored, so it is
+     * found in at least one of them, and in both in between.
+     */
+    @Override
+    public List<TransactionLog> getAllTransactionLog(UUID userId) {
+        final NavigableMap<TransactionLogCursor, TransactionLog> transactionLogs = new TreeMap<>(NEWEST_FIRST);
+        transactionLogsOf(userId).values().forEach(record -> put(transactionLogs, record.transactionLog()));
+        jdbcTemplate.query(SELECT_TRANSACTION_LOGS + "WHERE operating_account_user_id = ?",
+            (RowCallbackHandler) row -> put(transactionLogs, toTransactionLog(row)), userId);
+        return List.copyOf(transactionLogs.values());
+    }
+
+    @Override
+    public TransactionLogPage getTransactionLogPage(GetTransactionLogPageRequest request) {
+        final TransactionLogCursor cursor =
+            request.cursor() == null ? null : TransactionLogCursor.decode(request.cursor());
+        // one extra entry tells whether there is a next page
+        final int limit = request.limit() + 1;
+        NavigableMap<TransactionLogCursor, LedgerRecord> recentLogs = transactionLogsOf(request.userId());
+        if (cursor != null) {
+            recentLogs = recentLogs.tailMap(cursor, false);
+        }
+        final NavigableMap<TransactionLogCursor, TransactionLog> transactionLogs = new TreeMap<>(NEWEST_FIRST);
+        recentLogs.values().stream()
+            .limit(limit)
+            .forEach(record -> put(transactionLogs, record.transactionLog()));
+        final RowCallbackHandler storedLog = row -> put(transactionLogs, toTransactionLog(row));
+        if (cursor == null) {
+            jdbcTemplate.query(SELECT_TRANSACTION_LOGS + """
+                    WHERE operating_account_user_id = ?
+                    ORDER BY create_date_time_utc DESC, id DESC FETCH FIRST ? ROWS ONLY""",
+                storedLog, request.userId(), limit);
+        } else {
+            final OffsetDateTime createDateTimeUtc = cursor.createDateTimeUtc().atOffset(ZoneOffset.UTC);
+            jdbcTemplate.query(SELECT_TRANSACTION_LOGS + """
+                    WHERE operating_account_user_id = ?
+                      AND (create_date_time_utc < ? OR (create_date_time_utc = ? AND id < ?))
+                    ORDER BY create_date_time_utc DESC, id DESC FETCH FIRST ? ROWS ONLY""",
+                storedLog, request.userId(), createDateTimeUtc, createDateTimeUtc, cursor.id(), limit);
+        }
+        final List<TransactionLog> entries = transactionLogs.values().stream()
+            .limit(limit)
+            .toList();
+
+        boolean hasNextPage = entries.size() > request.limit();
+        List<TransactionLog> pageEntries = hasNextPage ? entries.subList(0, request.limit()) : entries;
+        TransactionLog last = hasNextPage ? pageEntries.get(pageEntries.size() - 1) : null;
+        return TransactionLogPage.builder()
+            .transactionLogs(pageEntries)
+            .nextCursor(last != null ? TransactionLogCursor.of(last).encode() : null)
+            .build();
+    }
+
+    @Override
+    public void exportTransactionLog(ExportTransactionLogRequest request, Consumer<TransactionLog> consumer) {
+        final Instant from = request.from() == null ? UNBOUNDED_FROM : request.from();
+        final Instant to = request.to() == null ? UNBOUNDED_TO : request.to();
+        final Deque<TransactionLog> recentLogs = transactionLogsOf(request.userId()).descendingMap().values().stream()
+            .map(LedgerRecord::transactionLog)
+            .dropWhile(transactionLog -> transactionLog.createDateTimeUtc().isBefore(from))
+            .takeWhile(transactionLog -> transactionLog.createDateTimeUtc().isBefore(to))
+            .collect(Collectors.toCollection(ArrayDeque::new));
+        // oldest first, the recent logs are merged into the stored ones as they stream by
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_TRANSACTION_LOGS + """
+                WHERE operating_account_user_id = ? AND create_date_time_utc >= ? AND create_date_time_utc < ?
+                ORDER BY create_date_time_utc, id""");
+            statement.setFetchSize(TransactionLogRepository.EXPORT_FETCH_SIZE);
+            statement.setObject(1, request.userId());
+            statement.setObject(2, from.atOffset(ZoneOffset.UTC));
+            statement.setObject(3, to.atOffset(ZoneOffset.UTC));
+            return statement;
+        }, (RowCallbackHandler) row -> {
+            final TransactionLog storedLog = toTransactionLog(row);
+            final TransactionLogCursor storedCursor = TransactionLogCursor.of(storedLog);
+            int order;
+            while (!recentLogs.isEmpty()
+                && (order = NEWEST_FIRST.compare(TransactionLogCursor.of(recentLogs.peekFirst()), storedCursor)) >= 0) {
+                final TransactionLog recentLog = recentLogs.pollFirst();
+                if (order > 0) {
+                    consumer.accept(recentLog);
+                }
+            }
+            consumer.accept(storedLog);
+        });
+        recentLogs.forEach(consumer);
+    }
+
+    private NavigableMap<TransactionLogCursor, LedgerRecord> transactionLogsOf(UUID userId) {
+        NavigableMap<TransactionLogCursor, LedgerRecord> transactionLogs = transactionLogsByUser.get(userId);
+        return transactionLogs != null ? transactionLogs : Collections.emptyNavigableMap();
+    }
+
+    private static void put(Map<TransactionLogCursor, TransactionLog> transactionLogs, TransactionLog transactionLog) {
+        transactionLogs.put(TransactionLogCursor.of(transactionLog), transactionLog);
+    }
+
+    private static TransactionLog toTransactionLog(ResultSet row) throws SQLException {
+        return TransactionLog.builder()
+            .id(row.getObject("id", UUID.class))
+            .operatingAccountId(row.getString("operating_account_id"))
+            .operation(row.getString("operation"))
+            .operatingAccountUserId(row.getObject("operating_account_user_id", UUID.class))
+            .referenceCode(row.getString("reference_code"))
+            .counterpartAccountId(row.getString("counterpart_account_id"))
+            .currencyCode(row.getString("currency_code"))
+            .moneyAmount(row.getBigDecimal("money_amount"))
+            .createDateTimeUtc(row.getObject("create_date_time_utc", OffsetDateTime.class).toInstant())
+            .build();
+    }
+
+    /**
+     * Parks every shard between two tasks, so that balances, pending hand-offs and the journal position form one
+     * consistent cut, and starts a new journal generation at that position. Only the cut is taken while the shards
+     * are parked; storing the transaction logs, writing the snapshot and deleting the journal it covers happens after
+     * they resumed. The logs leave memory only once the snapshot is written, until then the journal still has them.
+     */
+    private synchronized void takeSnapshot() throws IOException {
+        final CountDownLatch resume = new CountDownLatch(1);
+        final long sequence;
+        final List<LedgerRecord> accountRecords;
+        final List<LedgerRecord> pendingCreditRecords;
+        final CompletableFuture<Long> rotation;
+        try {
+            CompletableFuture.allOf(Arrays.stream(shards)
+                .map(shard -> shard.pause(resume))
+                .toArray(CompletableFuture[]::new)).join();
+            sequence = journal.lastSequence();
+            accountRecords = accounts.values().stream()
+                .map(account -> new LedgerRecord(sequence, LedgerRecord.Type.OPEN, account.id,
+                    account.primaryOwnerId, account.currencyCode, account.workingState.balance().toBigDecimal(),
+                    account.workingState.version(), null))
+                .toList();
+            pendingCreditRecords = List.copyOf(pendingCredits.values());
+            rotation = journal.rotate();
+        } finally {
+            resume.countDown();
+        }
+        final long firstRetainedGeneration = rotation.join();
+        // every record up to the cut is published now; entries of later sequences stay for the next snapshot
+        final List<LedgerRecord> transactionLogRecords = transactionLogsByUser.values().stream()
+            .flatMap(transactionLogs -> transactionLogs.values().stream())
+            .filter(record -> record.sequence() <= sequence)
+            .toList();
+        storeTransactionLogs(transactionLogRecords);
+
+        new LedgerSnapshot(sequence, accountRecords, pendingCreditRecords).write(properties.journalDirectory());
+        journal.deleteGenerationsBefore(firstRetainedGeneration);
+        transactionLogRecords.forEach(this::removeTransactionLog);
+        log.debug("Ledger snapshot taken at journal sequence {}, {} transaction logs stored", sequence,
+            transactionLogRecords.size());
+    }
+
+    private void storeTransactionLogs(List<LedgerRecord> records) {
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_LOG, records, properties.journalBatchSize(), (statement, record) -> {
+            final TransactionLog transactionLog = record.transactionLog();
+            statement.setObject(1, transactionLog.id());
+            statement.setString(2, transactionLog.operatingAccountId());
+            statement.setString(3, transactionLog.operation());
+            statement.setObject(4, transactionLog.operatingAccountUserId());
+            statement.setString(5, transactionLog.referenceCode());
+            statement.setString(6, transactionLog.counterpartAccountId());
+            statement.setString(7, transactionLog.currencyCode());
+            statement.setBigDecimal(8, transactionLog.moneyAmount());
+            // bound like TransactionLogWriter binds the create time
+            statement.setObject(9, transactionLog.createDateTimeUtc().atOffset(ZoneOffset.UTC));
+            statement.setObject(10, transactionLog.id());
+        });
+    }
+
+    private void takeScheduledSnapshot() {
+        try {
+            takeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Ledger snapshot failed, the journal is kept until the next one succeeds", e);
+        }
+    }
+
+    private static <T> T await(LedgerShard shard, Supplier<CompletableFuture<T>> command) {
+        return join(submit(shard, command));
+    }
+
+    private static <T> CompletableFuture<T> submit(LedgerShard shard, Supplier<CompletableFuture<T>> command) {
+        try {
+            return shard.submit(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ledger", e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ledger", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates codes like {@code TRANSFER_0B3K7Z1QH000002A}: 42 bits of milliseconds since 2024, a 22 bit sequence and a
+ * 16 bit node id, Crockford base32 encoded into {@value #CODE_LENGTH} characters. Codes of one instance are strictly
+ * increasing and codes of different instances differ by their node id, so they are unique without coordination and
+ * inserts into the {@code reference_code} index append at its end.
+ * <p>
+ * Timestamp and sequence share one {@link AtomicLong} that is advanced by compare-and-set. When the sequence of a
+ * millisecond is exhausted, or the clock goes back, it carries into the timestamp instead of waiting, so the codes
+ * run ahead of the clock until it catches up.
+ * <p>
+ * The same state also yields version 7 UUIDs for primary keys, so that rows like transaction logs are appended at
+ * the end of their primary key index instead of at random pages.
+ */
+@Component
+class TimeOrderedReferenceCodeGenerator {
+
+    static final int CODE_LENGTH = 16;
+
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int SEQUENCE_BITS = 22;
+    private static final int NODE_BITS = 16;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final int nodeId;
+    private final AtomicLong lastState = new AtomicLong();
+
+    TimeOrderedReferenceCodeGenerator(ReferenceCodeProperties properties) {
+        if (properties.nodeId() == null) {
+            throw new IllegalStateException(
+                "acme.reference-code.node-id is not set, every instance sharing the database needs its own between"
+                    + " 0 and " + MAX_NODE_ID);
+        } else if (properties.nodeId() < 0 || properties.nodeId() > MAX_NODE_ID) {
+            throw new IllegalArgumentException(
+                "Reference code node id must be between 0 and %d: %d".formatted(MAX_NODE_ID, properties.nodeId()));
+        } else {
+            this.nodeId = properties.nodeId();
+        }
+    }
+
+    /**
+     * @return {@code prefix}, an underscore and the code, built in a single char array
+     */
+    String generate(String prefix) {
+        final long state = nextState();
+        final int start = prefix.length() + 1;
+        final char[] referenceCode = new char[start + CODE_LENGTH];
+        prefix.getChars(0, prefix.length(), referenceCode, 0);
+        referenceCode[prefix.length()] = '_';
+
+        // the 80 bits are state followed by node id, split into a 48 bit high and a 32 bit low part
+        long high = state >>> NODE_BITS;
+        long low = ((state & MAX_NODE_ID) << NODE_BITS) | nodeId;
+        for (int i = referenceCode.length - 1; i >= start; i--) {
+            referenceCode[i] = ALPHABET[(int) (low & 31)];
+            low = (low >>> 5) | ((high & 31) << 27);
+            high >>>= 5;
+        }
+        return new String(referenceCode);
+    }
+
+    /**
+     * @return a version 7 UUID: unix milliseconds, the sequence, the node id and 36 random bits, in that order
+     */
+    UUID generateUuid() {
+        final long state = nextState();
+        final long unixMillis = (state >>> SEQUENCE_BITS) + EPOCH_MILLIS;
+        final long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        // 48 bits of milliseconds, the version and the upper 12 bits of the sequence
+        final long high = (unixMillis << 16) | 0x7000L | (sequence >>> 10);
+        // the variant, the lower 10 bits of the sequence and the node id
+        final long low = 0x8000_0000_0000_0000L | ((sequence & 0x3FF) << 52) | ((long) nodeId << 36)
+            | (ThreadLocalRandom.current().nextLong() & 0xF_FFFF_FFFFL);
+        return new UUID(high, low);
+    }
+
+    private long nextState() {
+        while (true) {
+            final long last = lastState.get();
+            final long elapsedMillis = System.currentTimeMillis() - EPOCH_MILLIS;
+            final long next = elapsedMillis > (last >>> SEQUENCE_BITS) ? elapsedMillis << SEQUENCE_BITS : last + 1;
+            if (lastState.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps {@code transaction_log} down to the last {@code acme.transaction-log.archive.hot-months} months by moving
+ * older months, one UTC month per transaction, into {@code transaction_log_archive}. The hot table and its indexes
+ * then stay the same size however much history accumulates, and inserts only ever touch the hot table.
+ * <p>
+ * Logs are written with the current time and whole months are moved oldest first, so every archived log is older
+ * than every log left in the hot table. Readers rely on that to serve pages from the hot table and only continue in
+ * the archive once it is exhausted.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${acme.transaction-log.archive.enabled:false} and '${acme.account.engine:jpa}' == 'jpa'")
+class TransactionLogArchiver {
+
+    private static final String COLUMNS = """
+        id, operating_account_id, operation, operating_account_user_id, reference_code, counterpart_account_id,
+        currency_code, money_amount, create_date_time_utc""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionLogProperties.Archive properties;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+
+    TransactionLogArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           TransactionLogProperties properties) {
+        if (properties.archive().hotMonths() < 1) {
+            throw new IllegalArgumentException(
+                "Transaction log hot months must be at least 1: %d".formatted(properties.archive().hotMonths()));
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties.archive();
+        this.clock = Clock.systemUTC();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "transaction-log-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        final long interval = properties.interval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::archiveScheduled, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    private void archiveScheduled() {
+        try {
+            archiveClosedMonths();
+        } catch (RuntimeException exception) {
+            // the next run picks up where this one failed
+            log.error("Archiving transaction logs failed", exception);
+        }
+    }
+
+    /**
+     * @return the number of logs moved
+     */
+    int archiveClosedMonths() {
+        final Instant horizon = YearMonth.now(clock).minusMonths(properties.hotMonths() - 1L)
+            .atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        int archived = 0;
+        Instant oldest;
+        while ((oldest = findOldestBefore(horizon)) != null) {
+            final YearMonth month = YearMonth.from(oldest.atOffset(ZoneOffset.UTC));
+            final Instant monthEnd = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+            final int moved = moveMonth(oldest, monthEnd.isAfter(horizon) ? horizon : monthEnd);
+            log.info("Archived {} transaction logs of {}", moved, month);
+            archived += moved;
+        }
+        return archived;
+    }
+
+    private Instant findOldestBefore(Instant horizon) {
+        final OffsetDateTime oldest = jdbcTemplate.queryForObject(
+            "SELECT MIN(create_date_time_utc) FROM transaction_log WHERE create_date_time_utc < ?",
+            OffsetDateTime.class, horizon.atOffset(ZoneOffset.UTC));
+        return oldest == null ? null : oldest.toInstant();
+    }
+
+    private int moveMonth(Instant from, Instant to) {
+        // bound like TransactionLogWriter binds the create time
+        final OffsetDateTime fromTime = from.atOffset(ZoneOffset.UTC);
+        final OffsetDateTime toTime = to.atOffset(ZoneOffset.UTC);
+        return transactionTemplate.execute(status -> {
+            final int moved = jdbcTemplate.update("INSERT INTO transaction_log_archive (" + COLUMNS + ") "
+                    + "SELECT " + COLUMNS + " FROM transaction_log "
+                    + "WHERE create_date_time_utc >= ? AND create_date_time_utc < ? ORDER BY id",
+                fromTime, toTime);
+            jdbcTemplate.update(
+                "DELETE FROM transaction_log WHERE create_date_time_utc >= ? AND create_date_time_utc < ?",
+                fromTime, toTime);
+            return moved;
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.exception.InvalidCursorErrorException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Seek position in the {@code (create_date_time_utc, id)} ordering of a user's transaction logs.
+ * Serialized as an opaque url-safe token so clients cannot depend on its content.
+ */
+record TransactionLogCursor(Instant createDateTimeUtc, UUID id) {
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+
+    static TransactionLogCursor of(TransactionLog transactionLog) {
+        return new TransactionLogCursor(transactionLog.createDateTimeUtc(), transactionLog.id());
+    }
+
+    String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+            .putLong(createDateTimeUtc.getEpochSecond())
+            .putInt(createDateTimeUtc.getNano())
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    static TransactionLogCursor decode(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != ENCODED_BYTES) {
+                throw new InvalidCursorErrorException(cursor);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Instant createDateTimeUtc = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            return new TransactionLogCursor(createDateTimeUtc, new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException | BufferUnderflowException | DateTimeException | ArithmeticException e) {
+            throw new InvalidCursorErrorException(cursor);
+        }
+    }
+}
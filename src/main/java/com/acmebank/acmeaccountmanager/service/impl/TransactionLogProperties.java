@@ -0,0 +1,47 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param batchSize   transaction log rows sent to the database in one JDBC batch
+ * @param groupCommit settings of {@link TransferGroupCommitter}
+ * @param archive     settings of {@link TransactionLogArchiver}
+ */
+@ConfigurationProperties(prefix = "acme.transaction-log")
+record TransactionLogProperties(
+    @DefaultValue("100") int batchSize,
+    @DefaultValue GroupCommit groupCommit,
+    @DefaultValue Archive archive
+) {
+
+    /**
+     * @param enabled       commit concurrent single transfers together in one database transaction
+     * @param maxTransfers  most transfers committed together
+     * @param linger        how long the first transfer of a group waits for others to join it
+     * @param queueCapacity transfers waiting for a group, beyond it callers commit on their own
+     * @param timeout       how long a caller waits for its group, a transfer still queued then commits on its own
+     */
+    record GroupCommit(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("32") int maxTransfers,
+        @DefaultValue("2ms") Duration linger,
+        @DefaultValue("1000") int queueCapacity,
+        @DefaultValue("10s") Duration timeout
+    ) {
+    }
+
+    /**
+     * @param enabled   move the logs of closed months into {@code transaction_log_archive}
+     * @param hotMonths months kept in {@code transaction_log}, the current one included
+     * @param interval  time between two archiver runs, the first one is an interval after start
+     */
+    record Archive(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("3") int hotMonths,
+        @DefaultValue("1h") Duration interval
+    ) {
+    }
+}
@@ -1,14 +1,78 @@
 package com.acmebank.acmeaccountmanager.service.impl;
 
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 interface TransactionLogRepository extends JpaRepository<TransactionLogEntity, UUID> {
 
+    int EXPORT_FETCH_SIZE = 500;
+
     List<TransactionLogEntity> findAllByOperatingAccountUserIdOrderByCreateDateTimeUtcDesc(UUID userId);
 
+    /**
+     * Like the queries below, selects straight into {@link TransactionLog} so that nothing enters the persistence
+     * context.
+     */
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.api.TransactionLog(
+            l.id, l.operatingAccountId, l.operation, l.operatingAccountUserId, l.referenceCode,
+            l.counterpartAccountId, l.currencyCode, l.moneyAmount, l.createDateTimeUtc)
+        from TransactionLogEntity l
+        where l.operatingAccountUserId = :userId
+        order by l.createDateTimeUtc desc""")
+    List<TransactionLog> findAllLogsByOperatingAccountUserId(UUID userId);
+
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.api.TransactionLog(
+            l.id, l.operatingAccountId, l.operation, l.operatingAccountUserId, l.referenceCode,
+            l.counterpartAccountId, l.currencyCode, l.moneyAmount, l.createDateTimeUtc)
+        from TransactionLogEntity l
+        where l.operatingAccountUserId = :userId
+        order by l.createDateTimeUtc desc, l.id desc""")
+    List<TransactionLog> findFirstPageByOperatingAccountUserId(UUID userId, Limit limit);
+
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.api.TransactionLog(
+            l.id, l.operatingAccountId, l.operation, l.operatingAccountUserId, l.referenceCode,
+            l.counterpartAccountId, l.currencyCode, l.moneyAmount, l.createDateTimeUtc)
+        from TransactionLogEntity l
+        where l.operatingAccountUserId = :userId
+          and (l.createDateTimeUtc < :createDateTimeUtc
+            or (l.createDateTimeUtc = :createDateTimeUtc and l.id < :id))
+        order by l.createDateTimeUtc desc, l.id desc""")
+    List<TransactionLog> findNextPageByOperatingAccountUserId(UUID userId, Instant createDateTimeUtc, UUID id,
+                                                              Limit limit);
+
+    /**
+     * Backed by a database cursor, rows are fetched {@value #EXPORT_FETCH_SIZE} at a time while the stream is
+     * consumed. Has to be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        select new com.acmebank.acmeaccountmanager.service.api.TransactionLog(
+            l.id, l.operatingAccountId, l.operation, l.operatingAccountUserId, l.referenceCode,
+            l.counterpartAccountId, l.currencyCode, l.moneyAmount, l.createDateTimeUtc)
+        from TransactionLogEntity l
+        where l.operatingAccountUserId = :userId
+          and l.createDateTimeUtc >= :from
+          and l.createDateTimeUtc < :to
+        order by l.createDateTimeUtc, l.id""")
+    Stream<TransactionLog> streamByOperatingAccountUserId(UUID userId, Instant from, Instant to);
 }
@@ -0,0 +1,86 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the transaction logs written by the current transaction and inserts them as JDBC batches right before it
+ * commits, on the same connection as the balance changes. Compared to persisting one entity per log this saves the
+ * entity bookkeeping and a round trip per row, and a transfer's logs can never be committed without its balances or
+ * the other way round.
+ */
+@Component
+class TransactionLogWriter {
+
+    private static final String INSERT_TRANSACTION_LOG = """
+        INSERT INTO transaction_log (id, operating_account_id, operation, operating_account_user_id, reference_code,
+                                     counterpart_account_id, currency_code, money_amount, create_date_time_utc)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    TransactionLogWriter(JdbcTemplate jdbcTemplate, TransactionLogProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = properties.batchSize();
+    }
+
+    void write(TransactionLogEntity transactionLog) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(List.of(transactionLog));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<TransactionLogEntity> buffer = (List<TransactionLogEntity>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new FlushBeforeCommit());
+        }
+        buffer.add(transactionLog);
+        // keeps a large batch transfer from holding every row in memory until commit
+        if (buffer.size() >= batchSize) {
+            insert(buffer);
+            buffer.clear();
+        }
+    }
+
+    private void insert(List<TransactionLogEntity> transactionLogs) {
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_LOG, transactionLogs, batchSize, (statement, transactionLog) -> {
+            statement.setObject(1, transactionLog.getId());
+            statement.setString(2, transactionLog.getOperatingAccountId());
+            statement.setString(3, transactionLog.getOperation());
+            statement.setObject(4, transactionLog.getOperatingAccountUserId());
+            statement.setString(5, transactionLog.getReferenceCode());
+            statement.setString(6, transactionLog.getCounterpartAccountId());
+            statement.setString(7, transactionLog.getCurrencyCode());
+            statement.setBigDecimal(8, transactionLog.getMoneyAmount());
+            // bound like Hibernate binds an Instant, so both read back the same value
+            statement.setObject(9, transactionLog.getCreateDateTimeUtc().atOffset(ZoneOffset.UTC));
+        });
+    }
+
+    private class FlushBeforeCommit implements TransactionSynchronization {
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            @SuppressWarnings("unchecked")
+            List<TransactionLogEntity> buffer =
+                (List<TransactionLogEntity>) TransactionSynchronizationManager.getResource(TransactionLogWriter.this);
+            if (!buffer.isEmpty()) {
+                insert(buffer);
+                buffer.clear();
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(TransactionLogWriter.this);
+        }
+    }
+}
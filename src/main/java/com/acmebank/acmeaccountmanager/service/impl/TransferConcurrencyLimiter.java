@@ -0,0 +1,175 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.TransferAdmission;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Limit of the transfers in flight, kept near the number of transfers the connection pool serves without queueing.
+ * Once per window the limit shrinks by the backoff ratio when threads waited for a connection on average more than
+ * tolerated, or a transfer timed out, and grows by one when the transfers reached the limit without queueing.
+ * Transfers beyond the limit are rejected at once rather than waiting in the queue that makes every transfer time
+ * out.
+ * <p>
+ * Each rejected client is told to retry after a delay that doubles, up to its maximum, in every window rejecting more
+ * transfers than completed, and halves back otherwise: retries coming back faster than transfers complete would spend
+ * the CPU the admitted transfers need.
+ * <p>
+ * Admission is lock-free; completed transfers are added to the window under the monitor.
+ */
+class TransferConcurrencyLimiter implements TransferAdmission, MeterBinder {
+
+    private final TransferProperties.Admission properties;
+    private final IntSupplier connectionWaiters;
+    private final LongSupplier nanoTime;
+    private final long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder windowRejections = new LongAdder();
+    private volatile int limit;
+    private volatile Duration retryAfter;
+
+    // guarded by this
+    private double estimatedLimit;
+    private long windowStartNanos;
+    private long windowConnectionWaiters;
+    private int windowCompletions;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    /**
+     * @param connectionWaiters threads currently waiting for a connection of the pool the transfers use
+     */
+    TransferConcurrencyLimiter(TransferProperties.Admission properties, IntSupplier connectionWaiters,
+                               LongSupplier nanoTime) {
+        this.properties = properties;
+        this.connectionWaiters = connectionWaiters;
+        this.nanoTime = nanoTime;
+        this.windowNanos = properties.window().toNanos();
+        this.estimatedLimit = properties.initialLimit();
+        this.limit = properties.initialLimit();
+        this.retryAfter = properties.retryAfter();
+        this.windowStartNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * @return whether the transfer is admitted, in which case {@link #release} must follow
+     */
+    boolean tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= limit) {
+                reject();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Rejects without taking a permit when the limit is reached; a transfer let through can still be rejected by
+     * {@link #tryAcquire} when others took the remaining permits meanwhile.
+     */
+    @Override
+    public Duration shed() {
+        if (inFlight.get() < limit) {
+            return Duration.ZERO;
+        }
+        reject();
+        return retryAfter;
+    }
+
+    /**
+     * @param dropped whether the transfer timed out waiting for the database, a sign of overload whatever the pool
+     */
+    void release(boolean dropped) {
+        final int inFlightBefore = inFlight.getAndDecrement();
+        sample(inFlightBefore, dropped);
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    Duration retryAfter() {
+        return retryAfter;
+    }
+
+    private void reject() {
+        rejections.increment();
+        windowRejections.increment();
+    }
+
+    private synchronized void sample(int inFlightBefore, boolean dropped) {
+        windowConnectionWaiters += connectionWaiters.getAsInt();
+        windowCompletions++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+        windowDropped |= dropped;
+        final long now = nanoTime.getAsLong();
+        if (now - windowStartNanos < windowNanos) {
+            return;
+        }
+        final double averageConnectionWaiters = (double) windowConnectionWaiters / windowCompletions;
+        final int completions = windowCompletions;
+        final int maxInFlight = windowMaxInFlight;
+        final boolean drop = windowDropped;
+        windowStartNanos = now;
+        windowConnectionWaiters = 0;
+        windowCompletions = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+        update(averageConnectionWaiters, maxInFlight, drop);
+        updateRetryAfter(windowRejections.sumThenReset(), completions);
+    }
+
+    private void update(double averageConnectionWaiters, int maxInFlight, boolean dropped) {
+        if (dropped || averageConnectionWaiters > properties.maxConnectionWaiters()) {
+            setEstimatedLimit(estimatedLimit * properties.backoffRatio());
+        } else if (maxInFlight >= limit) {
+            setEstimatedLimit(estimatedLimit + 1);
+        }
+    }
+
+    private void updateRetryAfter(long rejected, int completions) {
+        final Duration current = retryAfter;
+        if (rejected > completions) {
+            final Duration doubled = current.multipliedBy(2);
+            retryAfter = doubled.compareTo(properties.maxRetryAfter()) > 0 ? properties.maxRetryAfter() : doubled;
+        } else {
+            final Duration halved = current.dividedBy(2);
+            retryAfter = halved.compareTo(properties.retryAfter()) < 0 ? properties.retryAfter() : halved;
+        }
+    }
+
+    private void setEstimatedLimit(double estimatedLimit) {
+        this.estimatedLimit = Math.max(properties.minLimit(), Math.min(properties.maxLimit(), estimatedLimit));
+        this.limit = (int) this.estimatedLimit;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("acme.transfer.admission.limit", this, TransferConcurrencyLimiter::limit)
+            .description("Current limit of concurrent transfers")
+            .register(registry);
+        Gauge.builder("acme.transfer.admission.in.flight", inFlight, AtomicInteger::get)
+            .description("Transfers being executed")
+            .register(registry);
+        Gauge.builder("acme.transfer.admission.retry.after", this, limiter -> limiter.retryAfter().toMillis())
+            .description("Retry delay suggested to transfers rejected by the concurrency limit")
+            .baseUnit("milliseconds")
+            .register(registry);
+        FunctionCounter.builder("acme.transfer.admission.limit.rejections", rejections, LongAdder::sum)
+            .description("Transfers rejected because the concurrency limit was reached")
+            .register(registry);
+    }
+}
@@ -0,0 +1,74 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of {@link ContentionAwareAccountManagement}. They stay at zero while the contention mode is disabled.
+ */
+@Component
+public class TransferContentionStatistics implements MeterBinder {
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder lockTimeouts = new LongAdder();
+    private final LongAdder lockWaitNanos = new LongAdder();
+
+    void recordAttempt(long lockWaitNanos) {
+        attempts.increment();
+        this.lockWaitNanos.add(lockWaitNanos);
+    }
+
+    void recordConflict() {
+        conflicts.increment();
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordLockTimeout() {
+        lockTimeouts.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(attempts.sum(), conflicts.sum(), retries.sum(), lockTimeouts.sum(), lockWaitNanos.sum());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "acme.transfer.contention.attempts", attempts, "Transfer attempts that acquired their locks");
+        counter(registry, "acme.transfer.contention.conflicts", conflicts,
+            "Attempts that failed on a concurrent modification detected by the database");
+        counter(registry, "acme.transfer.contention.retries", retries, "Conflicts that were retried");
+        counter(registry, "acme.transfer.contention.lock.timeouts", lockTimeouts,
+            "Attempts that gave up waiting for their locks");
+        FunctionCounter.builder("acme.transfer.contention.lock.wait", lockWaitNanos,
+                nanos -> nanos.sum() / (double) TimeUnit.SECONDS.toNanos(1))
+            .description("Total time spent waiting for locks")
+            .baseUnit("seconds")
+            .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, LongAdder adder, String description) {
+        FunctionCounter.builder(name, adder, LongAdder::sum)
+            .description(description)
+            .register(registry);
+    }
+
+    /**
+     * @param attempts      transfer attempts that acquired their locks
+     * @param conflicts     attempts that failed on a concurrent modification detected by the database
+     * @param retries       conflicts that were retried
+     * @param lockTimeouts  attempts that gave up waiting for their locks
+     * @param lockWaitNanos total time spent waiting for locks
+     */
+    public record Snapshot(long attempts, long conflicts, long retries, long lockTimeouts, long lockWaitNanos) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Commits concurrent single transfers together: a worker thread takes up to {@code max-transfers} queued transfers,
+ * waiting at most {@code linger} for the group to fill, and runs them one after the other in one database
+ * transaction, so one commit is paid for the whole group. A caller is answered only after the group committed.
+ * <p>
+ * The persistence context is flushed after every transfer, which bumps the versions it changed, so a later transfer
+ * of the same account in the group is rejected exactly as it would be had the earlier one committed on its own.
+ * When a transfer is rejected the shared transaction can no longer commit: the rejection is final, since the
+ * transfers run in arrival order, and the transfers before it are executed again one by one, each in its own
+ * transaction. The same fallback applies when the group fails on flush or commit.
+ * <p>
+ * A transfer that never made it into a group, because the worker stopped or its caller stopped waiting after
+ * {@code timeout}, is handed back and committed by its caller on its own; one already in a group is answered by the
+ * worker, or fails its caller after the timeout with an outcome the caller has to look up.
+ */
+@Slf4j
+class TransferGroupCommitter implements AutoCloseable {
+
+    private final AccountManagement delegate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionLogProperties.GroupCommit properties;
+    private final BlockingQueue<PendingTransfer> queue;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    private record PendingTransfer(AccountManagement.TransferMoneyToAccountRequest request,
+                                   CompletableFuture<Void> done) {
+    }
+
+    TransferGroupCommitter(AccountManagement delegate, EntityManager entityManager,
+                           PlatformTransactionManager transactionManager,
+                           TransactionLogProperties.GroupCommit properties) {
+        this.delegate = delegate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.worker = new Thread(this::run, "transfer-group-commit");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    void transferMoneyToAccount(AccountManagement.TransferMoneyToAccountRequest request) {
+        PendingTransfer pending = new PendingTransfer(request, new CompletableFuture<>());
+        if (closed || !queue.offer(pending)) {
+            delegate.transferMoneyToAccount(request);
+            return;
+        }
+        if (closed && queue.remove(pending)) {
+            // the worker stopped between the check and the offer
+            delegate.transferMoneyToAccount(request);
+            return;
+        }
+        try {
+            pending.done().get(properties.timeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (CancellationException e) {
+            // handed back by the worker before it ran
+            delegate.transferMoneyToAccount(request);
+        } catch (TimeoutException e) {
+            if (!queue.remove(pending)) {
+                throw new IllegalStateException("The group commit did not finish within " + properties.timeout(), e);
+            }
+            delegate.transferMoneyToAccount(request);
+        } catch (InterruptedException e) {
+            queue.remove(pending);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        worker.join();
+    }
+
+    private void run() {
+        final List<PendingTransfer> group = new ArrayList<>(properties.maxTransfers());
+        try {
+            while (!closed || !queue.isEmpty()) {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                final long deadline = System.nanoTime() + properties.linger().toNanos();
+                while (group.size() < properties.maxTransfers()) {
+                    PendingTransfer next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commit(group);
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // the transfers gathered but not run and those queued after the last poll go back to their callers
+            queue.drainTo(group);
+            if (!group.isEmpty()) {
+                log.warn("Group commit stopped, {} transfers handed back to their callers", group.size());
+            }
+            group.forEach(pending -> pending.done().cancel(false));
+        }
+    }
+
+    private void commit(List<PendingTransfer> group) {
+        final List<PendingTransfer> applied = new ArrayList<>(group.size());
+        boolean committed;
+        try {
+            committed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                for (PendingTransfer pending : group) {
+                    try {
+                        delegate.transferMoneyToAccount(pending.request());
+                    } catch (RuntimeException e) {
+                        pending.done().completeExceptionally(e);
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    entityManager.flush();
+                    applied.add(pending);
+                }
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            log.debug("Group commit of {} transfers failed, executing them one by one", group.size(), e);
+            committed = false;
+        }
+
+        if (committed) {
+            applied.forEach(pending -> pending.done().complete(null));
+            return;
+        }
+        for (PendingTransfer pending : group) {
+            if (pending.done().isDone()) {
+                continue;
+            }
+            try {
+                delegate.transferMoneyToAccount(pending.request());
+                pending.done().complete(null);
+            } catch (RuntimeException e) {
+                pending.done().completeExceptionally(e);
+            }
+        }
+    }
+}
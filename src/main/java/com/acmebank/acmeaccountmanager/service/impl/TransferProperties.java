@@ -0,0 +1,110 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Set;
+
+@ConfigurationProperties(prefix = "acme.transfer")
+record TransferProperties(
+    @DefaultValue("ENTITY") TransferMode mode,
+    @DefaultValue Contention contention,
+    @DefaultValue HotAccounts hotAccounts,
+    @DefaultValue Async async,
+    @DefaultValue Admission admission
+) {
+
+    enum TransferMode {
+        /**
+         * Load both accounts, compute the new balances in Moneta and let Hibernate dirty checking and
+         * {@code @Version} write them back.
+         */
+        ENTITY,
+        /**
+         * Debit with one guarded {@code UPDATE} and credit with an atomic increment, without loading either
+         * account entity. The entity is only read to explain a debit that matched no row.
+         */
+        CONDITIONAL_UPDATE
+    }
+
+    /**
+     * Serializes transfers touching the same account inside this JVM and retries the conflicts that still reach
+     * the database, see {@link ContentionAwareAccountManagement}.
+     *
+     * @param lockStripes    number of locks the account ids are hashed onto, rounded up to a power of two
+     * @param lockTimeout    longest wait for the locks of one attempt before it counts as a conflict
+     * @param maxAttempts    attempts per transfer, including the first one
+     * @param initialBackoff upper bound of the random pause before the first retry, doubled on each further retry
+     * @param maxBackoff     cap of the doubled upper bound
+     */
+    record Contention(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("1024") int lockStripes,
+        @DefaultValue("1s") Duration lockTimeout,
+        @DefaultValue("3") int maxAttempts,
+        @DefaultValue("5ms") Duration initialBackoff,
+        @DefaultValue("100ms") Duration maxBackoff
+    ) {
+    }
+
+    /**
+     * Accounts receiving many concurrent credits, see {@link HotAccountBalanceSlots}.
+     *
+     * @param ids   accounts whose credits are spread over slots, none by default
+     * @param slots slot rows per account, concurrent credits to one account scale up to about this number
+     */
+    record HotAccounts(
+        @DefaultValue Set<String> ids,
+        @DefaultValue("16") int slots
+    ) {
+    }
+
+    /**
+     * Background execution of submitted transfers, see {@link QueuedAsyncTransfers}.
+     *
+     * @param queueCapacity transfers waiting for a worker, beyond it submissions are rejected
+     * @param workers       threads executing the queued transfers
+     * @param batchSize     most transfers a worker executes in one transaction
+     * @param timeToLive    how long the outcome of a transfer can be looked up once it is known
+     * @param maxWait       longest wait of a status request for a pending transfer
+     */
+    record Async(
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("2") int workers,
+        @DefaultValue("50") int batchSize,
+        @DefaultValue("10m") Duration timeToLive,
+        @DefaultValue("30s") Duration maxWait
+    ) {
+    }
+
+    /**
+     * Rejects transfers early under overload, see {@link AdmissionControlledAccountManagement}.
+     *
+     * @param initialLimit         concurrent transfers admitted at startup, the default size of the connection pool
+     * @param minLimit             lowest concurrency the limit can shrink to
+     * @param maxLimit             highest concurrency the limit can grow to
+     * @param window               period over which connection waiters are averaged before each update of the limit
+     * @param maxConnectionWaiters threads waiting for a connection tolerated on average before the limit shrinks
+     * @param backoffRatio         factor applied to the limit when connections are queued for or a transfer times out
+     * @param retryAfter           retry delay suggested to clients rejected by the concurrency limit
+     * @param maxRetryAfter        cap of the retry delay, doubled while more transfers are rejected than completed
+     * @param userRate             sustained transfers per second of one user
+     * @param userBurst            transfers one user can submit at once after being idle, a batch costing one per
+     *                             transfer
+     */
+    record Admission(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("1s") Duration window,
+        @DefaultValue("1") double maxConnectionWaiters,
+        @DefaultValue("0.9") double backoffRatio,
+        @DefaultValue("1s") Duration retryAfter,
+        @DefaultValue("30s") Duration maxRetryAfter,
+        @DefaultValue("50") double userRate,
+        @DefaultValue("100") int userBurst
+    ) {
+    }
+}
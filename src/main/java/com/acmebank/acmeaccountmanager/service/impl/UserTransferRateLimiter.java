@@ -0,0 +1,80 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per user, implemented as the generic cell rate algorithm: the state of a bucket is the single time
+ * at which it would be full again, advanced with a compare-and-set by every admitted transfer. A bucket idle for
+ * longer than the burst takes is full, so it is evicted and recreated on the next transfer without any loss.
+ */
+class UserTransferRateLimiter implements MeterBinder {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long emissionIntervalNanos;
+    private final int burst;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoTime;
+    private final Cache<UUID, AtomicLong> theoreticalArrivals;
+    private final LongAdder rejections = new LongAdder();
+
+    UserTransferRateLimiter(TransferProperties.Admission properties, LongSupplier nanoTime) {
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / properties.userRate()));
+        this.burst = properties.userBurst();
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.nanoTime = nanoTime;
+        this.theoreticalArrivals = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofNanos(burstToleranceNanos))
+            .build();
+    }
+
+    /**
+     * @param transfers tokens to take, capped at the burst so that a large batch is not rejected forever
+     * @return zero when admitted, otherwise how long until the tokens are available
+     */
+    Duration tryAcquire(UUID userId, int transfers) {
+        final AtomicLong theoreticalArrival = theoreticalArrivals.get(userId, id -> new AtomicLong(EMPTY));
+        final long increment = emissionIntervalNanos * Math.min(transfers, burst);
+        final long now = nanoTime.getAsLong();
+        while (true) {
+            final long current = theoreticalArrival.get();
+            final long next = (current == EMPTY ? now : Math.max(current, now)) + increment;
+            final long wait = next - now - burstToleranceNanos;
+            if (wait > 0) {
+                rejections.increment();
+                return Duration.ofNanos(wait);
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    /**
+     * Gives back the tokens taken by {@link #tryAcquire} for transfers that were not executed after all.
+     */
+    void release(UUID userId, int transfers) {
+        final AtomicLong theoreticalArrival = theoreticalArrivals.getIfPresent(userId);
+        if (theoreticalArrival != null) {
+            theoreticalArrival.addAndGet(-emissionIntervalNanos * Math.min(transfers, burst));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("acme.transfer.admission.rate.rejections", rejections, LongAdder::sum)
+            .description("Transfers rejected because their user exceeded its rate")
+            .register(registry);
+    }
+}
@@ -0,0 +1,2 @@
+CREATE INDEX idx_transaction_log_user_cursor
+    ON transaction_log (operating_account_user_id, create_date_time_utc DESC, id DESC);
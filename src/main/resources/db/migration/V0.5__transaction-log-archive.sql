@@ -0,0 +1,19 @@
+CREATE INDEX idx_transaction_log_create_time
+    ON transaction_log (create_date_time_utc);
+
+CREATE TABLE transaction_log_archive
+(
+    id                        UUID         NOT NULL,
+    operating_account_id      VARCHAR(255) NOT NULL,
+    operation                 VARCHAR(255) NOT NULL,
+    operating_account_user_id UUID         NOT NULL,
+    reference_code            VARCHAR(255) NOT NULL,
+    counterpart_account_id    VARCHAR(255),
+    currency_code             VARCHAR(255),
+    money_amount              DECIMAL,
+    create_date_time_utc      TIMESTAMP    NOT NULL,
+    CONSTRAINT pk_transaction_log_archive PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_transaction_log_archive_user_cursor
+    ON transaction_log_archive (operating_account_user_id, create_date_time_utc DESC, id DESC);
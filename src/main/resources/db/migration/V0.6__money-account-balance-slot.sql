@@ -0,0 +1,7 @@
+CREATE TABLE money_account_balance_slot
+(
+    account_id     VARCHAR(255)   NOT NULL,
+    slot           INT            NOT NULL,
+    balance_amount DECIMAL(22, 2) NOT NULL,
+    CONSTRAINT pk_money_account_balance_slot PRIMARY KEY (account_id, slot)
+);
@@ -0,0 +1,90 @@
+package com.acmebank.acmeaccountmanager;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+/**
+ * Time from starting the application to its first successful {@code GET /accounts}, the moment a new instance can
+ * take traffic, with and without the {@code fast-start} profile. The application runs on its own in-memory database,
+ * the schema of the shared test database is dropped when a context closes.
+ * <p>
+ * The profiles are set on the command line, which replaces the {@code test} profile surefire activates, so that
+ * both runs start with the settings of a deployed instance. A first, unmeasured start loads the classes both share.
+ */
+@Slf4j
+class StartupTimeIntegrationTest {
+
+    // generous, catches a startup that blocks rather than a slow build agent
+    private static final Duration STARTUP_BUDGET = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private record Startup(Duration timeToFirstResponse, List<String> activeProfiles, int accountsStatus,
+                           int apiDocsStatus) {
+    }
+
+    private HttpResponse<String> get(int port, String path) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("userId", UUID.randomUUID().toString())
+            .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * @param profile the only active profile, empty for none
+     */
+    private Startup start(String profile) throws Exception {
+        final long startNanos = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AcmeAccountManagerApplication.class)
+            .run("--spring.profiles.active=" + profile,
+                "--acme.reference-code.node-id=0",
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:acme-startup-test-" + UUID.randomUUID()
+                    + ";DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH")) {
+            final int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            final HttpResponse<String> accounts = get(port, "/accounts");
+            final Duration timeToFirstResponse = Duration.ofNanos(System.nanoTime() - startNanos);
+            // deferred, not disabled
+            final HttpResponse<String> apiDocs = get(port, "/v3/api-docs");
+            return new Startup(timeToFirstResponse, List.of(context.getEnvironment().getActiveProfiles()),
+                accounts.statusCode(), apiDocs.statusCode());
+        }
+    }
+
+    @Test
+    void shouldServeFirstAccountsRequestWithinBudget() throws Exception {
+        // given
+        start("");
+
+        // when
+        final Startup regular = start("");
+        final Startup fastStart = start("fast-start");
+
+        // then
+        log.info("Time to first GET /accounts: {} ms without profile, {} ms with fast-start, {} ms saved",
+            regular.timeToFirstResponse().toMillis(), fastStart.timeToFirstResponse().toMillis(),
+            regular.timeToFirstResponse().minus(fastStart.timeToFirstResponse()).toMillis());
+        assertAll(
+            () -> assertThat(regular.activeProfiles()).isEmpty(),
+            () -> assertThat(fastStart.activeProfiles()).containsExactly("fast-start"),
+            () -> assertThat(regular.accountsStatus()).isEqualTo(200),
+            () -> assertThat(fastStart.accountsStatus()).isEqualTo(200),
+            () -> assertThat(regular.timeToFirstResponse()).isLessThan(STARTUP_BUDGET),
+            () -> assertThat(fastStart.timeToFirstResponse()).isLessThan(STARTUP_BUDGET),
+            () -> assertThat(regular.apiDocsStatus()).isEqualTo(200),
+            () -> assertThat(fastStart.apiDocsStatus()).isEqualTo(200)
+        );
+    }
+}
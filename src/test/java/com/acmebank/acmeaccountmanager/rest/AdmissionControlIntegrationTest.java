@@ -0,0 +1,145 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.acmebank.acmeaccountmanager.service.impl.MoneyAccountEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "acme.transfer.admission.enabled=true",
+    "acme.transfer.admission.user-rate=0.1",
+    "acme.transfer.admission.user-burst=2"
+})
+@AutoConfigureMockMvc
+class AdmissionControlIntegrationTest {
+
+    final static String HEADER_USER_ID = "userId";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private CrudRepository<MoneyAccountEntity, String> moneyAccountRepositoryRaw;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ResultActions transfer(UUID userId, String accountId, int version, String recipientAccountId)
+        throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HEADER_USER_ID, userId)
+            .content("""
+                    {
+                        "operatingAccountVersion": %d,
+                        "recipientAccountId": "%s",
+                        "currencyCode": "HKD",
+                        "amount": 1
+                    }
+                """.formatted(version, recipientAccountId)));
+    }
+
+    @Test
+    void shouldRejectTransfersBeyondUserRateWithRetryAfter() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId1, Money.of(BigDecimal.valueOf(1_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId2, Money.of(BigDecimal.ZERO, "HKD"));
+        transfer(userId, accountId1, 1, accountId2).andExpect(status().isNoContent());
+        transfer(userId, accountId1, 2, accountId2).andExpect(status().isNoContent());
+
+        // when
+        transfer(userId, accountId1, 3, accountId2)
+
+            // then
+            .andExpectAll(status().isTooManyRequests(),
+                header().string(HttpHeaders.RETRY_AFTER, "10"),
+                jsonPath("$.error").value("Too many transfers, retry later."));
+        // the other users are not limited
+        transfer(UUID.randomUUID(), accountId1, 3, accountId2).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldKeepAsyncTransfersOfRateLimitedUserPendingWithoutHoldingOthersBack() throws Exception {
+        // given
+        final UUID limitedUserId = UUID.randomUUID();
+        final UUID otherUserId = UUID.randomUUID();
+        final String limitedAccountId = "12345678" + UUID.randomUUID();
+        final String otherAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, limitedUserId, limitedAccountId,
+            Money.of(BigDecimal.valueOf(1_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, otherUserId, otherAccountId,
+            Money.of(BigDecimal.valueOf(1_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, UUID.randomUUID(), recipientAccountId,
+            Money.of(BigDecimal.ZERO, "HKD"));
+        transfer(limitedUserId, limitedAccountId, 1, recipientAccountId).andExpect(status().isNoContent());
+        transfer(limitedUserId, limitedAccountId, 2, recipientAccountId).andExpect(status().isNoContent());
+
+        // when
+        final String limitedLocation = submitTransfer(limitedUserId, limitedAccountId, 3, recipientAccountId);
+        final String otherLocation = submitTransfer(otherUserId, otherAccountId, 1, recipientAccountId);
+        final JsonNode other = getTransfer(otherUserId, otherLocation, "PT10S");
+        final JsonNode limited = getTransfer(limitedUserId, limitedLocation, "PT0S");
+
+        // then
+        assertAll(
+            () -> assertThat(other.get("status").asText()).isEqualTo("COMPLETED"),
+            // waits for its user's rate instead of failing
+            () -> assertThat(limited.get("status").asText()).isEqualTo("PENDING")
+        );
+    }
+
+    private String submitTransfer(UUID userId, String accountId, int version, String recipientAccountId)
+        throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer:async", accountId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, userId)
+                .content("""
+                        {
+                            "operatingAccountVersion": %d,
+                            "recipientAccountId": "%s",
+                            "currencyCode": "HKD",
+                            "amount": 1
+                        }
+                    """.formatted(version, recipientAccountId)))
+            .andExpect(status().isAccepted())
+            .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+    }
+
+    private JsonNode getTransfer(UUID userId, String location, String wait) throws Exception {
+        MvcResult asyncResult = mvc.perform(MockMvcRequestBuilders.get(location)
+                .header(HEADER_USER_ID, userId)
+                .param("wait", wait))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,117 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.acmebank.acmeaccountmanager.service.impl.MoneyAccountEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class AsyncTransferIntegrationTest {
+
+    final static String HEADER_USER_ID = "userId";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CrudRepository<MoneyAccountEntity, String> moneyAccountRepositoryRaw;
+
+    MvcResult submitTransfer(UUID userId, String operatingAccountId, String recipientAccountId, int amount)
+        throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer:async", operatingAccountId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, userId)
+                .content("""
+                        {
+                            "operatingAccountVersion": 1,
+                            "recipientAccountId": "%s",
+                            "currencyCode": "HKD",
+                            "amount": %d
+                        }
+                    """.formatted(recipientAccountId, amount)))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.status").value("PENDING"))
+            .andReturn();
+    }
+
+    JsonNode awaitTransfer(UUID userId, String location) throws Exception {
+        MvcResult asyncResult = mvc.perform(MockMvcRequestBuilders.get(location)
+                .header(HEADER_USER_ID, userId)
+                .param("wait", "PT10S"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void shouldExecuteSubmittedTransfersAndReportTheirOutcome() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, userId, operatingAccountId, Money.of(BigDecimal.valueOf(100), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, userId, recipientAccountId, Money.of(BigDecimal.ZERO, "HKD"));
+
+        // when
+        final String completedLocation = submitTransfer(userId, operatingAccountId, recipientAccountId, 60)
+            .getResponse().getHeader(HttpHeaders.LOCATION);
+        final JsonNode completed = awaitTransfer(userId, completedLocation);
+        // the recipient account is at version 2 after the first transfer
+        final String staleLocation = submitTransfer(userId, recipientAccountId, operatingAccountId, 10)
+            .getResponse().getHeader(HttpHeaders.LOCATION);
+        final JsonNode stale = awaitTransfer(userId, staleLocation);
+
+        // then
+        assertAll(
+            () -> assertThat(completedLocation).startsWith("/transfers/"),
+            () -> assertThat(completed.get("status").asText()).isEqualTo("COMPLETED"),
+            () -> assertThat(completed.get("referenceCode").asText()).startsWith("TRANSFER_"),
+            () -> assertThat(stale.get("status").asText()).isEqualTo("CONFLICT"),
+            () -> assertThat(moneyAccountRepositoryRaw.findById(recipientAccountId)).get()
+                .extracting(MoneyAccountEntity::getBalanceAmount)
+                .satisfies(balance -> assertThat(balance).isEqualByComparingTo("60"))
+        );
+    }
+
+    @Test
+    void shouldNotRevealTransfersOfOtherUsers() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String location = submitTransfer(userId, "12345678" + UUID.randomUUID(), "88888888", 1)
+            .getResponse().getHeader(HttpHeaders.LOCATION);
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.get(location)
+                .header(HEADER_USER_ID, UUID.randomUUID()))
+
+            // then
+            .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,159 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.impl.MoneyAccountEntity;
+import com.acmebank.acmeaccountmanager.service.impl.TransactionLogEntity;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.hamcrest.Matchers;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class BinaryFormatIntegrationTest {
+
+    final static String HEADER_USER_ID = "userId";
+    final static MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CrudRepository<MoneyAccountEntity, String> moneyAccountRepositoryRaw;
+
+    @Autowired
+    private CrudRepository<TransactionLogEntity, UUID> transactionLogRepositoryRaw;
+
+    byte[] get(String path, UUID userId, MediaType mediaType) throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.get(path)
+                .header(HEADER_USER_ID, userId)
+                .accept(mediaType))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Test
+    void shouldServeTransactionLogsAsCborWithTheSchemaOfJson() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        transactionLogRepositoryRaw.save(TransactionLogEntity.builder()
+            .operatingAccountId("12345678")
+            .operation("DEDUCT")
+            .operatingAccountUserId(userId)
+            .referenceCode("TRANSFER_1")
+            .counterpartAccountId("88888888")
+            .currencyCode("HKD")
+            .moneyAmount(new BigDecimal("10.50"))
+            .createDateTimeUtc(Instant.parse("2024-01-01T00:00:00Z"))
+            .build());
+
+        // when
+        final String contentType = mvc.perform(MockMvcRequestBuilders.get("/accounts/transaction-log")
+                .header(HEADER_USER_ID, userId)
+                .accept(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getHeader(HttpHeaders.CONTENT_TYPE);
+        final byte[] cbor = get("/accounts/transaction-log", userId, MediaType.APPLICATION_CBOR);
+        final byte[] json = get("/accounts/transaction-log", userId, MediaType.APPLICATION_JSON);
+
+        // then
+        final CBORMapper cborMapper = new CBORMapper();
+        cborMapper.findAndRegisterModules();
+        final JsonNode cborTree = cborMapper.readTree(cbor);
+        final TypeReference<List<TransactionLog>> transactionLogs = new TypeReference<>() {
+        };
+        assertAll(
+            () -> assertThat(contentType).isEqualTo(MediaType.APPLICATION_CBOR_VALUE),
+            () -> assertThat(cborTree.get(0).get("createDateTimeUtc").asText()).isEqualTo("2024-01-01T00:00:00Z"),
+            () -> assertThat(cborMapper.readValue(cbor, transactionLogs))
+                .isEqualTo(objectMapper.readValue(json, transactionLogs)),
+            () -> assertThat(cbor.length).isLessThan(json.length)
+        );
+    }
+
+    @Test
+    void shouldServeAccountsAsSmile() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String accountId = "12345678" + UUID.randomUUID();
+        moneyAccountRepositoryRaw.save(MoneyAccountEntity.builder()
+            .id(accountId)
+            .version(1)
+            .primaryOwnerId(userId)
+            .currencyCode("HKD")
+            .balanceAmount(Money.of(BigDecimal.valueOf(100), "HKD").getNumberStripped())
+            .build());
+
+        // when
+        final byte[] smile = get("/accounts", userId, APPLICATION_SMILE);
+
+        // then
+        final List<MoneyAccountController.MoneyAccountVo> accounts = new SmileMapper().readValue(smile,
+            new TypeReference<>() {
+            });
+        assertAll(
+            () -> assertThat(accounts).extracting(MoneyAccountController.MoneyAccountVo::id)
+                .containsExactly(accountId),
+            () -> assertThat(accounts.get(0).balanceAmount()).isEqualByComparingTo("100")
+        );
+    }
+
+    @Test
+    void shouldVaryAccountsAndTheirRevalidationByAccept() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String accountId = "12345678" + UUID.randomUUID();
+        moneyAccountRepositoryRaw.save(MoneyAccountEntity.builder()
+            .id(accountId)
+            .version(1)
+            .primaryOwnerId(userId)
+            .currencyCode("HKD")
+            .balanceAmount(BigDecimal.TEN)
+            .build());
+        final String eTag = mvc.perform(MockMvcRequestBuilders.get("/accounts/{account-id}", accountId)
+                .header(HEADER_USER_ID, userId)
+                .accept(APPLICATION_SMILE))
+            .andExpectAll(status().isOk(),
+                header().string(HttpHeaders.VARY, Matchers.containsString(HttpHeaders.ACCEPT)))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.get("/accounts/{account-id}", accountId)
+                .header(HEADER_USER_ID, userId)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .accept(MediaType.APPLICATION_JSON))
+
+            // then
+            .andExpectAll(status().isNotModified(),
+                header().string(HttpHeaders.VARY, Matchers.containsString(HttpHeaders.ACCEPT)));
+        mvc.perform(MockMvcRequestBuilders.get("/accounts")
+                .header(HEADER_USER_ID, userId)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpectAll(status().isOk(),
+                header().string(HttpHeaders.VARY, Matchers.containsString(HttpHeaders.ACCEPT)));
+    }
+}
@@ -0,0 +1,102 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.acmebank.acmeaccountmanager.service.impl.MoneyAccountEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class MetricsIntegrationTest {
+
+    final static String HEADER_USER_ID = "userId";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CrudRepository<MoneyAccountEntity, String> moneyAccountRepositoryRaw;
+
+    private long transferCount() {
+        return meterRegistry.find("acme.account.management")
+            .tag("method", "transferMoneyToAccount")
+            .timers().stream()
+            .mapToLong(Timer::count)
+            .sum();
+    }
+
+    @Test
+    void shouldRecordTransferLatencyAndAmount() throws Exception {
+        // given
+        final UUID accountOwnerUserId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000), "EUR"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2, Money.of(BigDecimal.ZERO, "EUR"));
+        final long transfersBefore = transferCount();
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, accountOwnerUserId)
+                .content("""
+                        {
+                            "operatingAccountVersion": 1,
+                            "recipientAccountId": "%s",
+                            "currencyCode": "EUR",
+                            "amount": 250
+                        }
+                    """.formatted(accountId2))
+            )
+            .andExpect(status().isNoContent());
+
+        // then
+        assertAll(
+            () -> assertThat(transferCount()).isEqualTo(transfersBefore + 1),
+            () -> assertThat(meterRegistry.get("acme.transfer.amount").tag("currency", "EUR").summary().max())
+                .isEqualTo(250.0),
+            () -> assertThat(meterRegistry.find("hibernate.statements").functionCounter()).isNotNull(),
+            () -> assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull()
+        );
+    }
+
+    @Test
+    void shouldCountErrorResponsesByStatus() throws Exception {
+        // given
+        final double notFoundBefore = meterRegistry.counter("acme.api.errors",
+            "status", "404", "exception", "EntityNotFoundException").count();
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.get("/accounts/{account-id}", "does-not-exist")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, UUID.randomUUID())
+            )
+            .andExpect(status().isNotFound());
+
+        // then
+        assertThat(meterRegistry.get("acme.api.errors")
+            .tags("status", "404", "exception", "EntityNotFoundException")
+            .counter().count())
+            .isEqualTo(notFoundBefore + 1);
+    }
+}
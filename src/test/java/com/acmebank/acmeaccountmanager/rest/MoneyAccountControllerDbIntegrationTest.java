@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -19,7 +20,10 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import java.math.BigDecimal;
 import java.util.UUID;
 
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -40,23 +44,12 @@ class MoneyAccountControllerDbIntegrationTest {
         moneyAccountRepositoryRaw.deleteAll();
     }
 
-    void setupAccount(UUID userId, String accountId, Money balance) {
-        MoneyAccountEntity accountEntity = MoneyAccountEntity.builder()
-            .id(accountId)
-            .version(1)
-            .primaryOwnerId(userId)
-            .currencyCode(balance.getCurrency().getCurrencyCode())
-            .balanceAmount(balance.getNumberStripped())
-            .build();
-        moneyAccountRepositoryRaw.save(accountEntity);
-    }
-
     @Test
     void shouldGetSingleMoneyAccount() throws Exception {
         // given
         final UUID userId = UUID.randomUUID();
         final String accountId = "12345678";
-        setupAccount(userId, accountId, Money.of(BigDecimal.valueOf(1_000_000.01), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId, Money.of(BigDecimal.valueOf(1_000_000.01), "HKD"));
 
         // when
         mvc.perform(MockMvcRequestBuilders.get("/accounts/{account-id}", accountId)
@@ -80,8 +73,8 @@ class MoneyAccountControllerDbIntegrationTest {
         final UUID userId = UUID.randomUUID();
         final String accountId1 = "88888888" + UUID.randomUUID();
         final String accountId2 = "12345678" + UUID.randomUUID();
-        setupAccount(userId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(userId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
 
         // when
         mvc.perform(MockMvcRequestBuilders.get("/accounts")
@@ -108,6 +101,93 @@ class MoneyAccountControllerDbIntegrationTest {
             );
     }
 
+    @Test
+    void shouldAnswer304NotModifiedUntilAccountChanges() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId1, Money.of(BigDecimal.valueOf(1_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId2, Money.of(BigDecimal.ZERO, "HKD"));
+        final String accountETag = mvc.perform(MockMvcRequestBuilders.get("/accounts/{account-id}", accountId1)
+                .header(HEADER_USER_ID, userId))
+            .andExpectAll(status().isOk(),
+                header().string(HttpHeaders.ETAG, "W/\"1\""),
+                header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        final String accountsETag = mvc.perform(MockMvcRequestBuilders.get("/accounts")
+                .header(HEADER_USER_ID, userId))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.get("/accounts/{account-id}", accountId1)
+                .header(HEADER_USER_ID, userId)
+                .header(HttpHeaders.IF_NONE_MATCH, accountETag))
+            .andExpectAll(status().isNotModified(),
+                header().string(HttpHeaders.ETAG, accountETag),
+                content().string(""));
+        mvc.perform(MockMvcRequestBuilders.get("/accounts")
+                .header(HEADER_USER_ID, userId)
+                .header(HttpHeaders.IF_NONE_MATCH, accountsETag))
+            .andExpect(status().isNotModified());
+        mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, userId)
+                .content("""
+                        {
+                            "operatingAccountVersion": 1,
+                            "recipientAccountId": "%s",
+                            "currencyCode": "HKD",
+                            "amount": 10
+                        }
+                    """.formatted(accountId2)))
+            .andExpect(status().isNoContent());
+
+        // then
+        mvc.perform(MockMvcRequestBuilders.get("/accounts/{account-id}", accountId1)
+                .header(HEADER_USER_ID, userId)
+                .header(HttpHeaders.IF_NONE_MATCH, accountETag))
+            .andExpectAll(status().isOk(),
+                header().string(HttpHeaders.ETAG, "W/\"2\""),
+                jsonPath("$.balanceAmount").value(990));
+        mvc.perform(MockMvcRequestBuilders.get("/accounts")
+                .header(HEADER_USER_ID, userId)
+                .header(HttpHeaders.IF_NONE_MATCH, accountsETag))
+            .andExpectAll(status().isOk(),
+                header().string(HttpHeaders.ETAG, Matchers.not(accountsETag)));
+    }
+
+    @Test
+    void shouldGetMoneyAccountsByIdWithStatusPerAccount() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String ownAccountId = "12345678" + UUID.randomUUID();
+        final String otherUsersAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, userId, ownAccountId, Money.of(BigDecimal.valueOf(1_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, UUID.randomUUID(), otherUsersAccountId,
+            Money.of(BigDecimal.valueOf(1_000), "HKD"));
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.get("/accounts")
+                .param("ids", otherUsersAccountId + ",does-not-exist," + ownAccountId + "," + ownAccountId)
+                .header(HEADER_USER_ID, userId)
+            )
+
+            // then
+            .andExpectAll(status().isOk(),
+                jsonPath("$", hasSize(3)),
+                jsonPath("$[0].accountId").value(otherUsersAccountId),
+                jsonPath("$[0].status").value("NOT_AUTHORIZED"),
+                jsonPath("$[0].error").value("You are not authorized!"),
+                jsonPath("$[0].account").doesNotExist(),
+                jsonPath("$[1].status").value("NOT_FOUND"),
+                jsonPath("$[2].status").value("FOUND"),
+                jsonPath("$[2].account.balanceAmount").value(1_000),
+                jsonPath("$[2].error").doesNotExist()
+            );
+    }
+
     @Test
     void shouldReturn404NotFoundWhenGetAccountGivenAccountNotExist() throws Exception {
         // given
@@ -132,7 +212,8 @@ class MoneyAccountControllerDbIntegrationTest {
         final UUID accountOwnerUserId = UUID.randomUUID();
         final UUID nonAuthorizedUserId = UUID.randomUUID();
         final String accountId = "12345678" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId, Money.of(BigDecimal.valueOf(1_000_000.01), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId,
+            Money.of(BigDecimal.valueOf(1_000_000.01), "HKD"));
 
         // when
         mvc.perform(MockMvcRequestBuilders.get("/accounts/{account-id}", accountId)
@@ -175,8 +256,10 @@ class MoneyAccountControllerDbIntegrationTest {
         final UUID accountOwnerUserId = UUID.randomUUID();
         final String accountId1 = "12345678" + UUID.randomUUID();
         final String accountId2 = "88888888" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(accountOwnerUserId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
 
         // when
         mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
@@ -220,8 +303,10 @@ class MoneyAccountControllerDbIntegrationTest {
         final UUID accountOwnerUserId = UUID.randomUUID();
         final String accountId1 = "12345678" + UUID.randomUUID();
         final String accountId2 = "88888888" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(accountOwnerUserId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
 
         // when
         mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
@@ -248,8 +333,10 @@ class MoneyAccountControllerDbIntegrationTest {
         final UUID accountOwnerUserId = UUID.randomUUID();
         final String accountId1 = "12345678" + UUID.randomUUID();
         final String accountId2 = "88888888" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(accountOwnerUserId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
 
         // when
         mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
@@ -270,14 +357,46 @@ class MoneyAccountControllerDbIntegrationTest {
                 jsonPath("$.error").value("Account[%s] does not have enough balance!".formatted(accountId1)));
     }
 
+    @Test
+    void shouldReturn422UnprocessableEntityWhenTransferMoneyToAnotherAccountWithOutOfRangeAmount() throws Exception {
+        // given
+        final UUID accountOwnerUserId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, accountOwnerUserId)
+                .content("""
+                        {
+                            "operatingAccountVersion": 1,
+                            "recipientAccountId": "%s",
+                            "currencyCode": "HKD",
+                            "amount": 1e20
+                        }
+                    """.formatted(accountId2))
+            )
+
+            // then
+            .andExpectAll(status().isUnprocessableEntity(),
+                jsonPath("$.error").value("HKD 100000000000000000000 is out of range"));
+    }
+
     @Test
     void shouldReturn409ConflictWhenTransferMoneyToAnotherAccountGivenStaledOperatingAccountData() throws Exception {
         // given
         final UUID accountOwnerUserId = UUID.randomUUID();
         final String accountId1 = "12345678" + UUID.randomUUID();
         final String accountId2 = "88888888" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(accountOwnerUserId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
         // 1st update
         mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
             .contentType(MediaType.APPLICATION_JSON)
@@ -318,8 +437,10 @@ class MoneyAccountControllerDbIntegrationTest {
         final UUID anotherAccountOwnerUserId = UUID.randomUUID();
         final String accountId = "12345678" + UUID.randomUUID();
         final String anotherAccountId = "88888888" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(anotherAccountOwnerUserId, anotherAccountId, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, anotherAccountOwnerUserId, anotherAccountId,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
 
         // when
         mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId)
@@ -346,8 +467,10 @@ class MoneyAccountControllerDbIntegrationTest {
         final UUID accountOwnerUserId = UUID.randomUUID();
         final String accountId1 = "12345678" + UUID.randomUUID();
         final String accountId2 = "88888888" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(accountOwnerUserId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
         mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
             .contentType(MediaType.APPLICATION_JSON)
             .header(HEADER_USER_ID, accountOwnerUserId)
@@ -376,4 +499,212 @@ class MoneyAccountControllerDbIntegrationTest {
             );
 
     }
+
+    @Test
+    void shouldPageThroughTransactionLogsByCursor() throws Exception {
+        // given
+        final UUID accountOwnerUserId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        for (int version = 1; version <= 3; version++) {
+            mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, accountOwnerUserId)
+                .content("""
+                        {
+                            "operatingAccountVersion": %d,
+                            "recipientAccountId": "%s",
+                            "currencyCode": "HKD",
+                            "amount": 10000
+                        }
+                    """.formatted(version, accountId2))
+            ).andExpectAll(status().isNoContent());
+        }
+
+        // when
+        String nextCursor = mvc.perform(MockMvcRequestBuilders.get("/accounts/transaction-log")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, accountOwnerUserId)
+                .param("limit", "4")
+            )
+
+            // then
+            .andExpectAll(status().isOk(),
+                jsonPath("$", hasSize(4)),
+                header().exists(MoneyAccountController.HEADER_NEXT_CURSOR)
+            )
+            .andReturn().getResponse().getHeader(MoneyAccountController.HEADER_NEXT_CURSOR);
+
+        mvc.perform(MockMvcRequestBuilders.get("/accounts/transaction-log")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, accountOwnerUserId)
+                .param("limit", "4")
+                .param("cursor", nextCursor)
+            )
+            .andExpectAll(status().isOk(),
+                jsonPath("$", hasSize(2)),
+                jsonPath("$[1].operation").value("DEDUCT"),
+                header().doesNotExist(MoneyAccountController.HEADER_NEXT_CURSOR)
+            );
+    }
+
+    @Test
+    void shouldReturn400BadRequestWhenGetTransactionLogsGivenInvalidCursor() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/accounts/transaction-log")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, UUID.randomUUID())
+                .param("cursor", "not-a-cursor")
+            )
+            .andExpectAll(status().isBadRequest(),
+                jsonPath("$.error").value("Cursor[not-a-cursor] is not valid!"));
+    }
+
+    @Test
+    void shouldReturn400BadRequestWhenGetTransactionLogsGivenTooLargePageSize() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/accounts/transaction-log")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, UUID.randomUUID())
+                .param("limit", "1001")
+            )
+            .andExpectAll(status().isBadRequest(),
+                jsonPath("$.error").value(Matchers.endsWith("must be less than or equal to 1000")));
+    }
+
+    @Test
+    void shouldTransferMoneyToManyAccountsInOneBatch() throws Exception {
+        // given
+        final UUID accountOwnerUserId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        final String accountId3 = "00000000" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId3,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfers:batch", accountId1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, accountOwnerUserId)
+                .content("""
+                        {
+                            "operatingAccountVersion": 1,
+                            "mode": "ALL_OR_NOTHING",
+                            "transfers": [
+                                { "recipientAccountId": "%s", "currencyCode": "HKD", "amount": 10000 },
+                                { "recipientAccountId": "%s", "currencyCode": "HKD", "amount": 20000 },
+                                { "recipientAccountId": "%s", "currencyCode": "HKD", "amount": 30000 }
+                            ]
+                        }
+                    """.formatted(accountId2, accountId3, accountId2))
+            )
+
+            // then
+            .andExpectAll(status().isOk(),
+                jsonPath("$", hasSize(3)),
+                jsonPath("$[*].status", Matchers.everyItem(Matchers.equalTo("COMPLETED"))),
+                jsonPath("$[0].referenceCode").value(Matchers.startsWith("TRANSFER_"))
+            );
+
+        mvc.perform(MockMvcRequestBuilders.get("/accounts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HEADER_USER_ID, accountOwnerUserId)
+        ).andExpectAll(status().isOk(),
+            jsonPath("$", hasSize(3)),
+            jsonPath("$[0].id").value(Matchers.startsWith("00000000")),
+            jsonPath("$[0].balanceAmount").value(1_020_000),
+            jsonPath("$[1].id").value(Matchers.startsWith("12345678")),
+            jsonPath("$[1].version").value(2),
+            jsonPath("$[1].balanceAmount").value(940_000),
+            jsonPath("$[2].id").value(Matchers.startsWith("88888888")),
+            jsonPath("$[2].balanceAmount").value(1_040_000)
+        );
+    }
+
+    @Test
+    void shouldRejectWholeBatchWhenOneTransferFailsGivenAllOrNothingMode() throws Exception {
+        // given
+        final UUID accountOwnerUserId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfers:batch", accountId1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, accountOwnerUserId)
+                .content("""
+                        {
+                            "operatingAccountVersion": 1,
+                            "mode": "ALL_OR_NOTHING",
+                            "transfers": [
+                                { "recipientAccountId": "%s", "currencyCode": "HKD", "amount": 10000 },
+                                { "recipientAccountId": "%s", "currencyCode": "HKD", "amount": 990000.01 }
+                            ]
+                        }
+                    """.formatted(accountId2, accountId2))
+            )
+
+            // then
+            .andExpectAll(status().isUnprocessableEntity(),
+                jsonPath("$.error").value("Account[%s] does not have enough balance!".formatted(accountId1)));
+
+        mvc.perform(MockMvcRequestBuilders.get("/accounts/{account-id}", accountId1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HEADER_USER_ID, accountOwnerUserId)
+        ).andExpectAll(status().isOk(),
+            jsonPath("$.version").value(1),
+            jsonPath("$.balanceAmount").value(1_000_000)
+        );
+    }
+
+    @Test
+    void shouldReportRejectedTransfersAndCommitTheOthersGivenPerItemMode() throws Exception {
+        // given
+        final UUID accountOwnerUserId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        final String nonExistingAccountId = UUID.randomUUID().toString();
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "USD"));
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfers:batch", accountId1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, accountOwnerUserId)
+                .content("""
+                        {
+                            "operatingAccountVersion": 1,
+                            "mode": "PER_ITEM",
+                            "transfers": [
+                                { "recipientAccountId": "%s", "currencyCode": "HKD", "amount": 10000 },
+                                { "recipientAccountId": "%s", "currencyCode": "USD", "amount": 10000 },
+                                { "recipientAccountId": "%s", "currencyCode": "HKD", "amount": 10000 }
+                            ]
+                        }
+                    """.formatted(nonExistingAccountId, accountId2, accountId1))
+            )
+
+            // then
+            .andExpectAll(status().isOk(),
+                jsonPath("$", hasSize(3)),
+                jsonPath("$[0].status").value("NOT_FOUND"),
+                jsonPath("$[0].error").value(Matchers.matchesRegex("MoneyAccount.* does not exist!")),
+                jsonPath("$[1].status").value("UNPROCESSABLE"),
+                jsonPath("$[1].error").value(Matchers.startsWith("Currency mismatch:")),
+                jsonPath("$[2].status").value("COMPLETED"),
+                jsonPath("$[2].referenceCode").value(Matchers.startsWith("TRANSFER_"))
+            );
+    }
 }
\ No newline at end of file
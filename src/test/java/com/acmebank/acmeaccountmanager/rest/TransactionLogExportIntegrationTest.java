@@ -0,0 +1,149 @@
+package com.acmebank.acmeaccountmanager.rest;
+
+import com.acmebank.acmeaccountmanager.service.impl.TransactionLogEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class TransactionLogExportIntegrationTest {
+
+    final static String HEADER_USER_ID = "userId";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private CrudRepository<TransactionLogEntity, UUID> transactionLogRepositoryRaw;
+
+    void setupTransactionLog(UUID userId, String referenceCode, String counterpartAccountId,
+                             Instant createDateTimeUtc) {
+        transactionLogRepositoryRaw.save(TransactionLogEntity.builder()
+            .operatingAccountId("12345678")
+            .operation("DEDUCT")
+            .operatingAccountUserId(userId)
+            .referenceCode(referenceCode)
+            .counterpartAccountId(counterpartAccountId)
+            .currencyCode("HKD")
+            .moneyAmount(new BigDecimal("10.50"))
+            .createDateTimeUtc(createDateTimeUtc)
+            .build());
+    }
+
+    MvcResult export(MockHttpServletRequestBuilder exportRequest) throws Exception {
+        MvcResult asyncResult = mvc.perform(exportRequest)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return mvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andReturn();
+    }
+
+    @Test
+    void shouldStreamTransactionLogsInRangeOldestFirstAsNdjson() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        setupTransactionLog(userId, "TRANSFER_1", "88888888", Instant.parse("2023-12-31T23:59:59Z"));
+        setupTransactionLog(userId, "TRANSFER_3", "88888888", Instant.parse("2024-03-01T00:00:00Z"));
+        setupTransactionLog(userId, "TRANSFER_2", "88888888", Instant.parse("2024-01-01T00:00:00Z"));
+        setupTransactionLog(userId, "TRANSFER_4", "88888888", Instant.parse("2025-01-01T00:00:00Z"));
+        setupTransactionLog(UUID.randomUUID(), "TRANSFER_X", "88888888", Instant.parse("2024-02-01T00:00:00Z"));
+
+        // when
+        MvcResult result = export(MockMvcRequestBuilders.get("/accounts/transaction-log/export")
+            .header(HEADER_USER_ID, userId)
+            .param("from", "2024-01-01T00:00:00Z")
+            .param("to", "2025-01-01T00:00:00Z"));
+
+        // then
+        final String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertAll(
+            () -> assertThat(result.getResponse().getContentType()).startsWith("application/x-ndjson"),
+            () -> assertThat(lines).hasSize(2),
+            () -> assertThat(lines[0]).startsWith("{").contains("\"referenceCode\":\"TRANSFER_2\""),
+            () -> assertThat(lines[1]).startsWith("{").contains("\"referenceCode\":\"TRANSFER_3\"")
+        );
+    }
+
+    @Test
+    void shouldStreamGzipCompressedCsv() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        setupTransactionLog(userId, "TRANSFER_1", "8888,\"8888\"", Instant.parse("2024-01-01T00:00:00Z"));
+
+        // when
+        MvcResult result = export(MockMvcRequestBuilders.get("/accounts/transaction-log/export")
+            .header(HEADER_USER_ID, userId)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+            .param("format", "csv"));
+
+        // then
+        final String[] lines = gunzip(result.getResponse().getContentAsByteArray()).split("\n");
+        assertAll(
+            () -> assertThat(result.getResponse().getContentType()).startsWith("text/csv"),
+            () -> assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip"),
+            () -> assertThat(lines).hasSize(2),
+            () -> assertThat(lines[0]).isEqualTo("id,operatingAccountId,operation,operatingAccountUserId,"
+                + "referenceCode,counterpartAccountId,currencyCode,moneyAmount,createDateTimeUtc"),
+            () -> assertThat(lines[1]).endsWith(",12345678,DEDUCT," + userId
+                + ",TRANSFER_1,\"8888,\"\"8888\"\"\",HKD,10.50,2024-01-01T00:00:00Z")
+        );
+    }
+
+    @Test
+    void shouldNotCompressWhenGzipIsRefusedByQuality() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        setupTransactionLog(userId, "TRANSFER_1", "88888888", Instant.parse("2024-01-01T00:00:00Z"));
+
+        // when
+        MvcResult result = export(MockMvcRequestBuilders.get("/accounts/transaction-log/export")
+            .header(HEADER_USER_ID, userId)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *;q=0.5")
+            .param("format", "csv"));
+
+        // then
+        final String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertAll(
+            () -> assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isNull(),
+            () -> assertThat(lines).hasSize(2),
+            () -> assertThat(lines[1]).contains(",TRANSFER_1,")
+        );
+    }
+
+    @Test
+    void shouldRejectUnknownFormat() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/accounts/transaction-log/export")
+                .header(HEADER_USER_ID, UUID.randomUUID())
+                .param("format", "XML"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static String gunzip(byte[] content) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.acmebank.acmeaccountmanager.rest.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * With a limit of zero every transfer is over it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "acme.transfer.admission.enabled=true",
+    "acme.transfer.admission.initial-limit=0",
+    "acme.transfer.admission.min-limit=0",
+    "acme.transfer.admission.max-limit=0"
+})
+@AutoConfigureMockMvc
+class TransferAdmissionFilterIntegrationTest {
+
+    final static String HEADER_USER_ID = "userId";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private double rejections() {
+        return meterRegistry.get("acme.transfer.admission.limit.rejections").functionCounter().count();
+    }
+
+    @Test
+    void shouldRejectTransfersOverLimitBeforeReadingThem() throws Exception {
+        // given
+        final double rejectionsBefore = rejections();
+
+        // when a body that would not even parse
+        mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", "12345678")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, UUID.randomUUID())
+                .content("{"))
+
+            // then
+            .andExpectAll(status().isServiceUnavailable(),
+                header().string(HttpHeaders.RETRY_AFTER, "1"),
+                jsonPath("$.error").value("The service is overloaded, retry later."));
+        assertThat(rejections()).isEqualTo(rejectionsBefore + 1);
+    }
+
+    @Test
+    void shouldLetOtherRequestsThrough() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.get("/accounts")
+                .header(HEADER_USER_ID, userId))
+
+            // then
+            .andExpect(status().isOk());
+        // async transfers are admitted by the workers
+        mvc.perform(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer:async", "12345678")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HEADER_USER_ID, userId)
+                .content("""
+                        {
+                            "operatingAccountVersion": 1,
+                            "recipientAccountId": "88888888",
+                            "currencyCode": "HKD",
+                            "amount": 1
+                        }
+                    """))
+            .andExpect(status().isAccepted());
+    }
+}
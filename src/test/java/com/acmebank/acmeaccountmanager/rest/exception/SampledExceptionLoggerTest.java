@@ -0,0 +1,105 @@
+package com.acmebank.acmeaccountmanager.rest.exception;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.acmebank.acmeaccountmanager.service.exception.InsufficientBalanceErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.ServiceErrorException;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class SampledExceptionLoggerTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SampledExceptionLoggerTest.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final SampledExceptionLogger sampledLog =
+        new SampledExceptionLogger(logger, Duration.ofSeconds(10), nanoTime::get);
+
+    @BeforeEach
+    void attachAppender() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void shouldLogOncePerExceptionTypeAndInterval() {
+        // given
+        final OptimisticLockException conflict = new OptimisticLockException("conflict");
+
+        // when
+        sampledLog.log(Level.INFO, conflict);
+        sampledLog.log(Level.INFO, conflict);
+        sampledLog.log(Level.INFO, conflict);
+        sampledLog.log(Level.INFO, new InsufficientBalanceErrorException("A"));
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+        sampledLog.log(Level.INFO, conflict);
+
+        // then
+        assertAll(
+            () -> assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage).containsExactly(
+                "OptimisticLockException: conflict",
+                "InsufficientBalanceErrorException: Account[A] does not have enough balance!",
+                "OptimisticLockException: conflict (2 more since the previous line)"),
+            () -> assertThat(appender.list).extracting(ILoggingEvent::getThrowableProxy).containsOnlyNulls()
+        );
+    }
+
+    @Test
+    void shouldCreateServiceExceptionsWithoutStackTraceByDefault() {
+        // when
+        final ServiceErrorException exception = new InsufficientBalanceErrorException("A");
+
+        // then
+        assertAll(
+            () -> assertThat(exception.getStackTrace()).isEmpty(),
+            () -> assertThat(exception.getMessage()).isEqualTo("Account[A] does not have enough balance!")
+        );
+    }
+
+    @Test
+    void shouldCreateServiceExceptionsWithStackTraceWhenDisabled() throws Exception {
+        // given the exception classes of this class loader are initialised with the default
+        final ServiceErrorException stackless = new InsufficientBalanceErrorException("A");
+        final URL classes = ServiceErrorException.class.getProtectionDomain().getCodeSource().getLocation();
+        final String previous = System.setProperty(ServiceErrorException.STACKLESS_PROPERTY, "false");
+
+        // when the stack traces are decided again in a class loader of their own
+        final Throwable exception;
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes}, ClassLoader.getPlatformClassLoader())) {
+            exception = (Throwable) classLoader.loadClass(InsufficientBalanceErrorException.class.getName())
+                .getConstructor(String.class).newInstance("A");
+        } finally {
+            if (previous == null) {
+                System.clearProperty(ServiceErrorException.STACKLESS_PROPERTY);
+            } else {
+                System.setProperty(ServiceErrorException.STACKLESS_PROPERTY, previous);
+            }
+        }
+
+        // then
+        assertAll(
+            () -> assertThat(exception.getStackTrace()).isNotEmpty(),
+            () -> assertThat(exception.getMessage()).isEqualTo("Account[A] does not have enough balance!"),
+            () -> assertThat(stackless.getStackTrace()).isEmpty(),
+            () -> assertThat(new InsufficientBalanceErrorException("A").getStackTrace()).isEmpty()
+        );
+    }
+}
@@ -0,0 +1,124 @@
+package com.acmebank.acmeaccountmanager.rest.sql;
+
+import com.acmebank.acmeaccountmanager.service.impl.MoneyAccountEntity;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+/**
+ * Statements each endpoint may execute. A change that adds round trips fails here and has to raise the budget
+ * explicitly.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "acme.sql-statistics.response-headers=true")
+@AutoConfigureMockMvc
+class SqlStatementBudgetIntegrationTest {
+
+    final static String HEADER_USER_ID = "userId";
+
+    // revision lookup and read
+    private static final int GET_ACCOUNT_BUDGET = 2;
+    private static final int GET_ALL_ACCOUNTS_BUDGET = 2;
+    // one IN query whatever the number of ids
+    private static final int GET_ACCOUNTS_BY_ID_BUDGET = 1;
+    // two account reads, two version checked updates, the transaction log batch
+    private static final int TRANSFER_BUDGET = 5;
+    // the hot table, then the archive for the rest of a short page
+    private static final int TRANSACTION_LOG_BUDGET = 2;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CrudRepository<MoneyAccountEntity, String> moneyAccountRepositoryRaw;
+
+    private int statementsOf(RequestBuilder request) throws Exception {
+        final MvcResult result = mvc.perform(request).andReturn();
+        assertThat(result.getResponse().getStatus()).isLessThan(400);
+        return Integer.parseInt(result.getResponse().getHeader(SqlStatisticsFilter.STATEMENTS_HEADER));
+    }
+
+    @Test
+    void shouldReadAccountsWithinBudget() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        final String accountId3 = "99999999" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId1, Money.of(BigDecimal.TEN, "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId2, Money.of(BigDecimal.TEN, "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId3, Money.of(BigDecimal.TEN, "HKD"));
+
+        // when
+        final int getAccount = statementsOf(MockMvcRequestBuilders.get("/accounts/{account-id}", accountId1)
+            .header(HEADER_USER_ID, userId));
+        final int getAllAccounts = statementsOf(MockMvcRequestBuilders.get("/accounts")
+            .header(HEADER_USER_ID, userId));
+        final int getAccountsById = statementsOf(MockMvcRequestBuilders.get("/accounts")
+            .param("ids", accountId1, accountId2, accountId3)
+            .header(HEADER_USER_ID, userId));
+        final int transactionLog = statementsOf(MockMvcRequestBuilders.get("/accounts/transaction-log")
+            .header(HEADER_USER_ID, userId));
+
+        // then
+        assertAll(
+            () -> assertThat(getAccount).isLessThanOrEqualTo(GET_ACCOUNT_BUDGET),
+            () -> assertThat(getAllAccounts).isLessThanOrEqualTo(GET_ALL_ACCOUNTS_BUDGET),
+            () -> assertThat(getAccountsById).isLessThanOrEqualTo(GET_ACCOUNTS_BY_ID_BUDGET),
+            () -> assertThat(transactionLog).isLessThanOrEqualTo(TRANSACTION_LOG_BUDGET)
+        );
+    }
+
+    @Test
+    void shouldTransferWithinBudgetAndRecordMetrics() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId1, Money.of(BigDecimal.valueOf(1_000), "HKD"));
+        setupAccount(moneyAccountRepositoryRaw, userId, accountId2, Money.of(BigDecimal.ZERO, "HKD"));
+
+        // when
+        final int transfer = statementsOf(MockMvcRequestBuilders.post("/accounts/{account-id}/transfer", accountId1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HEADER_USER_ID, userId)
+            .content("""
+                    {
+                        "operatingAccountVersion": 1,
+                        "recipientAccountId": "%s",
+                        "currencyCode": "HKD",
+                        "amount": 250
+                    }
+                """.formatted(accountId2)));
+
+        // then
+        final DistributionSummary statements = meterRegistry.find("acme.http.sql.statements")
+            .tags("method", "POST", "uri", "/accounts/{account-id}/transfer")
+            .summary();
+        assertAll(
+            () -> assertThat(transfer).isLessThanOrEqualTo(TRANSFER_BUDGET),
+            () -> assertThat(statements).isNotNull(),
+            () -> assertThat(statements.max()).isGreaterThanOrEqualTo(transfer)
+        );
+    }
+}
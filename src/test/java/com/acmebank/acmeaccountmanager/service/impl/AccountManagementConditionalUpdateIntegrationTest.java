@@ -0,0 +1,158 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.exception.InsufficientBalanceErrorException;
+import com.acmebank.acmeaccountmanager.service.exception.NotAuthorizedErrorException;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.money.MonetaryException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "acme.transfer.mode=conditional-update")
+class AccountManagementConditionalUpdateIntegrationTest {
+
+    @Autowired
+    AccountManagement accountManagement;
+
+    @Autowired
+    MoneyAccountRepository moneyAccountRepository;
+
+    @Autowired
+    TransactionLogRepository transactionLogRepository;
+
+    AccountManagement.TransferMoneyToAccountRequest transferRequest(UUID userId, String operatingAccountId,
+                                                                    int version, String recipientAccountId,
+                                                                    String currencyCode, BigDecimal amount) {
+        return AccountManagement.TransferMoneyToAccountRequest.builder()
+            .userId(userId)
+            .operatingAccountId(operatingAccountId)
+            .operatingAccountVersion(version)
+            .recipientAccountId(recipientAccountId)
+            .currencyCode(currencyCode)
+            .toBeTransferAmount(amount)
+            .build();
+    }
+
+    @Test
+    void shouldDebitAndCreditBothAccountsAndStoreTransactionLogs() {
+        // given
+        final UUID accountUserId1 = UUID.randomUUID();
+        final UUID accountUserId2 = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, accountUserId1, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepository, accountUserId2, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+
+        // when
+        accountManagement.transferMoneyToAccount(
+            transferRequest(accountUserId1, accountId1, 1, accountId2, "HKD", BigDecimal.valueOf(50.05)));
+
+        // then
+        MoneyAccountEntity actualOperatingAccount = moneyAccountRepository.findById(accountId1).orElseThrow();
+        MoneyAccountEntity actualRecipientAccount = moneyAccountRepository.findById(accountId2).orElseThrow();
+        List<TransactionLogEntity> actualSenderLogs =
+            transactionLogRepository.findAllByOperatingAccountUserIdOrderByCreateDateTimeUtcDesc(accountUserId1);
+        List<TransactionLogEntity> actualReceiverLogs =
+            transactionLogRepository.findAllByOperatingAccountUserIdOrderByCreateDateTimeUtcDesc(accountUserId2);
+        assertAll(
+            () -> assertThat(actualOperatingAccount.getVersion()).isEqualTo(2),
+            () -> assertThat(actualOperatingAccount.getBalanceAmount()).isEqualByComparingTo("999949.95"),
+            () -> assertThat(actualRecipientAccount.getVersion()).isEqualTo(2),
+            () -> assertThat(actualRecipientAccount.getBalanceAmount()).isEqualByComparingTo("1000050.05"),
+            () -> assertThat(actualSenderLogs).hasSize(1),
+            () -> assertThat(actualSenderLogs.get(0).getOperation()).isEqualTo("DEDUCT"),
+            () -> assertThat(actualReceiverLogs).hasSize(1),
+            () -> assertThat(actualReceiverLogs.get(0).getOperation()).isEqualTo("ADD"),
+            () -> assertThat(actualReceiverLogs.get(0).getReferenceCode())
+                .isEqualTo(actualSenderLogs.get(0).getReferenceCode())
+        );
+    }
+
+    @Test
+    void shouldThrowInsufficientBalanceErrorExceptionWhenBalanceIsTooLow() {
+        final UUID userId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, accountId1, Money.of(BigDecimal.valueOf(100), "HKD"));
+        setupAccount(moneyAccountRepository, userId, accountId2, Money.of(BigDecimal.valueOf(100), "HKD"));
+
+        assertThrows(InsufficientBalanceErrorException.class, () -> accountManagement.transferMoneyToAccount(
+            transferRequest(userId, accountId1, 1, accountId2, "HKD", BigDecimal.valueOf(100.01))));
+    }
+
+    @Test
+    void shouldThrowOptimisticLockExceptionWhenVersionIsStale() {
+        final UUID userId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, accountId1, Money.of(BigDecimal.valueOf(100), "HKD"));
+        setupAccount(moneyAccountRepository, userId, accountId2, Money.of(BigDecimal.valueOf(100), "HKD"));
+        accountManagement.transferMoneyToAccount(
+            transferRequest(userId, accountId1, 1, accountId2, "HKD", BigDecimal.ONE));
+
+        assertThrows(OptimisticLockException.class, () -> accountManagement.transferMoneyToAccount(
+            transferRequest(userId, accountId1, 1, accountId2, "HKD", BigDecimal.ONE)));
+    }
+
+    @Test
+    void shouldThrowNotAuthorizedErrorExceptionWhenDebitedByNonOwner() {
+        final UUID userId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, accountId1, Money.of(BigDecimal.valueOf(100), "HKD"));
+        setupAccount(moneyAccountRepository, userId, accountId2, Money.of(BigDecimal.valueOf(100), "HKD"));
+
+        assertThrows(NotAuthorizedErrorException.class, () -> accountManagement.transferMoneyToAccount(
+            transferRequest(UUID.randomUUID(), accountId1, 1, accountId2, "HKD", BigDecimal.ONE)));
+    }
+
+    @Test
+    void shouldRollbackDebitWhenRecipientDoesNotExist() {
+        final UUID userId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, accountId1, Money.of(BigDecimal.valueOf(100), "HKD"));
+
+        assertThrows(EntityNotFoundException.class, () -> accountManagement.transferMoneyToAccount(
+            transferRequest(userId, accountId1, 1, UUID.randomUUID().toString(), "HKD", BigDecimal.ONE)));
+
+        MoneyAccountEntity actualOperatingAccount = moneyAccountRepository.findById(accountId1).orElseThrow();
+        assertAll(
+            () -> assertThat(actualOperatingAccount.getVersion()).isEqualTo(1),
+            () -> assertThat(actualOperatingAccount.getBalanceAmount()).isEqualByComparingTo("100")
+        );
+    }
+
+    @Test
+    void shouldRollbackDebitWhenRecipientCurrencyMismatches() {
+        final UUID userId = UUID.randomUUID();
+        final String accountId1 = "12345678" + UUID.randomUUID();
+        final String accountId2 = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, accountId1, Money.of(BigDecimal.valueOf(100), "HKD"));
+        setupAccount(moneyAccountRepository, userId, accountId2, Money.of(BigDecimal.valueOf(100), "USD"));
+
+        MonetaryException actualException = assertThrows(MonetaryException.class,
+            () -> accountManagement.transferMoneyToAccount(
+                transferRequest(userId, accountId1, 1, accountId2, "HKD", BigDecimal.ONE)));
+
+        MoneyAccountEntity actualOperatingAccount = moneyAccountRepository.findById(accountId1).orElseThrow();
+        assertAll(
+            () -> assertThat(actualException.getMessage()).isEqualTo("Currency mismatch: USD/HKD"),
+            () -> assertThat(actualOperatingAccount.getBalanceAmount()).isEqualByComparingTo("100")
+        );
+    }
+}
@@ -1,18 +1,25 @@
 package com.acmebank.acmeaccountmanager.service.impl;
 
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
 import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
 import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.validation.ConstraintViolationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.javamoney.moneta.Money;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.UUID;
 
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -28,15 +35,74 @@ class AccountManagementUseCaseIntegrationTest {
     @Autowired
     TransactionLogRepository transactionLogRepository;
 
-    void setupAccount(UUID userId, String accountId, Money balance) {
-        MoneyAccountEntity accountEntity = MoneyAccountEntity.builder()
-            .id(accountId)
-            .version(1)
-            .primaryOwnerId(userId)
-            .currencyCode(balance.getCurrency().getCurrencyCode())
-            .balanceAmount(balance.getNumberStripped())
-            .build();
-        moneyAccountRepository.save(accountEntity);
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void shouldReadAccountsAndLogsWithoutLoadingEntities() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, operatingAccountId, Money.of(BigDecimal.valueOf(1_000), "HKD"));
+        setupAccount(moneyAccountRepository, userId, recipientAccountId, Money.of(BigDecimal.ZERO, "HKD"));
+        accountManagement.transferMoneyToAccount(AccountManagement.TransferMoneyToAccountRequest.builder()
+            .userId(userId)
+            .operatingAccountId(operatingAccountId)
+            .operatingAccountVersion(1)
+            .recipientAccountId(recipientAccountId)
+            .currencyCode("HKD")
+            .toBeTransferAmount(BigDecimal.valueOf(100))
+            .build());
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        final long entitiesLoadedBefore = statistics.getEntityLoadCount();
+
+        // when
+        MoneyAccount actualAccount = accountManagement.getAccount(
+            new AccountManagement.GetMoneyAccountRequest(operatingAccountId, userId));
+        List<MoneyAccount> actualAccounts = accountManagement.getAllAccounts(userId);
+        int actualLogs = accountManagement.getTransactionLogPage(AccountManagement.GetTransactionLogPageRequest.builder()
+            .userId(userId)
+            .limit(10)
+            .build()).transactionLogs().size();
+
+        // then
+        assertAll(
+            () -> assertThat(actualAccount.balance()).isEqualTo(Money.of(900, "HKD")),
+            () -> assertThat(actualAccounts).extracting(MoneyAccount::id)
+                .containsExactly(operatingAccountId, recipientAccountId),
+            () -> assertThat(actualLogs).isEqualTo(2),
+            () -> assertThat(statistics.getEntityLoadCount()).isEqualTo(entitiesLoadedBefore)
+        );
+    }
+
+    @Test
+    void shouldLookUpAccountsWithOneQuery() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String ownAccountId = "12345678" + UUID.randomUUID();
+        final String otherUsersAccountId = "88888888" + UUID.randomUUID();
+        final String missingAccountId = "00000000" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, ownAccountId, Money.of(BigDecimal.TEN, "HKD"));
+        setupAccount(moneyAccountRepository, UUID.randomUUID(), otherUsersAccountId, Money.of(BigDecimal.TEN, "HKD"));
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        final long statementsBefore = statistics.getPrepareStatementCount();
+
+        // when
+        List<AccountLookup> actualLookups = accountManagement.getAccounts(
+            new LinkedHashSet<>(List.of(missingAccountId, ownAccountId, otherUsersAccountId)), userId);
+
+        // then
+        assertAll(
+            () -> assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsBefore + 1),
+            () -> assertThat(actualLookups).extracting(AccountLookup::accountId, AccountLookup::status)
+                .containsExactly(
+                    tuple(missingAccountId, AccountLookup.Status.NOT_FOUND),
+                    tuple(ownAccountId, AccountLookup.Status.FOUND),
+                    tuple(otherUsersAccountId, AccountLookup.Status.NOT_AUTHORIZED)),
+            () -> assertThat(actualLookups.get(1).account().balance()).isEqualTo(Money.of(10, "HKD")),
+            () -> assertThat(actualLookups.get(2).account()).isNull()
+        );
     }
 
     @Test
@@ -87,8 +153,10 @@ class AccountManagementUseCaseIntegrationTest {
         final UUID accountOwnerUserId = UUID.randomUUID();
         final String accountId1 = "12345678" + UUID.randomUUID();
         final String accountId2 = "88888888" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(accountOwnerUserId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepository, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepository, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
 
         // when
         accountManagement.transferMoneyToAccount(AccountManagement.TransferMoneyToAccountRequest.builder()
@@ -125,8 +193,10 @@ class AccountManagementUseCaseIntegrationTest {
         final UUID accountOwnerUserId = UUID.randomUUID();
         final String accountId1 = "12345678" + UUID.randomUUID();
         final String accountId2 = "88888888" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(accountOwnerUserId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepository, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepository, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
 
         // when
         accountManagement.transferMoneyToAccount(AccountManagement.TransferMoneyToAccountRequest.builder()
@@ -162,8 +232,10 @@ class AccountManagementUseCaseIntegrationTest {
         final UUID accountOwnerUserId = UUID.randomUUID();
         final String accountId1 = "12345678" + UUID.randomUUID();
         final String accountId2 = "88888888" + UUID.randomUUID();
-        setupAccount(accountOwnerUserId, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(accountOwnerUserId, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepository, accountOwnerUserId, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepository, accountOwnerUserId, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
 
         // when
         accountManagement.transferMoneyToAccount(AccountManagement.TransferMoneyToAccountRequest.builder()
@@ -206,8 +278,10 @@ class AccountManagementUseCaseIntegrationTest {
         final UUID accountUserId2 = UUID.randomUUID();
         final String accountId1 = "12345678" + UUID.randomUUID();
         final String accountId2 = "88888888" + UUID.randomUUID();
-        setupAccount(accountUserId1, accountId1, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
-        setupAccount(accountUserId2, accountId2, Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepository, accountUserId1, accountId1,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        setupAccount(moneyAccountRepository, accountUserId2, accountId2,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
 
         // when
         accountManagement.transferMoneyToAccount(AccountManagement.TransferMoneyToAccountRequest.builder()
@@ -0,0 +1,43 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.exception.TransferOverloadedErrorException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlledAccountManagementTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    // no transfer is ever admitted by the concurrency limit, one transfer per second per user in bursts of three
+    private final TransferProperties.Admission properties = new TransferProperties.Admission(true, 0, 0, 200,
+        Duration.ofSeconds(1), 1, 0.9, Duration.ofSeconds(1), Duration.ofSeconds(30), 1, 3);
+    private final UserTransferRateLimiter userRateLimiter = new UserTransferRateLimiter(properties, nanoTime::get);
+    // the delegate is never reached
+    private final AccountManagement accountManagement = new AdmissionControlledAccountManagement(null,
+        new TransferConcurrencyLimiter(properties, () -> 0, nanoTime::get), userRateLimiter);
+
+    @Test
+    void shouldRefundUserRateWhenConcurrencyLimitRejects() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final AccountManagement.TransferMoneyToAccountRequest request =
+            new AccountManagement.TransferMoneyToAccountRequest("12345678", 1, "88888888", "HKD", BigDecimal.ONE,
+                userId);
+
+        // when
+        for (int retry = 0; retry < 5; retry++) {
+            assertThatThrownBy(() -> accountManagement.transferMoneyToAccount(request))
+                .isInstanceOf(TransferOverloadedErrorException.class);
+        }
+
+        // then the whole burst is still available
+        assertThat(userRateLimiter.tryAcquire(userId, 3)).isZero();
+    }
+}
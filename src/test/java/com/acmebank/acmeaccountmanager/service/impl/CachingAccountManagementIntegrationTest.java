@@ -0,0 +1,154 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.exception.NotAuthorizedErrorException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "acme.account.cache.enabled=true")
+class CachingAccountManagementIntegrationTest {
+
+    @Autowired
+    AccountManagement accountManagement;
+
+    @Autowired
+    MoneyAccountRepository moneyAccountRepository;
+
+    @Autowired
+    MoneyAccountCache moneyAccountCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void shouldServeRepeatedReadsFromCacheUntilTransferChangesTheAccount() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, operatingAccountId, Money.of(BigDecimal.valueOf(1_000), "HKD"));
+        setupAccount(moneyAccountRepository, userId, recipientAccountId, Money.of(BigDecimal.ZERO, "HKD"));
+        final AccountManagement.GetMoneyAccountRequest request =
+            new AccountManagement.GetMoneyAccountRequest(operatingAccountId, userId);
+
+        // when
+        accountManagement.getAccount(request);
+        accountManagement.getAllAccounts(userId);
+        final MoneyAccountCache.Snapshot beforeCachedReads = moneyAccountCache.snapshot();
+        accountManagement.getAccount(request);
+        accountManagement.getAllAccounts(userId);
+        final MoneyAccountCache.Snapshot afterCachedReads = moneyAccountCache.snapshot();
+        accountManagement.transferMoneyToAccount(AccountManagement.TransferMoneyToAccountRequest.builder()
+            .userId(userId)
+            .operatingAccountId(operatingAccountId)
+            .operatingAccountVersion(1)
+            .recipientAccountId(recipientAccountId)
+            .currencyCode("HKD")
+            .toBeTransferAmount(BigDecimal.valueOf(100))
+            .build());
+
+        // then
+        MoneyAccount actualOperatingAccount = accountManagement.getAccount(request);
+        String actualRevision = accountManagement.getAccountRevision(request);
+        List<MoneyAccount> actualAccounts = accountManagement.getAllAccounts(userId);
+        assertAll(
+            () -> assertThat(afterCachedReads.hits() - beforeCachedReads.hits()).isEqualTo(2),
+            () -> assertThat(afterCachedReads.misses()).isEqualTo(beforeCachedReads.misses()),
+            () -> assertThat(moneyAccountCache.snapshot().invalidations())
+                .isGreaterThan(afterCachedReads.invalidations()),
+            () -> assertThat(actualOperatingAccount.balance()).isEqualTo(Money.of(900, "HKD")),
+            () -> assertThat(actualOperatingAccount.version()).isEqualTo(2),
+            () -> assertThat(actualRevision).isEqualTo("2"),
+            () -> assertThat(actualAccounts).extracting(MoneyAccount::balance)
+                .containsExactlyInAnyOrder(Money.of(900, "HKD"), Money.of(100, "HKD"))
+        );
+    }
+
+    private long cachingTimerCount(String method) {
+        final Timer timer = meterRegistry.find(AccountManagementMetrics.TIMER)
+            .tag("class", CachingAccountManagement.class.getName())
+            .tag("method", method)
+            .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void shouldTimeCacheHitsOnOutermostDecorator() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, "12345678" + UUID.randomUUID(), Money.of(BigDecimal.TEN, "HKD"));
+        accountManagement.getAllAccounts(userId);
+        final long readsBefore = cachingTimerCount("getAllAccounts");
+
+        // when
+        accountManagement.getAllAccounts(userId);
+
+        // then
+        assertThat(cachingTimerCount("getAllAccounts")).isEqualTo(readsBefore + 1);
+    }
+
+    @Test
+    void shouldNotServeCachedAccountToAnotherUser() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String accountId = "12345678" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, accountId, Money.of(BigDecimal.TEN, "HKD"));
+        accountManagement.getAccount(new AccountManagement.GetMoneyAccountRequest(accountId, userId));
+
+        // when
+        final AccountManagement.GetMoneyAccountRequest request =
+            new AccountManagement.GetMoneyAccountRequest(accountId, UUID.randomUUID());
+
+        // then
+        assertThatThrownBy(() -> accountManagement.getAccount(request))
+            .isInstanceOf(NotAuthorizedErrorException.class);
+    }
+
+    @Test
+    void shouldLookUpCachedAndMissedAccountsTogether() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String cachedAccountId = "12345678" + UUID.randomUUID();
+        final String missedAccountId = "88888888" + UUID.randomUUID();
+        final String otherUsersAccountId = "00000000" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, cachedAccountId, Money.of(BigDecimal.TEN, "HKD"));
+        setupAccount(moneyAccountRepository, userId, missedAccountId, Money.of(BigDecimal.ONE, "HKD"));
+        setupAccount(moneyAccountRepository, UUID.randomUUID(), otherUsersAccountId, Money.of(BigDecimal.ONE, "HKD"));
+        accountManagement.getAccount(new AccountManagement.GetMoneyAccountRequest(cachedAccountId, userId));
+        final MoneyAccountCache.Snapshot before = moneyAccountCache.snapshot();
+
+        // when
+        List<AccountLookup> actualLookups = accountManagement.getAccounts(
+            new LinkedHashSet<>(List.of(cachedAccountId, missedAccountId, otherUsersAccountId)), userId);
+        List<AccountLookup> repeatedLookups = accountManagement.getAccounts(Set.of(missedAccountId), userId);
+
+        // then
+        assertAll(
+            () -> assertThat(actualLookups).extracting(AccountLookup::status).containsExactly(
+                AccountLookup.Status.FOUND, AccountLookup.Status.FOUND, AccountLookup.Status.NOT_AUTHORIZED),
+            () -> assertThat(actualLookups.get(1).account().balance()).isEqualTo(Money.of(1, "HKD")),
+            () -> assertThat(repeatedLookups).extracting(AccountLookup::status)
+                .containsExactly(AccountLookup.Status.FOUND),
+            // the cached account and the repeated lookup of the account loaded by the first lookup
+            () -> assertThat(moneyAccountCache.snapshot().hits() - before.hits()).isEqualTo(2)
+        );
+    }
+}
@@ -0,0 +1,86 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountLookup;
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = {
+        "acme.account.cache.enabled=true",
+        "acme.datasource.replica.url=jdbc:h2:mem:acme-cache-replica-test;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH",
+        "acme.datasource.replica.username=sa"
+    })
+class CachingReadReplicaIntegrationTest {
+
+    @Autowired
+    AccountManagement accountManagement;
+
+    @Autowired
+    MoneyAccountRepository moneyAccountRepository;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    JdbcTemplate replica;
+
+    @BeforeEach
+    void setupReplicaSchema() {
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP TABLE IF EXISTS money_account");
+        replica.execute("DROP TABLE IF EXISTS money_account_balance_slot");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V0.1__money-account-schema.sql"),
+            new ClassPathResource("db/migration/V0.6__money-account-balance-slot.sql"))
+            .execute(replicaDataSource);
+    }
+
+    void setupAccount(UUID userId, String accountId, Money balance) {
+        MoneyAccountFixtures.setupAccount(moneyAccountRepository, userId, accountId, balance);
+        // the replica lags behind with an older balance
+        replica.update("INSERT INTO money_account (id, version, primary_owner_id, currency_code, balance_amount) "
+                + "VALUES (?, 1, ?, ?, ?)",
+            accountId, userId, balance.getCurrency().getCurrencyCode(), BigDecimal.ONE);
+    }
+
+    @Test
+    void shouldLoadCacheFromPrimaryWhenReplicaIsConfigured() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String accountId = "12345678" + UUID.randomUUID();
+        setupAccount(userId, accountId, Money.of(BigDecimal.valueOf(1_000), "HKD"));
+
+        // when
+        final MoneyAccount account = accountManagement.getAccount(
+            new AccountManagement.GetMoneyAccountRequest(accountId, userId));
+        final List<MoneyAccount> allAccounts = accountManagement.getAllAccounts(userId);
+        final List<AccountLookup> lookups = accountManagement.getAccounts(Set.of(accountId), userId);
+
+        // then
+        assertAll(
+            () -> assertThat(account.balance()).isEqualTo(Money.of(1_000, "HKD")),
+            () -> assertThat(allAccounts).extracting(MoneyAccount::balance)
+                .containsExactly(Money.of(1_000, "HKD")),
+            () -> assertThat(lookups).extracting(lookup -> lookup.account().balance())
+                .containsExactly(Money.of(1_000, "HKD"))
+        );
+    }
+}
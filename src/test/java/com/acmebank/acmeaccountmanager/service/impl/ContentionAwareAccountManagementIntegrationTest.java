@@ -0,0 +1,78 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "acme.transfer.contention.enabled=true")
+class ContentionAwareAccountManagementIntegrationTest {
+
+    @Autowired
+    AccountManagement accountManagement;
+
+    @Autowired
+    MoneyAccountRepository moneyAccountRepository;
+
+    @Autowired
+    TransferContentionStatistics statistics;
+
+    @Test
+    void shouldCompleteAllConcurrentTransfersToTheSameRecipient() throws Exception {
+        // given
+        final int senders = 30;
+        final UUID userId = UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, recipientAccountId,
+            Money.of(BigDecimal.valueOf(1_000_000), "HKD"));
+        final List<String> operatingAccountIds = new ArrayList<>();
+        for (int i = 0; i < senders; i++) {
+            String operatingAccountId = "12345678" + UUID.randomUUID();
+            setupAccount(moneyAccountRepository, userId, operatingAccountId,
+                Money.of(BigDecimal.valueOf(1_000), "HKD"));
+            operatingAccountIds.add(operatingAccountId);
+        }
+        final long attemptsBefore = statistics.snapshot().attempts();
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String operatingAccountId : operatingAccountIds) {
+            futures.add(executor.submit(() -> accountManagement.transferMoneyToAccount(
+                AccountManagement.TransferMoneyToAccountRequest.builder()
+                    .userId(userId)
+                    .operatingAccountId(operatingAccountId)
+                    .operatingAccountVersion(1)
+                    .recipientAccountId(recipientAccountId)
+                    .currencyCode("HKD")
+                    .toBeTransferAmount(BigDecimal.TEN)
+                    .build())));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        MoneyAccountEntity actualRecipientAccount = moneyAccountRepository.findById(recipientAccountId).orElseThrow();
+        assertAll(
+            () -> assertThat(actualRecipientAccount.getBalanceAmount()).isEqualByComparingTo("1000300"),
+            () -> assertThat(actualRecipientAccount.getVersion()).isEqualTo(1 + senders),
+            () -> assertThat(statistics.snapshot().attempts() - attemptsBefore).isGreaterThanOrEqualTo(senders)
+        );
+    }
+}
@@ -0,0 +1,155 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class HotAccountBalanceSlotsIntegrationTest {
+
+    static final String HOT_ACCOUNT_ID = "99999999" + UUID.randomUUID();
+    static final String OTHER_HOT_ACCOUNT_ID = "99999999" + UUID.randomUUID();
+
+    @Autowired
+    AccountManagement accountManagement;
+
+    @Autowired
+    MoneyAccountRepository moneyAccountRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void hotAccountProperties(DynamicPropertyRegistry registry) {
+        registry.add("acme.transfer.hot-accounts.ids", () -> HOT_ACCOUNT_ID + "," + OTHER_HOT_ACCOUNT_ID);
+        registry.add("acme.transfer.hot-accounts.slots", () -> "8");
+    }
+
+    static AccountManagement.TransferMoneyToAccountRequest transferRequest(UUID userId, String operatingAccountId,
+                                                                           int operatingAccountVersion,
+                                                                           String recipientAccountId, int amount) {
+        return AccountManagement.TransferMoneyToAccountRequest.builder()
+            .userId(userId)
+            .operatingAccountId(operatingAccountId)
+            .operatingAccountVersion(operatingAccountVersion)
+            .recipientAccountId(recipientAccountId)
+            .currencyCode("HKD")
+            .toBeTransferAmount(BigDecimal.valueOf(amount))
+            .build();
+    }
+
+    @Test
+    void shouldCreditHotAccountConcurrentlyAndDrainSlotsForDebit() throws Exception {
+        // given
+        final int senders = 30;
+        final UUID userId = UUID.randomUUID();
+        final String otherAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, HOT_ACCOUNT_ID, Money.of(BigDecimal.valueOf(5), "HKD"));
+        setupAccount(moneyAccountRepository, userId, otherAccountId, Money.of(BigDecimal.ZERO, "HKD"));
+        final List<String> operatingAccountIds = new ArrayList<>();
+        for (int i = 0; i < senders; i++) {
+            String operatingAccountId = "12345678" + UUID.randomUUID();
+            setupAccount(moneyAccountRepository, userId, operatingAccountId,
+                Money.of(BigDecimal.valueOf(1_000), "HKD"));
+            operatingAccountIds.add(operatingAccountId);
+        }
+        final String revisionBeforeCredits = accountManagement.getAccountRevision(
+            new AccountManagement.GetMoneyAccountRequest(HOT_ACCOUNT_ID, userId));
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String operatingAccountId : operatingAccountIds) {
+            futures.add(executor.submit(() -> accountManagement.transferMoneyToAccount(
+                transferRequest(userId, operatingAccountId, 1, HOT_ACCOUNT_ID, 10))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        final MoneyAccount afterCredits = accountManagement.getAccount(
+            new AccountManagement.GetMoneyAccountRequest(HOT_ACCOUNT_ID, userId));
+        final String revisionAfterCredits = accountManagement.getAccountRevision(
+            new AccountManagement.GetMoneyAccountRequest(HOT_ACCOUNT_ID, userId));
+        final MoneyAccountEntity rowAfterCredits = moneyAccountRepository.findById(HOT_ACCOUNT_ID).orElseThrow();
+        accountManagement.transferMoneyToAccount(transferRequest(userId, HOT_ACCOUNT_ID, 1, otherAccountId, 100));
+
+        // then
+        final MoneyAccount afterDebit = accountManagement.getAccount(
+            new AccountManagement.GetMoneyAccountRequest(HOT_ACCOUNT_ID, userId));
+        assertAll(
+            () -> assertThat(afterCredits.balance()).isEqualTo(Money.of(305, "HKD")),
+            () -> assertThat(rowAfterCredits.getBalanceAmount()).isEqualByComparingTo("5"),
+            () -> assertThat(rowAfterCredits.getVersion()).isEqualTo(1),
+            // the version did not change, the balance in the revision did
+            () -> assertThat(revisionBeforeCredits).isEqualTo("1-5"),
+            () -> assertThat(revisionAfterCredits).isEqualTo("1-305"),
+            () -> assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM money_account_balance_slot WHERE account_id = ?", Integer.class,
+                HOT_ACCOUNT_ID)).isEqualTo(8),
+            () -> assertThat(afterDebit.balance()).isEqualTo(Money.of(205, "HKD")),
+            () -> assertThat(afterDebit.version()).isEqualTo(2),
+            () -> assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(balance_amount) FROM money_account_balance_slot WHERE account_id = ?", BigDecimal.class,
+                HOT_ACCOUNT_ID)).isEqualByComparingTo("0"),
+            () -> assertThat(accountManagement.getAllAccounts(userId))
+                .filteredOn(account -> account.id().equals(otherAccountId))
+                .extracting(MoneyAccount::balance)
+                .containsExactly(Money.of(100, "HKD"))
+        );
+    }
+
+    @Test
+    void shouldLeaveHotAccountUntouchedWhenItsDebitIsRejected() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String otherAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, OTHER_HOT_ACCOUNT_ID, Money.of(BigDecimal.valueOf(5), "HKD"));
+        setupAccount(moneyAccountRepository, userId, otherAccountId, Money.of(BigDecimal.valueOf(50), "HKD"));
+        accountManagement.transferMoneyToAccount(transferRequest(userId, otherAccountId, 1, OTHER_HOT_ACCOUNT_ID, 50));
+
+        // when
+        final List<TransferOutcome> outcomes = accountManagement.transferMoneyToAccounts(
+            List.of(transferRequest(userId, OTHER_HOT_ACCOUNT_ID, 1, otherAccountId, 100)),
+            AccountManagement.BatchTransferMode.PER_ITEM);
+        final MoneyAccountEntity rowAfterRejection =
+            moneyAccountRepository.findById(OTHER_HOT_ACCOUNT_ID).orElseThrow();
+        final BigDecimal slotsAfterRejection = jdbcTemplate.queryForObject(
+            "SELECT SUM(balance_amount) FROM money_account_balance_slot WHERE account_id = ?", BigDecimal.class,
+            OTHER_HOT_ACCOUNT_ID);
+        accountManagement.transferMoneyToAccount(transferRequest(userId, OTHER_HOT_ACCOUNT_ID, 1, otherAccountId, 20));
+
+        // then
+        final MoneyAccount afterDebit = accountManagement.getAccount(
+            new AccountManagement.GetMoneyAccountRequest(OTHER_HOT_ACCOUNT_ID, userId));
+        assertAll(
+            () -> assertThat(outcomes).extracting(TransferOutcome::status)
+                .containsExactly(TransferOutcome.Status.UNPROCESSABLE),
+            () -> assertThat(rowAfterRejection.getBalanceAmount()).isEqualByComparingTo("5"),
+            () -> assertThat(rowAfterRejection.getVersion()).isEqualTo(1),
+            () -> assertThat(slotsAfterRejection).isEqualByComparingTo("50"),
+            // the client retries with the version it read, it is not answered with a conflict
+            () -> assertThat(afterDebit.balance()).isEqualTo(Money.of(35, "HKD")),
+            () -> assertThat(afterDebit.version()).isEqualTo(2)
+        );
+    }
+}
@@ -0,0 +1,83 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.money.MonetaryException;
+import javax.money.UnknownCurrencyException;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class MinorUnitMoneyTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0.00", "0.01", "1000000.01", "92233720368547758.07", "-12.30"})
+    void shouldConvertBalanceColumnValuesExactly(String balanceAmount) {
+        final BigDecimal expected = new BigDecimal(balanceAmount);
+
+        final BigDecimal actual = MinorUnitMoney.of("HKD", expected).toBigDecimal();
+
+        assertAll(
+            () -> assertThat(actual).isEqualTo(expected),
+            () -> assertThat(actual.scale()).isEqualTo(MinorUnitMoney.STORAGE_SCALE)
+        );
+    }
+
+    @Test
+    void shouldUseCurrencyScaleForMinorUnits() {
+        assertAll(
+            () -> assertThat(MinorUnitMoney.of("HKD", new BigDecimal("10.5")).minorUnits()).isEqualTo(1_050),
+            () -> assertThat(MinorUnitMoney.of("JPY", new BigDecimal("100.00")).minorUnits()).isEqualTo(100),
+            // three decimal currencies are capped at the scale of the balance column
+            () -> assertThat(MinorUnitMoney.of("KWD", new BigDecimal("1.25")).minorUnits()).isEqualTo(125),
+            () -> assertThat(MinorUnitMoney.of(Money.of(1_000_000, "HKD")).minorUnits()).isEqualTo(100_000_000)
+        );
+    }
+
+    @Test
+    void shouldAddAndSubtract() {
+        final MinorUnitMoney balance = MinorUnitMoney.of("HKD", new BigDecimal("100.00"));
+        final MinorUnitMoney amount = MinorUnitMoney.of("HKD", new BigDecimal("100.01"));
+
+        assertAll(
+            () -> assertThat(balance.add(amount).toMoney()).isEqualTo(Money.of(new BigDecimal("200.01"), "HKD")),
+            () -> assertThat(balance.subtract(amount).isNegative()).isTrue(),
+            () -> assertThat(balance.subtract(amount).toBigDecimal()).isEqualByComparingTo("-0.01")
+        );
+    }
+
+    @Test
+    void shouldRejectAmountsThatCannotBeRepresentedExactly() {
+        assertAll(
+            () -> assertThatThrownBy(() -> MinorUnitMoney.of("HKD", new BigDecimal("0.001")))
+                .isInstanceOf(MonetaryException.class),
+            () -> assertThatThrownBy(() -> MinorUnitMoney.of("JPY", new BigDecimal("0.5")))
+                .isInstanceOf(MonetaryException.class),
+            () -> assertThatThrownBy(() -> MinorUnitMoney.of("XYZ", BigDecimal.ONE))
+                .isInstanceOf(UnknownCurrencyException.class),
+            () -> assertThatThrownBy(() -> MinorUnitMoney.of("HKD", new BigDecimal("1E+20")))
+                .isInstanceOf(MonetaryException.class)
+                .hasMessage("HKD 100000000000000000000 is out of range")
+        );
+    }
+
+    @Test
+    void shouldRejectOverflowAndCurrencyMismatch() {
+        final MinorUnitMoney maximum = new MinorUnitMoney("HKD", Long.MAX_VALUE);
+        final MinorUnitMoney minimum = new MinorUnitMoney("HKD", Long.MIN_VALUE);
+        final MinorUnitMoney oneCent = new MinorUnitMoney("HKD", 1);
+
+        assertAll(
+            () -> assertThatThrownBy(() -> maximum.add(oneCent)).isInstanceOf(MonetaryException.class),
+            () -> assertThatThrownBy(() -> minimum.subtract(oneCent)).isInstanceOf(MonetaryException.class),
+            () -> assertThatThrownBy(() -> oneCent.add(new MinorUnitMoney("USD", 1)))
+                .isInstanceOf(MonetaryException.class)
+                .hasMessage("Currency mismatch: HKD/USD")
+        );
+    }
+}
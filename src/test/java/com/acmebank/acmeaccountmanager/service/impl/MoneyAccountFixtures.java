@@ -0,0 +1,30 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.javamoney.moneta.Money;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.UUID;
+
+/**
+ * Accounts the integration tests write straight into {@code money_account}, bypassing the service.
+ */
+public final class MoneyAccountFixtures {
+
+    private MoneyAccountFixtures() {
+    }
+
+    /**
+     * Saves an account at version 1 owned by {@code userId}.
+     */
+    public static void setupAccount(CrudRepository<MoneyAccountEntity, String> moneyAccountRepository, UUID userId,
+                                    String accountId, Money balance) {
+        MoneyAccountEntity accountEntity = MoneyAccountEntity.builder()
+            .id(accountId)
+            .version(1)
+            .primaryOwnerId(userId)
+            .currencyCode(balance.getCurrency().getCurrencyCode())
+            .balanceAmount(balance.getNumberStripped())
+            .build();
+        moneyAccountRepository.save(accountEntity);
+    }
+}
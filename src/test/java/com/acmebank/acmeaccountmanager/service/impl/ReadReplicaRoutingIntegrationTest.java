@@ -0,0 +1,109 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import jakarta.persistence.EntityNotFoundException;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = {
+        "acme.datasource.replica.url=jdbc:h2:mem:acme-replica-test;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH",
+        "acme.datasource.replica.username=sa"
+    })
+class ReadReplicaRoutingIntegrationTest {
+
+    @Autowired
+    AccountManagement accountManagement;
+
+    @Autowired
+    MoneyAccountRepository moneyAccountRepository;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    JdbcTemplate replica;
+
+    @BeforeEach
+    void setupReplicaSchema() {
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP TABLE IF EXISTS money_account");
+        replica.execute("DROP TABLE IF EXISTS money_account_balance_slot");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V0.1__money-account-schema.sql"),
+            new ClassPathResource("db/migration/V0.6__money-account-balance-slot.sql"))
+            .execute(replicaDataSource);
+    }
+
+    void setupPrimaryAccount(UUID userId, String accountId, Money balance) {
+        moneyAccountRepository.save(MoneyAccountEntity.builder()
+            .id(accountId)
+            .version(1)
+            .primaryOwnerId(userId)
+            .currencyCode(balance.getCurrency().getCurrencyCode())
+            .balanceAmount(balance.getNumberStripped())
+            .build());
+    }
+
+    void setupReplicaAccount(UUID userId, String accountId, Money balance) {
+        replica.update("INSERT INTO money_account (id, version, primary_owner_id, currency_code, balance_amount) "
+                + "VALUES (?, 1, ?, ?, ?)",
+            accountId, userId, balance.getCurrency().getCurrencyCode(), balance.getNumberStripped());
+    }
+
+    @Test
+    void shouldServeReadsFromReplicaAndTransfersFromPrimary() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        setupPrimaryAccount(userId, operatingAccountId, Money.of(BigDecimal.valueOf(1_000), "HKD"));
+        setupPrimaryAccount(userId, recipientAccountId, Money.of(BigDecimal.ZERO, "HKD"));
+        // the replica lags behind and still has the operating account only, with an older balance
+        setupReplicaAccount(userId, operatingAccountId, Money.of(BigDecimal.valueOf(500), "HKD"));
+
+        // when
+        accountManagement.transferMoneyToAccount(AccountManagement.TransferMoneyToAccountRequest.builder()
+            .userId(userId)
+            .operatingAccountId(operatingAccountId)
+            .operatingAccountVersion(1)
+            .recipientAccountId(recipientAccountId)
+            .currencyCode("HKD")
+            .toBeTransferAmount(BigDecimal.valueOf(100))
+            .build());
+
+        // then
+        final MoneyAccount replicaAccount = accountManagement.getAccount(
+            new AccountManagement.GetMoneyAccountRequest(operatingAccountId, userId));
+        assertAll(
+            () -> assertThat(replicaAccount.balance()).isEqualTo(Money.of(500, "HKD")),
+            () -> assertThat(accountManagement.getAllAccounts(userId)).hasSize(1),
+            () -> assertThatThrownBy(() -> accountManagement.getAccount(
+                new AccountManagement.GetMoneyAccountRequest(recipientAccountId, userId)))
+                .isInstanceOf(EntityNotFoundException.class),
+            () -> assertThat(new JdbcTemplate(primaryDataSource).queryForObject(
+                "SELECT balance_amount FROM money_account WHERE id = ?", BigDecimal.class, operatingAccountId))
+                .isEqualByComparingTo("900")
+        );
+    }
+}
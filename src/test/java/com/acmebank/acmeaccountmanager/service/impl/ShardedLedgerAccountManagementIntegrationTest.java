@@ -0,0 +1,409 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.AsyncTransfers;
+import com.acmebank.acmeaccountmanager.service.api.MoneyAccount;
+import com.acmebank.acmeaccountmanager.service.api.SubmittedTransfer;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLogPage;
+import com.acmebank.acmeaccountmanager.service.api.TransferOutcome;
+import com.acmebank.acmeaccountmanager.service.exception.InsufficientBalanceErrorException;
+import jakarta.validation.ConstraintViolationException;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "acme.account.engine=in-memory")
+class ShardedLedgerAccountManagementIntegrationTest {
+
+    @Autowired
+    AccountManagement accountManagement;
+
+    @Autowired
+    AsyncTransfers asyncTransfers;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TimeOrderedReferenceCodeGenerator referenceCodeGenerator;
+
+    @Autowired
+    AccountManagementMetrics metrics;
+
+    @DynamicPropertySource
+    static void ledgerProperties(DynamicPropertyRegistry registry) throws IOException {
+        Path journalDirectory = Files.createTempDirectory("acme-ledger-test");
+        registry.add("acme.ledger.journal-directory", journalDirectory::toString);
+        registry.add("acme.ledger.fsync", () -> "false");
+    }
+
+    static LedgerProperties ledgerProperties(Path journalDirectory) {
+        return new LedgerProperties(4, 100, journalDirectory, 64, false, Duration.ofMinutes(5));
+    }
+
+    static AccountManagement.TransferMoneyToAccountRequest transferRequest(UUID userId, String operatingAccountId,
+                                                                          int operatingAccountVersion,
+                                                                          String recipientAccountId,
+                                                                          BigDecimal amount) {
+        return AccountManagement.TransferMoneyToAccountRequest.builder()
+            .userId(userId)
+            .operatingAccountId(operatingAccountId)
+            .operatingAccountVersion(operatingAccountVersion)
+            .recipientAccountId(recipientAccountId)
+            .currencyCode("HKD")
+            .toBeTransferAmount(amount)
+            .build();
+    }
+
+    @Test
+    void shouldCompleteAllConcurrentTransfersToTheSameRecipientAcrossShards() throws Exception {
+        // given
+        final ShardedLedgerAccountManagement ledger = (ShardedLedgerAccountManagement) accountManagement;
+        final int senders = 16;
+        final UUID userId = UUID.randomUUID();
+        final UUID recipientUserId = UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        ledger.openAccount(recipientAccountId, recipientUserId, "HKD", BigDecimal.ZERO);
+        final List<String> operatingAccountIds = new ArrayList<>();
+        for (int i = 0; i < senders; i++) {
+            String operatingAccountId = "12345678" + UUID.randomUUID();
+            ledger.openAccount(operatingAccountId, userId, "HKD", BigDecimal.valueOf(1_000));
+            operatingAccountIds.add(operatingAccountId);
+        }
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String operatingAccountId : operatingAccountIds) {
+            futures.add(executor.submit(() -> accountManagement.transferMoneyToAccount(
+                transferRequest(userId, operatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(100)))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        List<MoneyAccount> actualOperatingAccounts = accountManagement.getAllAccounts(userId);
+        MoneyAccount actualRecipientAccount = accountManagement.getAccount(
+            new AccountManagement.GetMoneyAccountRequest(recipientAccountId, recipientUserId));
+        List<TransactionLog> actualRecipientLogs = accountManagement.getAllTransactionLog(recipientUserId);
+        assertAll(
+            () -> assertThat(actualOperatingAccounts).hasSize(senders).allSatisfy(account -> assertAll(
+                () -> assertThat(account.balance()).isEqualTo(Money.of(900, "HKD")),
+                () -> assertThat(account.version()).isEqualTo(1))),
+            () -> assertThat(actualRecipientAccount.balance()).isEqualTo(Money.of(1_600, "HKD")),
+            () -> assertThat(actualRecipientAccount.version()).isEqualTo(senders),
+            () -> assertThat(actualRecipientLogs).hasSize(senders)
+                .extracting(TransactionLog::createDateTimeUtc)
+                .isSortedAccordingTo((first, second) -> second.compareTo(first))
+        );
+    }
+
+    @Test
+    void shouldLeaveLedgerUntouchedWhenAllOrNothingBatchIsRejected() {
+        // given
+        final ShardedLedgerAccountManagement ledger = (ShardedLedgerAccountManagement) accountManagement;
+        final UUID userId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        ledger.openAccount(operatingAccountId, userId, "HKD", BigDecimal.valueOf(150));
+        ledger.openAccount(recipientAccountId, UUID.randomUUID(), "HKD", BigDecimal.ZERO);
+
+        // when
+        final List<AccountManagement.TransferMoneyToAccountRequest> requests = List.of(
+            transferRequest(userId, operatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(100)),
+            transferRequest(userId, operatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(100)));
+
+        // then
+        assertThatThrownBy(() -> accountManagement.transferMoneyToAccounts(requests,
+            AccountManagement.BatchTransferMode.ALL_OR_NOTHING))
+            .isInstanceOf(InsufficientBalanceErrorException.class);
+        MoneyAccount actualOperatingAccount = accountManagement.getAccount(
+            new AccountManagement.GetMoneyAccountRequest(operatingAccountId, userId));
+        assertAll(
+            () -> assertThat(actualOperatingAccount.balance()).isEqualTo(Money.of(150, "HKD")),
+            () -> assertThat(actualOperatingAccount.version()).isZero(),
+            () -> assertThat(accountManagement.getAllTransactionLog(userId)).isEmpty()
+        );
+    }
+
+    @Test
+    void shouldRejectAllOrNothingBatchDebitingDifferentAccountsAsInvalid() {
+        // given
+        final ShardedLedgerAccountManagement ledger = (ShardedLedgerAccountManagement) accountManagement;
+        final UUID userId = UUID.randomUUID();
+        final String firstOperatingAccountId = "12345678" + UUID.randomUUID();
+        final String secondOperatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        ledger.openAccount(firstOperatingAccountId, userId, "HKD", BigDecimal.valueOf(150));
+        ledger.openAccount(secondOperatingAccountId, userId, "HKD", BigDecimal.valueOf(150));
+        ledger.openAccount(recipientAccountId, UUID.randomUUID(), "HKD", BigDecimal.ZERO);
+
+        // when
+        final List<AccountManagement.TransferMoneyToAccountRequest> requests = List.of(
+            transferRequest(userId, firstOperatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(100)),
+            transferRequest(userId, secondOperatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(100)));
+
+        // then
+        assertThatThrownBy(() -> accountManagement.transferMoneyToAccounts(requests,
+            AccountManagement.BatchTransferMode.ALL_OR_NOTHING))
+            .isInstanceOf(ConstraintViolationException.class)
+            .hasMessage("All transfers of an all-or-nothing batch must debit the same MoneyAccount!");
+        assertThat(accountManagement.getAllTransactionLog(userId)).isEmpty();
+    }
+
+    @Test
+    void shouldReportPerItemBatchDebitingDifferentAccountsInRequestOrder() {
+        // given
+        final ShardedLedgerAccountManagement ledger = (ShardedLedgerAccountManagement) accountManagement;
+        final UUID userId = UUID.randomUUID();
+        final String firstOperatingAccountId = "12345678" + UUID.randomUUID();
+        final String secondOperatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        ledger.openAccount(firstOperatingAccountId, userId, "HKD", BigDecimal.valueOf(150));
+        ledger.openAccount(secondOperatingAccountId, userId, "HKD", BigDecimal.valueOf(150));
+        ledger.openAccount(recipientAccountId, UUID.randomUUID(), "HKD", BigDecimal.ZERO);
+
+        // when
+        final List<TransferOutcome> outcomes = accountManagement.transferMoneyToAccounts(List.of(
+                transferRequest(userId, firstOperatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(100)),
+                transferRequest(userId, secondOperatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(200)),
+                transferRequest(userId, firstOperatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(50)),
+                transferRequest(userId, "12345678" + UUID.randomUUID(), 0, recipientAccountId, BigDecimal.ONE)),
+            AccountManagement.BatchTransferMode.PER_ITEM);
+
+        // then
+        assertAll(
+            () -> assertThat(outcomes).extracting(TransferOutcome::status).containsExactly(
+                TransferOutcome.Status.COMPLETED, TransferOutcome.Status.UNPROCESSABLE,
+                TransferOutcome.Status.COMPLETED, TransferOutcome.Status.NOT_FOUND),
+            () -> assertThat(accountManagement.getAccount(new AccountManagement.GetMoneyAccountRequest(
+                firstOperatingAccountId, userId))).satisfies(account -> assertAll(
+                () -> assertThat(account.balance()).isEqualTo(Money.of(0, "HKD")),
+                () -> assertThat(account.version()).isEqualTo(1))),
+            () -> assertThat(accountManagement.getAccount(new AccountManagement.GetMoneyAccountRequest(
+                secondOperatingAccountId, userId)).version()).isZero()
+        );
+    }
+
+    @Test
+    void shouldExecuteAsyncTransfersDebitingDifferentAccountsInOneBatch() throws Exception {
+        // given
+        final ShardedLedgerAccountManagement ledger = (ShardedLedgerAccountManagement) accountManagement;
+        final int senders = 8;
+        final UUID userId = UUID.randomUUID();
+        final UUID recipientUserId = UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        ledger.openAccount(recipientAccountId, recipientUserId, "HKD", BigDecimal.ZERO);
+        final List<String> operatingAccountIds = new ArrayList<>();
+        for (int i = 0; i < senders; i++) {
+            String operatingAccountId = "12345678" + UUID.randomUUID();
+            ledger.openAccount(operatingAccountId, userId, "HKD", BigDecimal.valueOf(150));
+            operatingAccountIds.add(operatingAccountId);
+        }
+
+        // when the second transfer of every account is rejected
+        final List<SubmittedTransfer> submittedTransfers = new ArrayList<>();
+        for (String operatingAccountId : operatingAccountIds) {
+            submittedTransfers.add(asyncTransfers.submit(
+                transferRequest(userId, operatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(100))));
+        }
+        for (String operatingAccountId : operatingAccountIds) {
+            submittedTransfers.add(asyncTransfers.submit(
+                transferRequest(userId, operatingAccountId, 0, recipientAccountId, BigDecimal.valueOf(100))));
+        }
+        final List<SubmittedTransfer> actualTransfers = new ArrayList<>();
+        for (SubmittedTransfer submittedTransfer : submittedTransfers) {
+            actualTransfers.add(asyncTransfers.getTransfer(submittedTransfer.id(), userId, Duration.ofSeconds(10))
+                .get());
+        }
+
+        // then
+        assertAll(
+            () -> assertThat(actualTransfers.subList(0, senders)).extracting(SubmittedTransfer::status)
+                .containsOnly(SubmittedTransfer.Status.COMPLETED),
+            () -> assertThat(actualTransfers.subList(senders, 2 * senders)).extracting(SubmittedTransfer::status)
+                .containsOnly(SubmittedTransfer.Status.CONFLICT),
+            () -> assertThat(accountManagement.getAllAccounts(userId)).hasSize(senders)
+                .extracting(MoneyAccount::balance)
+                .containsOnly(Money.of(50, "HKD")),
+            () -> assertThat(accountManagement.getAccount(new AccountManagement.GetMoneyAccountRequest(
+                recipientAccountId, recipientUserId)).balance()).isEqualTo(Money.of(100 * senders, "HKD"))
+        );
+    }
+
+    @Test
+    void shouldRecoverBalancesAndTransactionLogsFromSnapshotAndJournal(@TempDir Path journalDirectory)
+        throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        ShardedLedgerAccountManagement ledger =
+            new ShardedLedgerAccountManagement(ledgerProperties(journalDirectory), jdbcTemplate,
+                referenceCodeGenerator, metrics);
+        ledger.start();
+        ledger.openAccount(operatingAccountId, userId, "HKD", BigDecimal.valueOf(1_000));
+        ledger.openAccount(recipientAccountId, userId, "HKD", BigDecimal.ZERO);
+        ledger.transferMoneyToAccount(
+            transferRequest(userId, operatingAccountId, 0, recipientAccountId, new BigDecimal("10.5")));
+        ledger.stop();
+
+        // when
+        ShardedLedgerAccountManagement recoveredLedger =
+            new ShardedLedgerAccountManagement(ledgerProperties(journalDirectory), jdbcTemplate,
+                referenceCodeGenerator, metrics);
+        recoveredLedger.start();
+        recoveredLedger.transferMoneyToAccount(
+            transferRequest(userId, operatingAccountId, 1, recipientAccountId, new BigDecimal("0.5")));
+        // no stop: the last transfer is only in the journal, as after a crash
+        ShardedLedgerAccountManagement crashRecoveredLedger =
+            new ShardedLedgerAccountManagement(ledgerProperties(journalDirectory), jdbcTemplate,
+                referenceCodeGenerator, metrics);
+        crashRecoveredLedger.start();
+
+        // then
+        List<MoneyAccount> actualAccounts = crashRecoveredLedger.getAllAccounts(userId);
+        assertAll(
+            () -> assertThat(actualAccounts).extracting(MoneyAccount::id)
+                .containsExactlyInAnyOrder(operatingAccountId, recipientAccountId),
+            () -> assertThat(crashRecoveredLedger.getAccount(
+                new AccountManagement.GetMoneyAccountRequest(operatingAccountId, userId)).balance())
+                .isEqualTo(Money.of(989, "HKD")),
+            () -> assertThat(crashRecoveredLedger.getAccount(
+                new AccountManagement.GetMoneyAccountRequest(recipientAccountId, userId)).version())
+                .isEqualTo(2),
+            () -> assertThat(crashRecoveredLedger.getAllTransactionLog(userId)).hasSize(4)
+        );
+        recoveredLedger.stop();
+        crashRecoveredLedger.stop();
+    }
+
+    @Test
+    void shouldServeTransactionLogsFromTableAndMemoryAfterSnapshot(@TempDir Path journalDirectory) throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        ShardedLedgerAccountManagement ledger =
+            new ShardedLedgerAccountManagement(ledgerProperties(journalDirectory), jdbcTemplate,
+                referenceCodeGenerator, metrics);
+        ledger.start();
+        ledger.openAccount(operatingAccountId, userId, "HKD", BigDecimal.valueOf(1_000));
+        ledger.openAccount(recipientAccountId, UUID.randomUUID(), "HKD", BigDecimal.ZERO);
+        ledger.transferMoneyToAccount(
+            transferRequest(userId, operatingAccountId, 0, recipientAccountId, BigDecimal.TEN));
+        ledger.stop();
+        ShardedLedgerAccountManagement restartedLedger =
+            new ShardedLedgerAccountManagement(ledgerProperties(journalDirectory), jdbcTemplate,
+                referenceCodeGenerator, metrics);
+        restartedLedger.start();
+
+        // when
+        restartedLedger.transferMoneyToAccount(
+            transferRequest(userId, operatingAccountId, 1, recipientAccountId, BigDecimal.ONE));
+        final List<TransactionLog> pagedLogs = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionLogPage page = restartedLedger.getTransactionLogPage(
+                new AccountManagement.GetTransactionLogPageRequest(userId, cursor, 1));
+            pagedLogs.addAll(page.transactionLogs());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        final List<TransactionLog> exportedLogs = new ArrayList<>();
+        restartedLedger.exportTransactionLog(
+            new AccountManagement.ExportTransactionLogRequest(userId, null, null), exportedLogs::add);
+
+        // then
+        final Integer actualStoredLogs = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM transaction_log WHERE operating_account_user_id = ?", Integer.class, userId);
+        assertAll(
+            () -> assertThat(actualStoredLogs).isEqualTo(1),
+            () -> assertThat(pagedLogs).extracting(TransactionLog::moneyAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(BigDecimal.ONE, BigDecimal.TEN),
+            () -> assertThat(exportedLogs).extracting(TransactionLog::moneyAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(BigDecimal.TEN, BigDecimal.ONE),
+            () -> assertThat(restartedLedger.getAllTransactionLog(userId)).hasSize(2)
+        );
+        restartedLedger.stop();
+    }
+
+    @Test
+    void shouldCompleteHandedOffCreditWhenJournalEndsWithDebit(@TempDir Path journalDirectory) throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final UUID recipientUserId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        try (LedgerJournal journal = new LedgerJournal(journalDirectory, 64, false)) {
+            journal.open(0);
+            journal.append(new LedgerRecord(journal.nextSequence(), LedgerRecord.Type.OPEN, operatingAccountId,
+                userId, "HKD", BigDecimal.valueOf(100), 0, null));
+            journal.append(new LedgerRecord(journal.nextSequence(), LedgerRecord.Type.OPEN, recipientAccountId,
+                recipientUserId, "HKD", BigDecimal.ZERO, 0, null));
+            journal.append(new LedgerRecord(journal.nextSequence(), LedgerRecord.Type.DEBIT, operatingAccountId,
+                userId, "HKD", BigDecimal.valueOf(60), 1, TransactionLog.builder()
+                .id(UUID.randomUUID())
+                .operatingAccountId(operatingAccountId)
+                .operation("DEDUCT")
+                .operatingAccountUserId(userId)
+                .referenceCode("TRANSFER_ABCDEFGHIJ0123456789")
+                .counterpartAccountId(recipientAccountId)
+                .currencyCode("HKD")
+                .moneyAmount(BigDecimal.valueOf(40))
+                .createDateTimeUtc(Instant.now())
+                .build())).join();
+        }
+
+        // when
+        ShardedLedgerAccountManagement ledger =
+            new ShardedLedgerAccountManagement(ledgerProperties(journalDirectory), jdbcTemplate,
+                referenceCodeGenerator, metrics);
+        ledger.start();
+        ledger.stop();
+        ShardedLedgerAccountManagement restartedLedger =
+            new ShardedLedgerAccountManagement(ledgerProperties(journalDirectory), jdbcTemplate,
+                referenceCodeGenerator, metrics);
+        restartedLedger.start();
+
+        // then
+        MoneyAccount actualRecipientAccount = restartedLedger.getAccount(
+            new AccountManagement.GetMoneyAccountRequest(recipientAccountId, recipientUserId));
+        List<TransactionLog> actualRecipientLogs = restartedLedger.getAllTransactionLog(recipientUserId);
+        assertAll(
+            () -> assertThat(actualRecipientAccount.balance()).isEqualTo(Money.of(40, "HKD")),
+            () -> assertThat(actualRecipientAccount.version()).isEqualTo(1),
+            () -> assertThat(actualRecipientLogs).singleElement().satisfies(transactionLog -> assertAll(
+                () -> assertThat(transactionLog.operation()).isEqualTo("ADD"),
+                () -> assertThat(transactionLog.referenceCode()).isEqualTo("TRANSFER_ABCDEFGHIJ0123456789")))
+        );
+        restartedLedger.stop();
+    }
+}
@@ -0,0 +1,97 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimeOrderedReferenceCodeGeneratorTest {
+
+    TimeOrderedReferenceCodeGenerator generator = new TimeOrderedReferenceCodeGenerator(new ReferenceCodeProperties(7));
+
+    @Test
+    void shouldGenerateFixedWidthCodesInIncreasingOrder() {
+        List<String> actualCodes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            actualCodes.add(generator.generate("TRANSFER"));
+        }
+
+        assertAll(
+            () -> assertThat(actualCodes).allSatisfy(code -> assertThat(code)
+                .startsWith("TRANSFER_")
+                .hasSize("TRANSFER_".length() + TimeOrderedReferenceCodeGenerator.CODE_LENGTH)
+                .matches("TRANSFER_[0-9A-HJKMNP-TV-Z]+")),
+            () -> assertThat(actualCodes).isSorted().doesNotHaveDuplicates()
+        );
+    }
+
+    @Test
+    void shouldGenerateVersion7UuidsInIncreasingOrder() {
+        final long before = System.currentTimeMillis();
+        List<UUID> actualUuids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            actualUuids.add(generator.generateUuid());
+        }
+
+        assertAll(
+            () -> assertThat(actualUuids).allSatisfy(uuid -> assertThat(uuid.version()).isEqualTo(7)),
+            () -> assertThat(actualUuids).allSatisfy(uuid -> assertThat(uuid.variant()).isEqualTo(2)),
+            () -> assertThat(actualUuids.get(0).getMostSignificantBits() >>> 16).isGreaterThanOrEqualTo(before),
+            // compared as the database compares them, byte by byte unsigned
+            () -> assertThat(actualUuids).extracting(UUID::toString).isSorted().doesNotHaveDuplicates()
+        );
+    }
+
+    @Test
+    void shouldGenerateUniqueCodesAcrossThreadsAndNodes() throws Exception {
+        TimeOrderedReferenceCodeGenerator otherNodeGenerator =
+            new TimeOrderedReferenceCodeGenerator(new ReferenceCodeProperties(8));
+        Set<String> actualCodes = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (TimeOrderedReferenceCodeGenerator nodeGenerator : List.of(generator, otherNodeGenerator)) {
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    Set<String> codes = new HashSet<>();
+                    for (int i = 0; i < 50_000; i++) {
+                        codes.add(nodeGenerator.generate("TRANSFER"));
+                    }
+                    actualCodes.addAll(codes);
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(actualCodes).hasSize(2 * 4 * 50_000);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 65536})
+    void shouldThrowIllegalArgumentExceptionWhenNodeIdIsOutOfRange(int nodeId) {
+        ReferenceCodeProperties properties = new ReferenceCodeProperties(nodeId);
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedReferenceCodeGenerator(properties));
+    }
+
+    @Test
+    void shouldThrowIllegalStateExceptionWhenNodeIdIsNotSet() {
+        ReferenceCodeProperties properties = new ReferenceCodeProperties(null);
+        assertThrows(IllegalStateException.class, () -> new TimeOrderedReferenceCodeGenerator(properties));
+    }
+}
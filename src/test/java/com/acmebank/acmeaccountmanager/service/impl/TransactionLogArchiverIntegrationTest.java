@@ -0,0 +1,101 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLog;
+import com.acmebank.acmeaccountmanager.service.api.TransactionLogPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = {
+        "acme.transaction-log.archive.enabled=true",
+        "acme.transaction-log.archive.hot-months=2",
+        "acme.transaction-log.archive.interval=1d"
+    })
+class TransactionLogArchiverIntegrationTest {
+
+    @Autowired
+    AccountManagement accountManagement;
+
+    @Autowired
+    TransactionLogArchiver transactionLogArchiver;
+
+    @Autowired
+    TransactionLogRepository transactionLogRepository;
+
+    void setupTransactionLog(UUID userId, String referenceCode, Instant createDateTimeUtc) {
+        transactionLogRepository.save(TransactionLogEntity.builder()
+            .operatingAccountId("12345678")
+            .operation("DEDUCT")
+            .operatingAccountUserId(userId)
+            .referenceCode(referenceCode)
+            .counterpartAccountId("88888888")
+            .currencyCode("HKD")
+            .moneyAmount(new BigDecimal("10.50"))
+            .createDateTimeUtc(createDateTimeUtc)
+            .build());
+    }
+
+    static Instant startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    @Test
+    void shouldMoveClosedMonthsToArchiveAndKeepReadingAcrossBothTables() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        setupTransactionLog(userId, "TRANSFER_1", startOf(currentMonth.minusMonths(3)));
+        setupTransactionLog(userId, "TRANSFER_2", startOf(currentMonth.minusMonths(1)).minusNanos(1_000));
+        setupTransactionLog(userId, "TRANSFER_3", startOf(currentMonth.minusMonths(1)));
+        setupTransactionLog(userId, "TRANSFER_4", startOf(currentMonth));
+
+        // when
+        transactionLogArchiver.archiveClosedMonths();
+
+        // then
+        final List<String> pagedReferenceCodes = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionLogPage page = accountManagement.getTransactionLogPage(
+                AccountManagement.GetTransactionLogPageRequest.builder()
+                    .userId(userId)
+                    .cursor(cursor)
+                    .limit(3)
+                    .build());
+            page.transactionLogs().forEach(transactionLog -> pagedReferenceCodes.add(transactionLog.referenceCode()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        final List<String> exportedReferenceCodes = new ArrayList<>();
+        accountManagement.exportTransactionLog(AccountManagement.ExportTransactionLogRequest.builder()
+                .userId(userId)
+                .build(),
+            transactionLog -> exportedReferenceCodes.add(transactionLog.referenceCode()));
+
+        assertAll(
+            () -> assertThat(
+                transactionLogRepository.findAllByOperatingAccountUserIdOrderByCreateDateTimeUtcDesc(userId))
+                .extracting(TransactionLogEntity::getReferenceCode)
+                .containsExactly("TRANSFER_4", "TRANSFER_3"),
+            () -> assertThat(pagedReferenceCodes)
+                .containsExactly("TRANSFER_4", "TRANSFER_3", "TRANSFER_2", "TRANSFER_1"),
+            () -> assertThat(accountManagement.getAllTransactionLog(userId)).extracting(TransactionLog::referenceCode)
+                .containsExactly("TRANSFER_4", "TRANSFER_3", "TRANSFER_2", "TRANSFER_1"),
+            () -> assertThat(exportedReferenceCodes)
+                .containsExactly("TRANSFER_1", "TRANSFER_2", "TRANSFER_3", "TRANSFER_4"),
+            () -> assertThat(transactionLogArchiver.archiveClosedMonths()).isZero()
+        );
+    }
+}
@@ -0,0 +1,122 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class TransferConcurrencyLimiterTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(1);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final AtomicInteger connectionWaiters = new AtomicInteger();
+
+    private TransferConcurrencyLimiter limiter(int initialLimit) {
+        return limiter(initialLimit, 4, 200);
+    }
+
+    private TransferConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit) {
+        return new TransferConcurrencyLimiter(new TransferProperties.Admission(true, initialLimit, minLimit, maxLimit,
+            WINDOW, 1, 0.9, Duration.ofSeconds(1), Duration.ofSeconds(8), 50, 100), connectionWaiters::get,
+            nanoTime::get);
+    }
+
+    /**
+     * Keeps the limiter saturated: every window admits as many transfers as the limit allows and completes them.
+     */
+    private void saturate(TransferConcurrencyLimiter limiter, int windows) {
+        for (int window = 0; window < windows; window++) {
+            nanoTime.addAndGet(WINDOW.toNanos());
+            int admitted = 0;
+            while (limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int transfer = 0; transfer < admitted; transfer++) {
+                limiter.release(false);
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectTransfersBeyondLimit() {
+        // given
+        final TransferConcurrencyLimiter limiter = limiter(4);
+
+        // when
+        final boolean[] admitted = {limiter.tryAcquire(), limiter.tryAcquire(), limiter.tryAcquire(),
+            limiter.tryAcquire(), limiter.tryAcquire()};
+        final Duration shedAtLimit = limiter.shed();
+        limiter.release(false);
+        final Duration shedBelowLimit = limiter.shed();
+        final boolean admittedAfterRelease = limiter.tryAcquire();
+
+        // then
+        assertAll(
+            () -> assertThat(admitted).containsExactly(true, true, true, true, false),
+            () -> assertThat(shedAtLimit).isEqualTo(Duration.ofSeconds(1)),
+            () -> assertThat(shedBelowLimit).isZero(),
+            () -> assertThat(admittedAfterRelease).isTrue()
+        );
+    }
+
+    @Test
+    void shouldGrowWithoutConnectionWaitersAndShrinkWhenTheyQueue() {
+        // given
+        final TransferConcurrencyLimiter limiter = limiter(10);
+
+        // when
+        saturate(limiter, 5);
+        final int limitWithoutWaiters = limiter.limit();
+        connectionWaiters.set(5);
+        saturate(limiter, 5);
+        final int limitWithWaiters = limiter.limit();
+
+        // then
+        assertAll(
+            () -> assertThat(limitWithoutWaiters).isEqualTo(15),
+            // the first window with waiters still averages in the transfers completed without, and grows once more
+            () -> assertThat(limitWithWaiters).isEqualTo(10)
+        );
+    }
+
+    @Test
+    void shouldBackOffOnTimeouts() {
+        // given
+        final TransferConcurrencyLimiter limiter = limiter(100);
+
+        // when
+        limiter.tryAcquire();
+        nanoTime.addAndGet(WINDOW.toNanos());
+        limiter.release(true);
+
+        // then
+        assertThat(limiter.limit()).isEqualTo(90);
+    }
+
+    @Test
+    void shouldDoubleRetryAfterWhileRejectingMoreThanCompletingAndHalveItBack() {
+        // given one transfer at a time
+        final TransferConcurrencyLimiter limiter = limiter(1, 1, 1);
+
+        // when
+        final Duration[] retryAfter = new Duration[6];
+        for (int window = 0; window < retryAfter.length; window++) {
+            nanoTime.addAndGet(WINDOW.toNanos());
+            limiter.tryAcquire();
+            // many rejected clients in the first four windows, none afterwards
+            for (int rejected = 0; window < 4 && rejected < 10; rejected++) {
+                limiter.shed();
+            }
+            limiter.release(false);
+            retryAfter[window] = limiter.retryAfter();
+        }
+
+        // then capped at 8s
+        assertThat(retryAfter).extracting(Duration::toSeconds).containsExactly(2L, 4L, 8L, 8L, 4L, 2L);
+    }
+}
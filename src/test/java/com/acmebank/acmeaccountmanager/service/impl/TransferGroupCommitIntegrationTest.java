@@ -0,0 +1,174 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import com.acmebank.acmeaccountmanager.service.api.AccountManagement;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static com.acmebank.acmeaccountmanager.service.impl.MoneyAccountFixtures.setupAccount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = {"acme.transaction-log.group-commit.enabled=true", "acme.transaction-log.group-commit.linger=50ms"})
+class TransferGroupCommitIntegrationTest {
+
+    @Autowired
+    AccountManagement accountManagement;
+
+    @Autowired
+    MoneyAccountRepository moneyAccountRepository;
+
+    @Autowired
+    TransactionLogRepository transactionLogRepository;
+
+    @Autowired
+    AccountManagementImpl accountManagementImpl;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    static AccountManagement.TransferMoneyToAccountRequest transferRequest(UUID userId, String operatingAccountId,
+                                                                          String recipientAccountId) {
+        return AccountManagement.TransferMoneyToAccountRequest.builder()
+            .userId(userId)
+            .operatingAccountId(operatingAccountId)
+            .operatingAccountVersion(1)
+            .recipientAccountId(recipientAccountId)
+            .currencyCode("HKD")
+            .toBeTransferAmount(BigDecimal.TEN)
+            .build();
+    }
+
+    @Test
+    void shouldCommitConcurrentTransfersToTheSameRecipientTogether() throws Exception {
+        // given
+        final int senders = 20;
+        final UUID userId = UUID.randomUUID();
+        final UUID recipientUserId = UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, recipientUserId, recipientAccountId, Money.of(BigDecimal.ZERO, "HKD"));
+        final List<String> operatingAccountIds = new ArrayList<>();
+        for (int i = 0; i < senders; i++) {
+            String operatingAccountId = "12345678" + UUID.randomUUID();
+            setupAccount(moneyAccountRepository, userId, operatingAccountId, Money.of(BigDecimal.valueOf(100), "HKD"));
+            operatingAccountIds.add(operatingAccountId);
+        }
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(senders);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String operatingAccountId : operatingAccountIds) {
+            futures.add(executor.submit(() -> accountManagement.transferMoneyToAccount(
+                transferRequest(userId, operatingAccountId, recipientAccountId))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        MoneyAccountEntity actualRecipientAccount = moneyAccountRepository.findById(recipientAccountId).orElseThrow();
+        assertAll(
+            () -> assertThat(actualRecipientAccount.getBalance()).isEqualTo(Money.of(200, "HKD")),
+            () -> assertThat(actualRecipientAccount.getVersion()).isEqualTo(1 + senders),
+            () -> assertThat(transactionLogRepository
+                .findAllByOperatingAccountUserIdOrderByCreateDateTimeUtcDesc(recipientUserId)).hasSize(senders),
+            () -> assertThat(transactionLogRepository
+                .findAllByOperatingAccountUserIdOrderByCreateDateTimeUtcDesc(userId)).hasSize(senders)
+        );
+    }
+
+    @Test
+    void shouldRejectSecondTransferWithTheSameVersionInOneGroup() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, operatingAccountId, Money.of(BigDecimal.valueOf(100), "HKD"));
+        setupAccount(moneyAccountRepository, userId, recipientAccountId, Money.of(BigDecimal.ZERO, "HKD"));
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            futures.add(executor.submit(() -> accountManagement.transferMoneyToAccount(
+                transferRequest(userId, operatingAccountId, recipientAccountId))));
+        }
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        executor.shutdown();
+
+        // then
+        MoneyAccountEntity actualOperatingAccount = moneyAccountRepository.findById(operatingAccountId).orElseThrow();
+        assertAll(
+            () -> assertThat(failures).singleElement().isInstanceOf(OptimisticLockException.class),
+            () -> assertThat(actualOperatingAccount.getBalance()).isEqualTo(Money.of(90, "HKD")),
+            () -> assertThat(actualOperatingAccount.getVersion()).isEqualTo(2),
+            () -> assertThat(transactionLogRepository
+                .findAllByOperatingAccountUserIdOrderByCreateDateTimeUtcDesc(userId)).hasSize(2)
+        );
+    }
+
+    @Test
+    void shouldCommitTransferOnItsOwnWhenTheWorkerStopped() throws Exception {
+        // given
+        final UUID userId = UUID.randomUUID();
+        final String operatingAccountId = "12345678" + UUID.randomUUID();
+        final String recipientAccountId = "88888888" + UUID.randomUUID();
+        setupAccount(moneyAccountRepository, userId, operatingAccountId, Money.of(BigDecimal.valueOf(100), "HKD"));
+        setupAccount(moneyAccountRepository, userId, recipientAccountId, Money.of(BigDecimal.ZERO, "HKD"));
+        final Set<Thread> otherWorkers = groupCommitWorkers();
+        final TransferGroupCommitter groupCommitter = new TransferGroupCommitter(accountManagementImpl, entityManager,
+            transactionManager, new TransactionLogProperties.GroupCommit(true, 32, Duration.ofMillis(2), 1000,
+            Duration.ofMillis(200)));
+        final Thread worker = groupCommitWorkers().stream()
+            .filter(thread -> !otherWorkers.contains(thread))
+            .findFirst().orElseThrow();
+        worker.interrupt();
+        worker.join();
+
+        // when
+        groupCommitter.transferMoneyToAccount(transferRequest(userId, operatingAccountId, recipientAccountId));
+
+        // then
+        MoneyAccountEntity actualOperatingAccount = moneyAccountRepository.findById(operatingAccountId).orElseThrow();
+        assertAll(
+            () -> assertThat(actualOperatingAccount.getBalance()).isEqualTo(Money.of(90, "HKD")),
+            () -> assertThat(actualOperatingAccount.getVersion()).isEqualTo(2),
+            () -> assertThat(transactionLogRepository
+                .findAllByOperatingAccountUserIdOrderByCreateDateTimeUtcDesc(userId)).hasSize(2)
+        );
+    }
+
+    static Set<Thread> groupCommitWorkers() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals("transfer-group-commit"))
+            .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,72 @@
+package com.acmebank.acmeaccountmanager.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class UserTransferRateLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    // one transfer per second, bursts of three
+    private final UserTransferRateLimiter limiter = new UserTransferRateLimiter(
+        new TransferProperties.Admission(true, 10, 4, 200, Duration.ofSeconds(1), 1, 0.9, Duration.ofSeconds(1),
+            Duration.ofSeconds(30), 1, 3),
+        nanoTime::get);
+
+    @Test
+    void shouldAdmitBurstThenRefillAtRate() {
+        // given
+        final UUID userId = UUID.randomUUID();
+
+        // when
+        final Duration first = limiter.tryAcquire(userId, 2);
+        final Duration second = limiter.tryAcquire(userId, 1);
+        final Duration rejected = limiter.tryAcquire(userId, 1);
+        final Duration otherUser = limiter.tryAcquire(UUID.randomUUID(), 1);
+        nanoTime.addAndGet(Duration.ofMillis(1_000).toNanos());
+        final Duration refilled = limiter.tryAcquire(userId, 1);
+        final Duration rejectedAgain = limiter.tryAcquire(userId, 1);
+
+        // then
+        assertAll(
+            () -> assertThat(first).isZero(),
+            () -> assertThat(second).isZero(),
+            () -> assertThat(rejected).isEqualTo(Duration.ofSeconds(1)),
+            () -> assertThat(otherUser).isZero(),
+            () -> assertThat(refilled).isZero(),
+            () -> assertThat(rejectedAgain).isEqualTo(Duration.ofSeconds(1))
+        );
+    }
+
+    @Test
+    void shouldAdmitAgainAfterRelease() {
+        // given
+        final UUID userId = UUID.randomUUID();
+        limiter.tryAcquire(userId, 3);
+
+        // when
+        final Duration rejected = limiter.tryAcquire(userId, 1);
+        limiter.release(userId, 2);
+        final Duration released = limiter.tryAcquire(userId, 2);
+
+        // then
+        assertAll(
+            () -> assertThat(rejected).isEqualTo(Duration.ofSeconds(1)),
+            () -> assertThat(released).isZero()
+        );
+    }
+
+    @Test
+    void shouldCapBatchesAtBurst() {
+        // when
+        final Duration batch = limiter.tryAcquire(UUID.randomUUID(), 1_000);
+
+        // then
+        assertThat(batch).isZero();
+    }
+}